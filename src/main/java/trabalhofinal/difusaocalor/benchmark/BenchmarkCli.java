@@ -0,0 +1,577 @@
+package trabalhofinal.difusaocalor.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import trabalhofinal.difusaocalor.simulator.AbstractHeatSimulator;
+import trabalhofinal.difusaocalor.simulator.CacheObliviousHeatSimulator;
+import trabalhofinal.difusaocalor.simulator.DistributedHeatSimulator;
+import trabalhofinal.difusaocalor.simulator.ParallelHeatSimulator;
+import trabalhofinal.difusaocalor.simulator.SequentialHeatSimulator;
+import trabalhofinal.difusaocalor.simulator.StencilKernel;
+import trabalhofinal.difusaocalor.simulator.StencilKernels;
+import trabalhofinal.difusaocalor.simulator.TemporalBlocking;
+import trabalhofinal.difusaocalor.simulator.TileSize;
+
+/**
+ * Ponto de entrada de linha de comando para os benchmarks, sem interface
+ * gráfica (útil em servidores e em malhas grandes como 4096² e 8192²).
+ *
+ * Uso:
+ * java BenchmarkCli <cenário> [n] [passos] [repetições]
+ *
+ * Cenários:
+ * - layout: compara o layout jagged double[n][n] com o contíguo (HeatGrid)
+ * - kernel: compara o kernel escalar com o SIMD (Vector API), sequencial e
+ * paralelo; requer --add-modules jdk.incubator.vector para o SIMD
+ * - tiles: compara a travessia linha a linha com tiles de cache de vários
+ * tamanhos, sequencial e paralelo
+ * - temporal: compara passo a passo com bloqueio temporal (vários passos por
+ * tile em cache), sequencial e paralelo
+ * - modes: compara os modos locais (sequencial, paralelo e cache-oblivious)
+ * - scheduling: compara os escalonamentos do simulador paralelo e reporta o
+ * custo por passo e a cauda (p99) da duração de cada passo por thread (use
+ * malhas pequenas e muitos passos)
+ * - adaptive: compara faixas fixas com o reparticionamento adaptativo por
+ * vazão medida e mostra as faixas finais de cada thread
+ * - blocks: compara faixas de linhas com blocos 2D (grade px × py de threads)
+ * para 4, 8 e 16 threads e para o número de cores
+ * - distributed: compara os modos de troca do simulador distribuído (blocos
+ * sem estado × faixas residentes × ponto a ponto), com passos por troca
+ * k = 1 e automático (zona fantasma), e bytes por passo que passam pelo
+ * coordenador; URLs dos workers
+ * após [repetições] (padrão: rmi://localhost:1099/Worker1 e 1100/Worker2)
+ * - transport: compara os transportes RMI e binário (tcp://) com as mesmas
+ * operações, com latência e bytes na rede por passo; URLs dos workers após
+ * [repetições], agrupadas pelo esquema (padrão: rmi://localhost:1099/Worker1,
+ * rmi://localhost:1100/Worker2, tcp://localhost:2099 e tcp://localhost:2100;
+ * workers tcp são iniciados com WorkerServer <nome> <porta> tcp)
+ * - compression: compara, em cada modo do simulador distribuído, a troca de
+ * blocos sem compressão, com compressão (GorillaCodec) e com a escolha
+ * automática, com razão de compressão e tempo de codec por passo no
+ * coordenador; URLs dos workers após [repetições], como em distributed
+ * - balance: compara, nos modos sem estado, a divisão igual das linhas entre
+ * os workers com o balanceamento pela vazão medida de cada um, e mostra a
+ * divisão final; URLs dos workers após [repetições], como em distributed
+ * - hedging: compara, nos modos sem estado, a espera sem prazo pelos workers
+ * com as réplicas especulativas das faixas atrasadas, com taxa de réplicas e
+ * cauda de latência (p50/p99) das chamadas originais e da espera efetiva;
+ * URLs dos workers após [repetições], como em distributed (um worker lento,
+ * p. ex. com -Xint, evidencia o efeito)
+ * - overlap: compara, no modo ponto a ponto, as trocas de linhas de borda
+ * depois do cálculo das faixas com as sobrepostas ao cálculo, com o tempo
+ * por passo de cálculo, de comunicação e de comunicação exposta; URLs dos
+ * workers após [repetições], como em distributed
+ * - coordinator: compara, nos modos sem estado e residente, o coordenador só
+ * distribuindo com ele calculando também uma faixa própria, e mostra a
+ * divisão final; URLs dos workers após [repetições], como em distributed
+ * - inflight: compara, no modo sem estado, uma faixa e uma chamada por
+ * worker com a parte de cada worker cortada em vários pedaços e mais de uma
+ * chamada em curso, e mostra a utilização de cada worker (fração do tempo
+ * calculando); URLs dos workers após [repetições], como em distributed
+ * - serialization: compara a serialização Java (como no RMI) de linhas da
+ * malha em double[][] e em GridBlock, com tempo e bytes alocados por chamada
+ * e tamanho serializado; [passos] é o número de chamadas medidas
+ * - numa: compara inicialização, reset e snapshot pela thread chamadora com
+ * os feitos pelas threads do cálculo (first-touch); em máquinas NUMA use
+ * -XX:+UseNUMA
+ * - verify: confere, bit a bit (Arrays.deepEquals), a malha final de cada modo
+ * contra a do simulador sequencial passo a passo: sequencial com bloqueio
+ * temporal, paralelo em cada escalonamento, com bloqueio temporal e com
+ * blocos 2D, cache-oblivious e distribuído em cada modo de troca e de
+ * compressão; [repetições] é ignorado; URLs dos workers após [repetições],
+ * como em distributed; termina com código 1 se algum modo divergir
+ *
+ * Exemplo:
+ * java -Xmx4g BenchmarkCli layout 4096 50 3
+ * java --add-modules jdk.incubator.vector BenchmarkCli kernel 4096 50 3
+ */
+public class BenchmarkCli {
+
+    private static final List<String> DEFAULT_WORKERS = Arrays.asList("rmi://localhost:1099/Worker1",
+            "rmi://localhost:1100/Worker2");
+    private static final List<String> TRANSPORT_WORKERS = Arrays.asList("rmi://localhost:1099/Worker1",
+            "rmi://localhost:1100/Worker2", "tcp://localhost:2099", "tcp://localhost:2100");
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: BenchmarkCli <layout|kernel|tiles|temporal|modes|scheduling|adaptive|blocks|distributed|transport|compression|balance|hedging|overlap|coordinator|inflight|serialization|numa|verify> [n] [steps] [repeats] [workerUrls...]");
+            System.exit(1);
+        }
+        String scenario = args[0];
+        int n = args.length > 1 ? Integer.parseInt(args[1]) : 1024;
+        int steps = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int repeats = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+        double alpha = 0.1;
+        List<String> urls = args.length > 4 ? Arrays.asList(args).subList(4, args.length)
+                : "transport".equals(scenario) ? TRANSPORT_WORKERS : DEFAULT_WORKERS;
+
+        switch (scenario) {
+            case "layout":
+                runLayout(n, alpha, steps, repeats);
+                break;
+            case "kernel":
+                runKernel(n, alpha, steps, repeats);
+                break;
+            case "tiles":
+                runTiles(n, alpha, steps, repeats);
+                break;
+            case "temporal":
+                runTemporal(n, alpha, steps, repeats);
+                break;
+            case "modes":
+                runModes(n, alpha, steps, repeats);
+                break;
+            case "scheduling":
+                runScheduling(n, alpha, steps, repeats);
+                break;
+            case "adaptive":
+                runAdaptive(n, alpha, steps, repeats);
+                break;
+            case "blocks":
+                runBlocks(n, alpha, steps, repeats);
+                break;
+            case "distributed":
+                runDistributed(n, alpha, steps, repeats, urls);
+                break;
+            case "transport":
+                runTransport(n, alpha, steps, repeats, urls);
+                break;
+            case "compression":
+                runCompression(n, alpha, steps, repeats, urls);
+                break;
+            case "balance":
+                runBalance(n, alpha, steps, repeats, urls);
+                break;
+            case "hedging":
+                runHedging(n, alpha, steps, repeats, urls);
+                break;
+            case "overlap":
+                runOverlap(n, alpha, steps, repeats, urls);
+                break;
+            case "coordinator":
+                runCoordinator(n, alpha, steps, repeats, urls);
+                break;
+            case "inflight":
+                runInFlight(n, alpha, steps, repeats, urls);
+                break;
+            case "serialization":
+                runSerialization(n, steps);
+                break;
+            case "numa":
+                runNuma(n, alpha, steps, repeats);
+                break;
+            case "verify":
+                runVerify(n, alpha, steps, urls);
+                break;
+            default:
+                System.out.println("Cenário desconhecido: " + scenario);
+                System.exit(1);
+        }
+    }
+
+    private static void runLayout(int n, double alpha, int steps, int repeats) {
+        BenchmarkUtil.Stats jagged = BenchmarkUtil.runJaggedLayoutReference(n, alpha, steps, repeats);
+        BenchmarkUtil.Stats flat = BenchmarkUtil.runSequential(n, alpha, steps, repeats);
+        printHeader(n, steps, repeats);
+        printRow("jagged double[n][n]", jagged, n, steps);
+        printRow("contíguo HeatGrid", flat, n, steps);
+        System.out.printf("Ganho (células/s): %.2fx%n",
+                BenchmarkUtil.cellsPerSecond(flat, n, steps) / BenchmarkUtil.cellsPerSecond(jagged, n, steps));
+    }
+
+    private static void runKernel(int n, double alpha, int steps, int repeats) {
+        if (!StencilKernels.isVectorAvailable())
+            System.out.println("Aviso: Vector API indisponível, kernel 'vector' usará o escalar");
+        int threads = Runtime.getRuntime().availableProcessors();
+        StencilKernel scalar = StencilKernels.scalar();
+        StencilKernel vector = StencilKernels.vector();
+        printHeader(n, steps, repeats);
+        printRow("sequencial " + scalar.name(),
+                BenchmarkUtil.runSequential(n, alpha, steps, repeats, scalar), n, steps);
+        printRow("sequencial " + vector.name(),
+                BenchmarkUtil.runSequential(n, alpha, steps, repeats, vector), n, steps);
+        printRow("paralelo " + scalar.name(),
+                BenchmarkUtil.runParallel(n, alpha, steps, repeats, threads, scalar), n, steps);
+        printRow("paralelo " + vector.name(),
+                BenchmarkUtil.runParallel(n, alpha, steps, repeats, threads, vector), n, steps);
+    }
+
+    private static void runTiles(int n, double alpha, int steps, int repeats) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        StencilKernel kernel = StencilKernels.scalar();
+        TileSize[] sizes = { TileSize.NONE, TileSize.of(256, 16), TileSize.of(512, 32), TileSize.of(1024, 64) };
+        printHeader(n, steps, repeats);
+        for (TileSize tiles : sizes) {
+            BenchmarkUtil.Stats seq = BenchmarkUtil.runSequential(n, alpha, steps, repeats, kernel, tiles);
+            printRow("sequencial " + seq.config, seq, n, steps);
+        }
+        for (TileSize tiles : sizes) {
+            BenchmarkUtil.Stats par = BenchmarkUtil.runParallel(n, alpha, steps, repeats, threads, kernel, tiles);
+            printRow("paralelo " + par.config, par, n, steps);
+        }
+    }
+
+    private static void runTemporal(int n, double alpha, int steps, int repeats) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        TemporalBlocking[] configs = { TemporalBlocking.NONE, TemporalBlocking.of(4, 256, 64),
+                TemporalBlocking.of(8, 256, 64), TemporalBlocking.of(16, 512, 128) };
+        printHeader(n, steps, repeats);
+        for (TemporalBlocking blocking : configs) {
+            BenchmarkUtil.Stats seq = BenchmarkUtil.runSequentialTemporal(n, alpha, steps, repeats, blocking);
+            printRow("sequencial " + seq.config, seq, n, steps);
+        }
+        for (TemporalBlocking blocking : configs) {
+            BenchmarkUtil.Stats par = BenchmarkUtil.runParallelTemporal(n, alpha, steps, repeats, threads, blocking);
+            printRow("paralelo " + par.config, par, n, steps);
+        }
+    }
+
+    private static void runModes(int n, double alpha, int steps, int repeats) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        printHeader(n, steps, repeats);
+        printRow("sequencial", BenchmarkUtil.runSequential(n, alpha, steps, repeats), n, steps);
+        BenchmarkUtil.Stats par = BenchmarkUtil.runParallel(n, alpha, steps, repeats, threads);
+        printRow("paralelo " + par.config, par, n, steps);
+        BenchmarkUtil.Stats co = BenchmarkUtil.runCacheOblivious(n, alpha, steps, repeats, threads);
+        printRow("cache-oblivious " + co.config, co, n, steps);
+    }
+
+    private static void runScheduling(int n, double alpha, int steps, int repeats) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        printHeader(n, steps, repeats);
+        for (ParallelHeatSimulator.Scheduling scheduling : ParallelHeatSimulator.Scheduling.values()) {
+            BenchmarkUtil.Stats stats = BenchmarkUtil.runParallelConfigured(n, alpha, steps, repeats, threads,
+                    sim -> sim.setScheduling(scheduling), "scheduling=" + scheduling);
+            printRow(stats.config, stats, n, steps);
+            System.out.printf("    %.0f ns/passo%n", stats.mean / steps * 1e9);
+            long[] durations = BenchmarkUtil.measureStepDurations(n, alpha, steps, threads,
+                    sim -> sim.setScheduling(scheduling));
+            if (durations.length > 0)
+                System.out.printf("    passo por thread: p50=%d ns p99=%d ns máx=%d ns%n",
+                        BenchmarkUtil.percentile(durations, 50), BenchmarkUtil.percentile(durations, 99),
+                        durations[durations.length - 1]);
+        }
+    }
+
+    private static void runAdaptive(int n, double alpha, int steps, int repeats) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int interval = Math.max(1, steps / 10);
+        ParallelHeatSimulator.Scheduling scheduling = ParallelHeatSimulator.Scheduling.PERSISTENT_BARRIER;
+        printHeader(n, steps, repeats);
+        BenchmarkUtil.Stats fixed = BenchmarkUtil.runParallelConfigured(n, alpha, steps, repeats, threads,
+                sim -> sim.setScheduling(scheduling), "faixas fixas");
+        printRow(fixed.config, fixed, n, steps);
+        BenchmarkUtil.Stats adaptive = BenchmarkUtil.runParallelConfigured(n, alpha, steps, repeats, threads,
+                sim -> {
+                    sim.setScheduling(scheduling);
+                    sim.setRebalanceInterval(interval);
+                }, "rebalanceamento a cada " + interval + " passos");
+        printRow(adaptive.config, adaptive, n, steps);
+
+        ParallelHeatSimulator sim = new ParallelHeatSimulator(n, alpha, threads);
+        try {
+            sim.setScheduling(scheduling);
+            sim.setRebalanceInterval(interval);
+            sim.runSteps(steps);
+            System.out.println("Faixas finais (" + sim.getRebalanceCount() + " rebalanceamentos):");
+            for (ParallelHeatSimulator.RangeInfo range : sim.getRangeTimings())
+                System.out.println("    " + range);
+        } finally {
+            sim.shutdown();
+        }
+    }
+
+    private static void runBlocks(int n, double alpha, int steps, int repeats) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        printHeader(n, steps, repeats);
+        for (int threads : new int[] { 4, 8, 16, cores }) {
+            for (ParallelHeatSimulator.Decomposition d : ParallelHeatSimulator.Decomposition.values()) {
+                BenchmarkUtil.Stats stats = BenchmarkUtil.runParallelDecomposition(n, alpha, steps, repeats, threads, d);
+                printRow(stats.config, stats, n, steps);
+            }
+        }
+    }
+
+    private static void runDistributed(int n, double alpha, int steps, int repeats, List<String> urls) {
+        printHeader(n, steps, repeats);
+        for (DistributedHeatSimulator.Mode mode : DistributedHeatSimulator.Mode.values()) {
+            for (int depth : new int[] { 1, 0 }) {
+                BenchmarkUtil.Stats stats = BenchmarkUtil.runDistributed(n, alpha, steps, repeats, urls, sim -> {
+                    sim.setMode(mode);
+                    sim.setGhostDepth(depth);
+                }, "");
+                printRow(stats.config, stats, n, steps);
+            }
+        }
+    }
+
+    private static void runTransport(int n, double alpha, int steps, int repeats, List<String> urls) {
+        Map<String, List<String>> byScheme = new LinkedHashMap<>();
+        for (String url : urls) {
+            String scheme = url.contains("://") ? url.substring(0, url.indexOf("://")) : url;
+            byScheme.computeIfAbsent(scheme, k -> new ArrayList<>()).add(url);
+        }
+        printHeader(n, steps, repeats);
+        for (Map.Entry<String, List<String>> group : byScheme.entrySet()) {
+            // Passo a passo (k = 1) expõe o custo por chamada de cada transporte
+            for (DistributedHeatSimulator.Mode mode : new DistributedHeatSimulator.Mode[] {
+                    DistributedHeatSimulator.Mode.STATELESS_BLOCKS, DistributedHeatSimulator.Mode.RESIDENT_STRIPS }) {
+                BenchmarkUtil.Stats stats = BenchmarkUtil.runDistributed(n, alpha, steps, repeats, group.getValue(),
+                        sim -> {
+                            sim.setMode(mode);
+                            sim.setGhostDepth(1);
+                        }, "");
+                printRow(group.getKey() + " " + stats.config, stats, n, steps);
+                System.out.printf("    latência: %.1f µs/passo%n", stats.mean / steps * 1e6);
+            }
+        }
+    }
+
+    private static void runCompression(int n, double alpha, int steps, int repeats, List<String> urls) {
+        printHeader(n, steps, repeats);
+        for (DistributedHeatSimulator.Mode mode : DistributedHeatSimulator.Mode.values()) {
+            for (DistributedHeatSimulator.Compression c : DistributedHeatSimulator.Compression.values()) {
+                BenchmarkUtil.Stats stats = BenchmarkUtil.runDistributed(n, alpha, steps, repeats, urls, sim -> {
+                    sim.setMode(mode);
+                    sim.setCompression(c);
+                }, "");
+                printRow(stats.config, stats, n, steps);
+            }
+        }
+    }
+
+    private static void runBalance(int n, double alpha, int steps, int repeats, List<String> urls) {
+        printHeader(n, steps, repeats);
+        for (int depth : new int[] { 1, 0 }) {
+            for (boolean balancing : new boolean[] { false, true }) {
+                BenchmarkUtil.Stats stats = BenchmarkUtil.runDistributed(n, alpha, steps, repeats, urls,
+                        sim -> {
+                            sim.setGhostDepth(depth);
+                            sim.setLoadBalancing(balancing);
+                        }, balancing ? "balanceado" : "divisão igual");
+                printRow(stats.config, stats, n, steps);
+            }
+        }
+
+        DistributedHeatSimulator sim = new DistributedHeatSimulator(n, alpha, urls);
+        try {
+            sim.setBoundaryFlags(true, false, false, false);
+            sim.runSteps(steps);
+            System.out.println("Divisão final (" + sim.getRebalanceCount() + " rebalanceamentos):");
+            for (DistributedHeatSimulator.WorkerInfo w : sim.getWorkerAssignments())
+                System.out.println("    " + w);
+        } finally {
+            sim.shutdown();
+        }
+    }
+
+    private static void runHedging(int n, double alpha, int steps, int repeats, List<String> urls) {
+        printHeader(n, steps, repeats);
+        for (int depth : new int[] { 1, 0 }) {
+            for (boolean hedging : new boolean[] { false, true }) {
+                DistributedHeatSimulator[] last = new DistributedHeatSimulator[1];
+                BenchmarkUtil.Stats stats = BenchmarkUtil.runDistributed(n, alpha, steps, repeats, urls,
+                        sim -> {
+                            sim.setGhostDepth(depth);
+                            sim.setHedging(hedging);
+                            last[0] = sim;
+                        }, hedging ? "com réplicas" : "sem réplicas");
+                printRow(stats.config, stats, n, steps);
+                if (last[0] != null)
+                    System.out.println("    " + last[0].getHedgeStats());
+            }
+        }
+    }
+
+    private static void runOverlap(int n, double alpha, int steps, int repeats, List<String> urls) {
+        printHeader(n, steps, repeats);
+        for (int depth : new int[] { 1, 0 }) {
+            for (boolean overlap : new boolean[] { false, true }) {
+                DistributedHeatSimulator[] last = new DistributedHeatSimulator[1];
+                BenchmarkUtil.Stats stats = BenchmarkUtil.runDistributed(n, alpha, steps, repeats, urls,
+                        sim -> {
+                            sim.setMode(DistributedHeatSimulator.Mode.PEER_TO_PEER);
+                            sim.setGhostDepth(depth);
+                            sim.setHaloOverlap(overlap);
+                            last[0] = sim;
+                        }, overlap ? "sobreposto" : "sequencial");
+                printRow(stats.config, stats, n, steps);
+                if (last[0] != null)
+                    System.out.println("    " + last[0].getHaloTimings());
+            }
+        }
+    }
+
+    private static void runCoordinator(int n, double alpha, int steps, int repeats, List<String> urls) {
+        printHeader(n, steps, repeats);
+        for (DistributedHeatSimulator.Mode mode : new DistributedHeatSimulator.Mode[] {
+                DistributedHeatSimulator.Mode.STATELESS_BLOCKS, DistributedHeatSimulator.Mode.RESIDENT_STRIPS }) {
+            for (boolean participates : new boolean[] { false, true }) {
+                BenchmarkUtil.Stats stats = BenchmarkUtil.runDistributed(n, alpha, steps, repeats, urls, sim -> {
+                    sim.setMode(mode);
+                    sim.setCoordinatorCompute(participates);
+                }, participates ? "coordenador calcula" : "só workers");
+                printRow(stats.config, stats, n, steps);
+            }
+        }
+
+        DistributedHeatSimulator sim = new DistributedHeatSimulator(n, alpha, urls);
+        try {
+            sim.setBoundaryFlags(true, false, false, false);
+            sim.runSteps(steps);
+            System.out.println("Divisão final (" + sim.getRebalanceCount() + " rebalanceamentos):");
+            for (DistributedHeatSimulator.WorkerInfo w : sim.getWorkerAssignments())
+                System.out.println("    " + w);
+        } finally {
+            sim.shutdown();
+        }
+    }
+
+    private static void runInFlight(int n, double alpha, int steps, int repeats, List<String> urls) {
+        printHeader(n, steps, repeats);
+        // { faixas por worker, chamadas em voo por worker }
+        int[][] configs = { { 1, 1 }, { 2, 1 }, { 2, 2 }, { 4, 2 }, { 8, 4 } };
+        for (int depth : new int[] { 1, 0 }) {
+            for (int[] c : configs) {
+                BenchmarkUtil.Stats stats = BenchmarkUtil.runDistributed(n, alpha, steps, repeats, urls,
+                        sim -> {
+                            sim.setGhostDepth(depth);
+                            sim.setStripsPerWorker(c[0]);
+                            sim.setInFlightDepth(c[1]);
+                        }, c[0] + " faixas/worker, " + c[1] + " em voo");
+                printRow(stats.config, stats, n, steps);
+            }
+        }
+
+        System.out.println("Utilização dos workers (k automático):");
+        for (int[] c : configs) {
+            DistributedHeatSimulator sim = new DistributedHeatSimulator(n, alpha, urls);
+            try {
+                sim.setStripsPerWorker(c[0]);
+                sim.setInFlightDepth(c[1]);
+                sim.setBoundaryFlags(true, false, false, false);
+                sim.runSteps(Math.min(10, steps)); // Aquecimento e primeiras medidas
+                sim.resetWorkerUtilization();
+                sim.runSteps(steps);
+                double[] utilization = sim.getWorkerUtilization();
+                StringBuilder line = new StringBuilder();
+                for (int i = 0; i < utilization.length; i++)
+                    line.append(String.format("  %s %.1f%%", urls.get(i), 100 * utilization[i]));
+                System.out.println("    " + c[0] + " faixas/worker, " + c[1] + " em voo:" + line);
+            } finally {
+                sim.shutdown();
+            }
+        }
+    }
+
+    private static void runSerialization(int n, int calls) {
+        System.out.printf("n=%d | chamadas=%d%n", n, calls);
+        System.out.printf("%-52s %12s %16s %12s%n", "Configuração", "ns/chamada", "bytes alocados", "serializado");
+        for (int rows : new int[] { 1, 2, 32, Math.max(1, n / 4) }) {
+            for (boolean gridBlock : new boolean[] { false, true }) {
+                BenchmarkUtil.SerializationStats stats = BenchmarkUtil.runSerialization(n, rows, calls, gridBlock);
+                System.out.printf("%-52s %12.0f %16.0f %12d%n", stats.config, stats.nanosPerCall,
+                        stats.bytesAllocatedPerCall, stats.serializedBytes);
+            }
+        }
+    }
+
+    private static void runNuma(int n, double alpha, int steps, int repeats) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        BenchmarkUtil.GridAccessStats seq = BenchmarkUtil.runGridAccess(n, alpha, steps, repeats, threads, false);
+        BenchmarkUtil.GridAccessStats par = BenchmarkUtil.runGridAccess(n, alpha, steps, repeats, threads, true);
+        printHeader(n, steps, repeats);
+        for (BenchmarkUtil.GridAccessStats stats : new BenchmarkUtil.GridAccessStats[] { seq, par }) {
+            System.out.printf("%-52s %12.6f %12.6f%n", "inicialização " + stats.init.config, stats.init.mean,
+                    stats.init.sd);
+            System.out.printf("%-52s %12.6f %12.6f%n", "reset " + stats.reset.config, stats.reset.mean,
+                    stats.reset.sd);
+            System.out.printf("%-52s %12.6f %12.6f%n", "snapshot " + stats.snapshot.config, stats.snapshot.mean,
+                    stats.snapshot.sd);
+            printRow("passos " + stats.run.config, stats.run, n, steps);
+        }
+    }
+
+    private static void runVerify(int n, double alpha, int steps, List<String> urls) {
+        // Ao menos 4 threads, para que haja fronteiras entre partes mesmo com um core
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        TemporalBlocking blocking = TemporalBlocking.of(4, 256, 64);
+        SequentialHeatSimulator reference = new SequentialHeatSimulator(n, alpha);
+        reference.setBoundaryFlags(true, false, false, false);
+        for (int s = 0; s < steps; s++)
+            reference.step(); // Passo a passo, sem otimizações em lote
+        double[][] expected = reference.getTemperatureCopy();
+
+        System.out.printf("n=%d | passos=%d%n", n, steps);
+        System.out.printf("%-52s %8s%n", "Configuração", "exato");
+        boolean exact = true;
+        SequentialHeatSimulator seq = new SequentialHeatSimulator(n, alpha);
+        seq.setTemporalBlocking(blocking);
+        exact &= verify("sequencial " + blocking, seq, steps, expected);
+        for (ParallelHeatSimulator.Scheduling scheduling : ParallelHeatSimulator.Scheduling.values()) {
+            ParallelHeatSimulator par = new ParallelHeatSimulator(n, alpha, threads);
+            try {
+                par.setScheduling(scheduling);
+                exact &= verify("paralelo scheduling=" + scheduling, par, steps, expected);
+            } finally {
+                par.shutdown();
+            }
+        }
+        ParallelHeatSimulator temporal = new ParallelHeatSimulator(n, alpha, threads);
+        try {
+            temporal.setTemporalBlocking(blocking);
+            exact &= verify("paralelo " + blocking, temporal, steps, expected);
+        } finally {
+            temporal.shutdown();
+        }
+        ParallelHeatSimulator blocks = new ParallelHeatSimulator(n, alpha, threads);
+        try {
+            blocks.setDecomposition(ParallelHeatSimulator.Decomposition.BLOCKS_2D);
+            exact &= verify("paralelo blocos 2D " + blocks.getThreadLayout(), blocks, steps, expected);
+        } finally {
+            blocks.shutdown();
+        }
+        CacheObliviousHeatSimulator co = new CacheObliviousHeatSimulator(n, alpha, threads);
+        try {
+            exact &= verify("cache-oblivious threads=" + threads, co, steps, expected);
+        } finally {
+            co.shutdown();
+        }
+        for (DistributedHeatSimulator.Mode mode : DistributedHeatSimulator.Mode.values()) {
+            for (DistributedHeatSimulator.Compression c : DistributedHeatSimulator.Compression.values()) {
+                DistributedHeatSimulator dist = new DistributedHeatSimulator(n, alpha, urls);
+                try {
+                    dist.setMode(mode);
+                    dist.setCompression(c);
+                    exact &= verify("distribuído " + mode + " compressão=" + c, dist, steps, expected);
+                } finally {
+                    dist.shutdown();
+                }
+            }
+        }
+        if (!exact)
+            System.exit(1);
+    }
+
+    private static boolean verify(String label, AbstractHeatSimulator sim, int steps, double[][] expected) {
+        sim.setBoundaryFlags(true, false, false, false);
+        sim.runSteps(steps);
+        boolean exact = Arrays.deepEquals(expected, sim.getTemperatureCopy());
+        System.out.printf("%-52s %8s%n", label, exact ? "sim" : "NÃO");
+        return exact;
+    }
+
+    static void printHeader(int n, int steps, int repeats) {
+        System.out.printf("n=%d | passos=%d | repetições=%d%n", n, steps, repeats);
+        System.out.printf("%-52s %12s %12s %16s%n", "Configuração", "média (s)", "desvio (s)", "células/s");
+    }
+
+    static void printRow(String label, BenchmarkUtil.Stats stats, int n, int steps) {
+        System.out.printf("%-52s %12.6f %12.6f %16.3e%n", label, stats.mean, stats.sd,
+                BenchmarkUtil.cellsPerSecond(stats, n, steps));
+    }
+}
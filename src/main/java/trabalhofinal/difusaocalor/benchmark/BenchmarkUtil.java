@@ -1,17 +1,30 @@
 package trabalhofinal.difusaocalor.benchmark;
 
+import trabalhofinal.difusaocalor.rmi.CodecCounters;
+import trabalhofinal.difusaocalor.rmi.GridBlock;
 import trabalhofinal.difusaocalor.simulator.*;
+import trabalhofinal.difusaocalor.transport.WireCounters;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Utilitário para execução automatizada de benchmarks e coleta de estatísticas.
  * 
- * Permite comparar o desempenho das três versões do simulador:
+ * Permite comparar o desempenho das versões do simulador:
  * - Sequencial (single-thread)
  * - Paralela (multi-thread local)
+ * - Cache-oblivious (trapézios recursivos em ForkJoinPool)
  * - Distribuída (RMI workers)
  * 
  * Cada método executa múltiplas repetições da simulação com parâmetros fixos
@@ -31,12 +44,54 @@ public class BenchmarkUtil {
         public final double mean;
         public final double median;
         public final double sd;
+        public final String config; // Configuração medida (kernel, tiles...); vazio se padrão
 
         public Stats(List<Double> runs, double mean, double median, double sd) {
+            this(runs, mean, median, sd, "");
+        }
+
+        public Stats(List<Double> runs, double mean, double median, double sd, String config) {
             this.runs = Collections.unmodifiableList(new ArrayList<>(runs));
             this.mean = mean;
             this.median = median;
             this.sd = sd;
+            this.config = config;
+        }
+    }
+
+    /**
+     * Tempos das operações de acesso à malha inteira (inicialização, reset e
+     * snapshot) e dos passos executados em seguida.
+     */
+    public static class GridAccessStats {
+        public final Stats init; // Construção do simulador (alocação + preenchimento)
+        public final Stats reset;
+        public final Stats snapshot;
+        public final Stats run; // Passos após a inicialização
+
+        GridAccessStats(Stats init, Stats reset, Stats snapshot, Stats run) {
+            this.init = init;
+            this.reset = reset;
+            this.snapshot = snapshot;
+            this.run = run;
+        }
+    }
+
+    /**
+     * Custo da serialização Java de um argumento de linhas da malha, como nas
+     * chamadas RMI (ida e volta por ObjectOutputStream/ObjectInputStream).
+     */
+    public static class SerializationStats {
+        public final String config;
+        public final double nanosPerCall; // Escrita + leitura
+        public final double bytesAllocatedPerCall; // NaN se a JVM não mede alocação por thread
+        public final int serializedBytes;
+
+        SerializationStats(String config, double nanosPerCall, double bytesAllocatedPerCall, int serializedBytes) {
+            this.config = config;
+            this.nanosPerCall = nanosPerCall;
+            this.bytesAllocatedPerCall = bytesAllocatedPerCall;
+            this.serializedBytes = serializedBytes;
         }
     }
 
@@ -50,14 +105,39 @@ public class BenchmarkUtil {
      * @return estatísticas com tempos de cada repetição e métricas agregadas
      */
     public static Stats runSequential(int n, double alpha, int steps, int repeats) {
+        return runSequential(n, alpha, steps, repeats, StencilKernels.scalar());
+    }
+
+    /**
+     * Executa benchmark da versão sequencial com um kernel de estêncil
+     * específico (ex.: comparação escalar × SIMD).
+     * 
+     * @param kernel kernel usado no laço interno
+     * @see #runSequential(int, double, int, int)
+     */
+    public static Stats runSequential(int n, double alpha, int steps, int repeats, StencilKernel kernel) {
+        return runSequential(n, alpha, steps, repeats, kernel, TileSize.NONE);
+    }
+
+    /**
+     * Executa benchmark da versão sequencial com kernel e tiles de cache
+     * específicos. O kernel e o tile usados ficam registrados em Stats.config.
+     * 
+     * @param kernel   kernel usado no laço interno
+     * @param tileSize tiles da travessia (TileSize.NONE = linha a linha)
+     * @see #runSequential(int, double, int, int)
+     */
+    public static Stats runSequential(int n, double alpha, int steps, int repeats, StencilKernel kernel,
+            TileSize tileSize) {
         List<Double> times = new ArrayList<>();
         for (int r = 0; r < repeats; r++) {
-            SequentialHeatSimulator sim = new SequentialHeatSimulator(n, alpha);
+            SequentialHeatSimulator sim = new SequentialHeatSimulator(n, alpha, tileSize);
+            sim.setStencilKernel(kernel);
             sim.setBoundaryFlags(true, false, false, false); // Borda superior quente
             double s = sim.measureRunSeconds(steps, true); // Com warmup
             times.add(s);
         }
-        return buildStats(times);
+        return buildStats(times, describe(kernel, tileSize));
     }
 
     /**
@@ -72,10 +152,35 @@ public class BenchmarkUtil {
      * @return estatísticas de desempenho
      */
     public static Stats runParallel(int n, double alpha, int steps, int repeats, int threadCount) {
+        return runParallel(n, alpha, steps, repeats, threadCount, StencilKernels.scalar());
+    }
+
+    /**
+     * Executa benchmark da versão paralela com um kernel de estêncil específico.
+     * 
+     * @param kernel kernel usado no laço interno de cada thread
+     * @see #runParallel(int, double, int, int, int)
+     */
+    public static Stats runParallel(int n, double alpha, int steps, int repeats, int threadCount,
+            StencilKernel kernel) {
+        return runParallel(n, alpha, steps, repeats, threadCount, kernel, TileSize.NONE);
+    }
+
+    /**
+     * Executa benchmark da versão paralela com kernel e tiles de cache
+     * específicos (tiles aplicados dentro da faixa de cada thread).
+     * 
+     * @param kernel   kernel usado no laço interno de cada thread
+     * @param tileSize tiles da travessia (TileSize.NONE = linha a linha)
+     * @see #runParallel(int, double, int, int, int)
+     */
+    public static Stats runParallel(int n, double alpha, int steps, int repeats, int threadCount,
+            StencilKernel kernel, TileSize tileSize) {
         List<Double> times = new ArrayList<>();
         int workers = threadCount <= 0 ? Runtime.getRuntime().availableProcessors() : threadCount;
         for (int r = 0; r < repeats; r++) {
-            ParallelHeatSimulator sim = new ParallelHeatSimulator(n, alpha, workers);
+            ParallelHeatSimulator sim = new ParallelHeatSimulator(n, alpha, workers, tileSize);
+            sim.setStencilKernel(kernel);
             sim.setBoundaryFlags(true, false, false, false);
             double s;
             try {
@@ -85,14 +190,212 @@ public class BenchmarkUtil {
             }
             times.add(s);
         }
-        return buildStats(times);
+        return buildStats(times, "threads=" + workers + " " + describe(kernel, tileSize));
+    }
+
+    /**
+     * Executa benchmark da versão paralela aplicando uma configuração extra ao
+     * simulador antes de cada repetição (escalonamento, sincronização etc.).
+     * 
+     * @param configure ajustes aplicados ao simulador recém-criado
+     * @param config    descrição da configuração, registrada em Stats.config
+     * @see #runParallel(int, double, int, int, int)
+     */
+    public static Stats runParallelConfigured(int n, double alpha, int steps, int repeats, int threadCount,
+            Consumer<ParallelHeatSimulator> configure, String config) {
+        List<Double> times = new ArrayList<>();
+        int workers = threadCount <= 0 ? Runtime.getRuntime().availableProcessors() : threadCount;
+        for (int r = 0; r < repeats; r++) {
+            ParallelHeatSimulator sim = new ParallelHeatSimulator(n, alpha, workers);
+            configure.accept(sim);
+            sim.setBoundaryFlags(true, false, false, false);
+            try {
+                times.add(sim.measureRunSeconds(steps, true));
+            } finally {
+                sim.shutdown();
+            }
+        }
+        return buildStats(times, "threads=" + workers + " " + config);
+    }
+
+    /**
+     * Executa benchmark do simulador paralelo com a divisão dada (faixas de
+     * linhas ou blocos 2D), para comparar o conjunto de trabalho por thread.
+     * A configuração reportada inclui a grade de threads escolhida.
+     */
+    public static Stats runParallelDecomposition(int n, double alpha, int steps, int repeats, int threadCount,
+            ParallelHeatSimulator.Decomposition decomposition) {
+        List<Double> times = new ArrayList<>();
+        int workers = threadCount <= 0 ? Runtime.getRuntime().availableProcessors() : threadCount;
+        String layout = "";
+        for (int r = 0; r < repeats; r++) {
+            ParallelHeatSimulator sim = new ParallelHeatSimulator(n, alpha, workers);
+            sim.setDecomposition(decomposition);
+            sim.setBoundaryFlags(true, false, false, false);
+            layout = sim.getThreadLayout();
+            try {
+                times.add(sim.measureRunSeconds(steps, true));
+            } finally {
+                sim.shutdown();
+            }
+        }
+        return buildStats(times, "threads=" + workers + " " + decomposition + " " + layout);
+    }
+
+    /**
+     * Compara inicialização, reset e snapshot feitos pela thread chamadora com
+     * os feitos pelas threads do pool na partição de linhas do cálculo
+     * (first-touch alinhado à faixa de cada thread), e mede os passos
+     * executados em seguida sobre a malha assim inicializada.
+     * 
+     * @param parallel valor de parallelGridAccess do simulador
+     */
+    public static GridAccessStats runGridAccess(int n, double alpha, int steps, int repeats, int threadCount,
+            boolean parallel) {
+        List<Double> init = new ArrayList<>();
+        List<Double> reset = new ArrayList<>();
+        List<Double> snapshot = new ArrayList<>();
+        List<Double> run = new ArrayList<>();
+        int workers = threadCount <= 0 ? Runtime.getRuntime().availableProcessors() : threadCount;
+        for (int r = 0; r < repeats; r++) {
+            long t0 = System.nanoTime();
+            ParallelHeatSimulator sim = new ParallelHeatSimulator(n, alpha, workers, TileSize.NONE, parallel);
+            init.add((System.nanoTime() - t0) / 1e9);
+            try {
+                sim.setBoundaryFlags(true, false, false, false);
+                run.add(sim.measureRunSeconds(steps, false));
+                t0 = System.nanoTime();
+                sim.resetToInitialState();
+                reset.add((System.nanoTime() - t0) / 1e9);
+                t0 = System.nanoTime();
+                sim.getTemperatureCopy();
+                snapshot.add((System.nanoTime() - t0) / 1e9);
+            } finally {
+                sim.shutdown();
+            }
+        }
+        String config = "threads=" + workers + (parallel ? " init paralelo" : " init sequencial");
+        return new GridAccessStats(buildStats(init, config), buildStats(reset, config),
+                buildStats(snapshot, config), buildStats(run, config));
+    }
+
+    /**
+     * Mede a duração de cada passo de cada thread (incluindo esperas de
+     * sincronização) numa execução do simulador paralelo configurado.
+     * Só produz amostras nos escalonamentos persistentes (PERSISTENT_BARRIER e
+     * NEIGHBOR_SYNC).
+     * 
+     * @return durações em nanossegundos, ordenadas
+     */
+    public static long[] measureStepDurations(int n, double alpha, int steps, int threadCount,
+            Consumer<ParallelHeatSimulator> configure) {
+        int workers = threadCount <= 0 ? Runtime.getRuntime().availableProcessors() : threadCount;
+        ParallelHeatSimulator sim = new ParallelHeatSimulator(n, alpha, workers);
+        configure.accept(sim);
+        sim.setRecordStepTimes(true);
+        sim.setBoundaryFlags(true, false, false, false);
+        try {
+            sim.runSteps(steps);
+        } finally {
+            sim.shutdown();
+        }
+        long[] durations = sim.getStepDurationsNanos();
+        Arrays.sort(durations);
+        return durations;
+    }
+
+    /**
+     * Percentil (0 a 100) de amostras já ordenadas, pelo método nearest-rank.
+     */
+    public static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0)
+            return 0;
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    /**
+     * Executa benchmark da versão cache-oblivious (trapézios de Frigo–Strumpen
+     * em ForkJoinPool), quarto modo comparável a runSequential e runParallel.
+     * 
+     * @param threadCount paralelismo do ForkJoinPool (se ≤ 0, usa número de
+     *                    cores disponíveis)
+     * @return estatísticas de desempenho
+     */
+    public static Stats runCacheOblivious(int n, double alpha, int steps, int repeats, int threadCount) {
+        List<Double> times = new ArrayList<>();
+        int workers = threadCount <= 0 ? Runtime.getRuntime().availableProcessors() : threadCount;
+        for (int r = 0; r < repeats; r++) {
+            CacheObliviousHeatSimulator sim = new CacheObliviousHeatSimulator(n, alpha, workers);
+            sim.setBoundaryFlags(true, false, false, false);
+            double s;
+            try {
+                s = sim.measureRunSeconds(steps, true);
+            } finally {
+                sim.shutdown(); // Libera o ForkJoinPool
+            }
+            times.add(s);
+        }
+        return buildStats(times, "threads=" + workers);
+    }
+
+    /**
+     * Executa benchmark da versão sequencial com bloqueio temporal em
+     * runSteps() (vários passos por tile enquanto ele está em cache).
+     * 
+     * @param blocking configuração do bloqueio temporal
+     * @see #runSequential(int, double, int, int)
+     */
+    public static Stats runSequentialTemporal(int n, double alpha, int steps, int repeats,
+            TemporalBlocking blocking) {
+        List<Double> times = new ArrayList<>();
+        for (int r = 0; r < repeats; r++) {
+            SequentialHeatSimulator sim = new SequentialHeatSimulator(n, alpha);
+            sim.setTemporalBlocking(blocking);
+            sim.setBoundaryFlags(true, false, false, false);
+            times.add(sim.measureRunSeconds(steps, true));
+        }
+        return buildStats(times, "temporal=" + blocking);
+    }
+
+    /**
+     * Executa benchmark da versão paralela com bloqueio temporal em runSteps().
+     * 
+     * @param blocking configuração do bloqueio temporal
+     * @see #runParallel(int, double, int, int, int)
+     */
+    public static Stats runParallelTemporal(int n, double alpha, int steps, int repeats, int threadCount,
+            TemporalBlocking blocking) {
+        List<Double> times = new ArrayList<>();
+        int workers = threadCount <= 0 ? Runtime.getRuntime().availableProcessors() : threadCount;
+        for (int r = 0; r < repeats; r++) {
+            ParallelHeatSimulator sim = new ParallelHeatSimulator(n, alpha, workers);
+            sim.setTemporalBlocking(blocking);
+            sim.setBoundaryFlags(true, false, false, false);
+            try {
+                times.add(sim.measureRunSeconds(steps, true));
+            } finally {
+                sim.shutdown();
+            }
+        }
+        return buildStats(times, "threads=" + workers + " temporal=" + blocking);
     }
 
     /**
      * Executa benchmark da versão distribuída com workers RMI.
      * 
      * Reutiliza o mesmo simulador para todas as repetições (evita overhead
-     * de reconexão RMI). Reseta o estado inicial entre repetições.
+     * de reconexão RMI). Reseta o estado inicial entre repetições e, ao fim
+     * de cada uma, pede um snapshot, como faria a interface.
+     * 
+     * Reporta, na configuração, o modo de troca, os bytes de temperaturas
+     * trafegados por passo (média das repetições, sem contar a carga inicial
+     * das faixas nem o snapshot final), os bytes efetivamente trafegados nas
+     * conexões (com cabeçalhos e serialização; ver WireCounters), a
+     * profundidade de lote k usada ao fim, as linhas atribuídas a cada worker
+     * (na ordem das URLs), se a compressão estava ligada, a razão de
+     * compressão e o tempo de codec por passo no coordenador (CodecCounters,
+     * durante os passos medidos).
      * 
      * @param n          dimensão da malha
      * @param alpha      coeficiente de difusividade
@@ -100,32 +403,225 @@ public class BenchmarkUtil {
      * @param repeats    número de repetições
      * @param workerUrls lista de URLs RMI dos workers (ex:
      *                   rmi://localhost:1099/Worker1)
+     * @param configure  ajustes aplicados ao simulador recém-criado (modo,
+     *                   profundidade, compressão...)
+     * @param config     descrição da configuração, registrada em Stats.config
      * @return estatísticas de desempenho (vazio se nenhum worker disponível)
      */
-    public static Stats runDistributed(int n, double alpha, int steps, int repeats, List<String> workerUrls) {
+    public static Stats runDistributed(int n, double alpha, int steps, int repeats, List<String> workerUrls,
+            Consumer<DistributedHeatSimulator> configure, String config) {
         List<Double> times = new ArrayList<>();
         if (workerUrls == null || workerUrls.isEmpty())
             return buildStats(times);
 
         DistributedHeatSimulator sim = new DistributedHeatSimulator(n, alpha, workerUrls);
+        configure.accept(sim);
         sim.setBoundaryFlags(true, false, false, false);
-
+        DistributedHeatSimulator.Mode mode = sim.getMode();
+        DistributedHeatSimulator.Compression compression = sim.getCompression();
+        boolean fixedDepth = sim.isGhostDepthFixed();
+        long bytes = 0;
+        long wire = 0;
+        long codecRaw = 0;
+        long codecEncoded = 0;
+        long codecNanos = 0;
+        boolean compressing = false;
+        int depth = 0;
+        StringBuilder rows = new StringBuilder();
         try {
             for (int r = 0; r < repeats; r++) {
-                // Reinicia a matriz para cada repetição
                 sim.resetToInitialState();
-                double s = sim.measureRunSeconds(steps, true);
-                times.add(s);
+                // Aquecimento e carga das faixas fora da medição de bytes
+                sim.runSteps(Math.min(10, steps));
+                sim.resetToInitialState();
+                sim.step();
+                sim.resetPayloadBytes();
+                long wire0 = WireCounters.total();
+                long raw0 = CodecCounters.rawBytes();
+                long encoded0 = CodecCounters.encodedBytes();
+                long codec0 = CodecCounters.nanos();
+                long t0 = System.nanoTime();
+                sim.runSteps(steps);
+                times.add((System.nanoTime() - t0) / 1e9);
+                wire += WireCounters.total() - wire0;
+                codecRaw += CodecCounters.rawBytes() - raw0;
+                codecEncoded += CodecCounters.encodedBytes() - encoded0;
+                codecNanos += CodecCounters.nanos() - codec0;
+                bytes += sim.getPayloadBytes();
+                depth = sim.getGhostDepth();
+                compressing = sim.isCompressing();
+                sim.getTemperatureCopy();
             }
+            for (DistributedHeatSimulator.WorkerInfo w : sim.getWorkerAssignments())
+                rows.append(rows.length() == 0 ? "" : "/").append(Math.max(0, w.rows()));
         } finally {
             try {
                 sim.shutdown();
             } catch (Exception ignore) {
             }
         }
+        long perStep = steps > 0 && repeats > 0 ? bytes / ((long) steps * repeats) : 0;
+        long wirePerStep = steps > 0 && repeats > 0 ? wire / ((long) steps * repeats) : 0;
+        long codecPerStep = steps > 0 && repeats > 0 ? codecNanos / ((long) steps * repeats) : 0;
+        String codec = codecEncoded > 0
+                ? String.format(" razão=%.2f codec/passo=%dns", (double) codecRaw / codecEncoded, codecPerStep)
+                : "";
+        return buildStats(times, (config.isEmpty() ? "" : config + " ") + mode
+                + (fixedDepth ? " k=" : " k(auto)=") + depth + " linhas=" + rows + " bytes/passo=" + perStep
+                + " rede/passo=" + wirePerStep + " compressão=" + compression
+                + (compression == DistributedHeatSimulator.Compression.AUTO ? (compressing ? "(on)" : "(off)") : "")
+                + codec);
+    }
+
+    /**
+     * Executa o estêncil sequencial sobre o layout antigo double[n][n]
+     * (linhas alocadas separadamente), como referência para medir o ganho do
+     * layout contíguo de HeatGrid usado pelos simuladores.
+     * 
+     * Reproduz o mesmo fluxo de step(): cópia T→newT, cálculo do interior,
+     * borda superior quente e cópia newT→T.
+     * 
+     * @param n       dimensão da malha
+     * @param alpha   coeficiente de difusividade
+     * @param steps   passos por repetição
+     * @param repeats número de repetições
+     * @return estatísticas de desempenho do layout jagged
+     */
+    public static Stats runJaggedLayoutReference(int n, double alpha, int steps, int repeats) {
+        List<Double> times = new ArrayList<>();
+        double coef = alpha * 0.1; // dx = dy = 1.0, dt = 0.1 (padrão dos simuladores)
+        for (int r = 0; r < repeats; r++) {
+            double[][] T = new double[n][n];
+            double[][] newT = new double[n][n];
+            for (double[] row : T)
+                Arrays.fill(row, 20.0);
+            Arrays.fill(T[0], 100.0);
+
+            // Warmup equivalente ao de measureRunSeconds
+            jaggedSteps(T, newT, n, coef, Math.min(10, steps));
+            long t0 = System.nanoTime();
+            jaggedSteps(T, newT, n, coef, steps);
+            long t1 = System.nanoTime();
+            times.add((t1 - t0) / 1_000_000_000.0);
+        }
         return buildStats(times);
     }
 
+    private static void jaggedSteps(double[][] T, double[][] newT, int n, double coef, int steps) {
+        for (int s = 0; s < steps; s++) {
+            for (int i = 0; i < n; i++)
+                System.arraycopy(T[i], 0, newT[i], 0, n);
+            for (int i = 1; i < n - 1; i++) {
+                for (int j = 1; j < n - 1; j++) {
+                    double t = T[i][j];
+                    double tx = T[i + 1][j] - 2 * t + T[i - 1][j];
+                    double ty = T[i][j + 1] - 2 * t + T[i][j - 1];
+                    newT[i][j] = t + coef * tx + coef * ty;
+                }
+            }
+            Arrays.fill(newT[0], 100.0);
+            for (int i = 0; i < n; i++)
+                System.arraycopy(newT[i], 0, T[i], 0, n);
+        }
+    }
+
+    /**
+     * Mede uma chamada com 'rows' linhas de largura n como double[][]
+     * (métodos antigos de Worker) ou como GridBlock: extração das linhas da
+     * malha contígua, serialização Java, desserialização e conversão para o
+     * vetor contíguo usado pelo estêncil (flatten no caso de double[][]).
+     * Reporta tempo e bytes alocados por chamada e o tamanho serializado;
+     * faz 'calls' chamadas de aquecimento antes de medir.
+     * 
+     * @param gridBlock true para GridBlock, false para double[][]
+     */
+    public static SerializationStats runSerialization(int n, int rows, int calls, boolean gridBlock) {
+        double[] grid = new double[(rows + 2) * n];
+        for (int i = 0; i < grid.length; i++)
+            grid[i] = Math.sin(i);
+        SerializationBuffer bytes = new SerializationBuffer();
+        int size = serializeCall(grid, n, rows, gridBlock, bytes);
+        for (int c = 0; c < calls; c++)
+            serializeCall(grid, n, rows, gridBlock, bytes);
+
+        com.sun.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean t
+                ? t
+                : null;
+        long allocated0 = threads != null ? threads.getCurrentThreadAllocatedBytes() : 0;
+        long t0 = System.nanoTime();
+        for (int c = 0; c < calls; c++)
+            serializeCall(grid, n, rows, gridBlock, bytes);
+        long elapsed = System.nanoTime() - t0;
+        double allocated = threads != null
+                ? (double) (threads.getCurrentThreadAllocatedBytes() - allocated0) / calls
+                : Double.NaN;
+        String config = (gridBlock ? "GridBlock" : "double[][]") + " linhas=" + rows;
+        return new SerializationStats(config, (double) elapsed / calls, allocated, size);
+    }
+
+    /**
+     * Uma chamada de runSerialization com as linhas 1..rows de grid; devolve
+     * o tamanho serializado.
+     */
+    private static int serializeCall(double[] grid, int n, int rows, boolean gridBlock, SerializationBuffer bytes) {
+        Object payload;
+        if (gridBlock) {
+            payload = GridBlock.copyOf(grid, n, 1, rows);
+        } else {
+            double[][] matrix = new double[rows][n];
+            for (int i = 0; i < rows; i++)
+                System.arraycopy(grid, (1 + i) * n, matrix[i], 0, n);
+            payload = matrix;
+        }
+        try {
+            bytes.reset();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(payload);
+            }
+            Object received;
+            try (ObjectInputStream in = new ObjectInputStream(bytes.toInputStream())) {
+                received = in.readObject();
+            }
+            if (!gridBlock) {
+                // Como WorkerImpl.flatten antes de aplicar o estêncil
+                double[][] matrix = (double[][]) received;
+                double[] flat = new double[rows * n];
+                for (int i = 0; i < rows; i++)
+                    System.arraycopy(matrix[i], 0, flat, i * n, n);
+            }
+            return bytes.size();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } catch (ClassNotFoundException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Buffer reaproveitado entre chamadas, lido sem a cópia de toByteArray,
+     * para que a medição de alocação conte só a serialização.
+     */
+    private static final class SerializationBuffer extends ByteArrayOutputStream {
+        ByteArrayInputStream toInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+    }
+
+    /**
+     * Converte um tempo médio em vazão de células atualizadas por segundo.
+     * 
+     * @param stats resultado de um benchmark
+     * @param n     dimensão da malha usada
+     * @param steps passos por repetição
+     * @return células interiores atualizadas por segundo (NaN se sem dados)
+     */
+    public static double cellsPerSecond(Stats stats, int n, int steps) {
+        if (stats == null || Double.isNaN(stats.mean) || stats.mean <= 0)
+            return Double.NaN;
+        double interior = Math.max(0, n - 2);
+        return interior * interior * steps / stats.mean;
+    }
+
     /**
      * Calcula estatísticas descritivas a partir de uma lista de tempos.
      * 
@@ -138,8 +634,12 @@ public class BenchmarkUtil {
      * @return objeto Stats com métricas (NaN se lista vazia)
      */
     private static Stats buildStats(List<Double> times) {
+        return buildStats(times, "");
+    }
+
+    private static Stats buildStats(List<Double> times, String config) {
         if (times.isEmpty())
-            return new Stats(times, Double.NaN, Double.NaN, Double.NaN);
+            return new Stats(times, Double.NaN, Double.NaN, Double.NaN, config);
 
         double sum = 0.0;
         for (double t : times)
@@ -152,6 +652,10 @@ public class BenchmarkUtil {
         for (double t : times)
             sd += (t - mean) * (t - mean);
         sd = Math.sqrt(sd / times.size());
-        return new Stats(times, mean, median, sd);
+        return new Stats(times, mean, median, sd, config);
+    }
+
+    private static String describe(StencilKernel kernel, TileSize tileSize) {
+        return "kernel=" + kernel.name() + " tile=" + tileSize;
     }
 }
@@ -0,0 +1,58 @@
+package trabalhofinal.difusaocalor.rmi;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Blocos comprimidos com GorillaCodec nesta JVM, pelos dois transportes
+ * (serialização de GridBlock no RMI e WireBuffer no binário): bytes antes e
+ * depois da compressão e tempo gasto codificando e decodificando.
+ */
+public final class CodecCounters {
+
+    private static final AtomicLong rawBytes = new AtomicLong();
+    private static final AtomicLong encodedBytes = new AtomicLong();
+    private static final AtomicLong nanos = new AtomicLong();
+
+    private CodecCounters() {
+    }
+
+    /**
+     * Registra um bloco codificado ou decodificado.
+     *
+     * @param raw     bytes dos valores originais
+     * @param encoded bytes dos valores comprimidos
+     * @param elapsed tempo do codec em nanossegundos
+     */
+    public static void record(long raw, long encoded, long elapsed) {
+        rawBytes.addAndGet(raw);
+        encodedBytes.addAndGet(encoded);
+        nanos.addAndGet(elapsed);
+    }
+
+    public static long rawBytes() {
+        return rawBytes.get();
+    }
+
+    public static long encodedBytes() {
+        return encodedBytes.get();
+    }
+
+    public static long nanos() {
+        return nanos.get();
+    }
+
+    /**
+     * Razão de compressão (bytes originais / comprimidos), ou NaN se nada foi
+     * comprimido.
+     */
+    public static double ratio() {
+        long encoded = encodedBytes.get();
+        return encoded > 0 ? (double) rawBytes.get() / encoded : Double.NaN;
+    }
+
+    public static void reset() {
+        rawBytes.set(0);
+        encodedBytes.set(0);
+        nanos.set(0);
+    }
+}
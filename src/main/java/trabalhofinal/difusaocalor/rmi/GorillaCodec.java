@@ -0,0 +1,153 @@
+package trabalhofinal.difusaocalor.rmi;
+
+import java.util.Arrays;
+
+/**
+ * Compressão sem perdas de sequências de double no estilo do Gorilla
+ * (Pelkonen et al., VLDB 2015): cada valor é gravado como o XOR de seus bits
+ * com os do valor anterior.
+ *
+ * Valores vizinhos da malha costumam ser iguais (região ainda na temperatura
+ * inicial) ou próximos (mesmo sinal e expoente), de modo que o XOR tem muitos
+ * bits zero nas pontas e só a parte central precisa ser gravada:
+ * - primeiro valor: 64 bits
+ * - XOR zero: bit '0'
+ * - XOR dentro da janela (zeros à esquerda e à direita) do último valor
+ * gravado com janela própria: '10' e os bits da janela
+ * - caso contrário: '11', zeros à esquerda (5 bits, até 31), tamanho da
+ * janela menos 1 (6 bits) e os bits da janela
+ *
+ * Os bits são acumulados em um long[], do bit mais significativo para o
+ * menos significativo de cada palavra. O número de valores não é gravado:
+ * quem decodifica precisa conhecê-lo (ver GridBlock).
+ */
+public final class GorillaCodec {
+
+    private GorillaCodec() {
+    }
+
+    /**
+     * Codifica os valores.
+     *
+     * @return palavras com os bits gerados (a última pode estar incompleta)
+     */
+    public static long[] encode(double[] values) {
+        BitWriter out = new BitWriter(values.length);
+        if (values.length == 0)
+            return out.toArray();
+        long prev = Double.doubleToRawLongBits(values[0]);
+        out.write(prev, 64);
+        int prevLead = -1; // Janela atual (-1 = nenhuma ainda)
+        int prevTrail = 0;
+        for (int i = 1; i < values.length; i++) {
+            long bits = Double.doubleToRawLongBits(values[i]);
+            long xor = bits ^ prev;
+            prev = bits;
+            if (xor == 0) {
+                out.write(0, 1);
+                continue;
+            }
+            int lead = Math.min(31, Long.numberOfLeadingZeros(xor));
+            int trail = Long.numberOfTrailingZeros(xor);
+            if (prevLead >= 0 && lead >= prevLead && trail >= prevTrail) {
+                out.write(0b10, 2);
+                out.write(xor >>> prevTrail, 64 - prevLead - prevTrail);
+            } else {
+                int size = 64 - lead - trail;
+                // Cabeçalho '11' + 5 bits de zeros à esquerda + 6 bits de tamanho
+                out.write((0b11L << 11) | ((long) lead << 6) | (size - 1), 13);
+                out.write(xor >>> trail, size);
+                prevLead = lead;
+                prevTrail = trail;
+            }
+        }
+        return out.toArray();
+    }
+
+    /**
+     * Decodifica 'count' valores gravados por encode.
+     *
+     * @throws IllegalArgumentException se as palavras terminarem antes
+     */
+    public static double[] decode(long[] words, int count) {
+        double[] values = new double[count];
+        if (count == 0)
+            return values;
+        BitReader in = new BitReader(words);
+        long prev = in.read(64);
+        values[0] = Double.longBitsToDouble(prev);
+        int lead = 0;
+        int trail = 0;
+        for (int i = 1; i < count; i++) {
+            if (in.read(1) != 0) {
+                if (in.read(1) != 0) {
+                    long header = in.read(11);
+                    lead = (int) (header >>> 6);
+                    trail = 64 - lead - ((int) (header & 0x3F) + 1);
+                }
+                prev ^= in.read(64 - lead - trail) << trail;
+            }
+            values[i] = Double.longBitsToDouble(prev);
+        }
+        return values;
+    }
+
+    /**
+     * Escrita de campos de 1 a 64 bits em um long[] que cresce.
+     */
+    private static final class BitWriter {
+        private long[] words;
+        private long position; // Bits escritos
+
+        BitWriter(int values) {
+            // Estimativa inicial: metade do tamanho original
+            words = new long[Math.max(1, values / 2 + 1)];
+        }
+
+        void write(long value, int bits) {
+            if (bits < 64)
+                value &= (1L << bits) - 1;
+            int index = (int) (position >>> 6);
+            int free = 64 - (int) (position & 63);
+            if (index + 1 >= words.length)
+                words = Arrays.copyOf(words, Math.max(index + 2, 2 * words.length));
+            if (bits <= free) {
+                words[index] |= value << (free - bits);
+            } else {
+                int rest = bits - free;
+                words[index] |= value >>> rest;
+                words[index + 1] |= value << (64 - rest);
+            }
+            position += bits;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(words, (int) ((position + 63) >>> 6));
+        }
+    }
+
+    /**
+     * Leitura dos campos gravados por BitWriter.
+     */
+    private static final class BitReader {
+        private final long[] words;
+        private long position;
+
+        BitReader(long[] words) {
+            this.words = words;
+        }
+
+        long read(int bits) {
+            int index = (int) (position >>> 6);
+            int offset = (int) (position & 63);
+            if (position + bits > 64L * words.length)
+                throw new IllegalArgumentException("Dados comprimidos truncados");
+            long value = (words[index] << offset) >>> (64 - bits);
+            int avail = 64 - offset;
+            if (bits > avail)
+                value |= words[index + 1] >>> (64 - (bits - avail));
+            position += bits;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package trabalhofinal.difusaocalor.rmi;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Bloco de linhas consecutivas da malha em um único vetor row-major, usado
+ * nos métodos de Worker que trocam linhas com o coordenador.
+ *
+ * Em relação a double[][], a serialização (Externalizable, escrita à mão)
+ * grava só a linha inicial, o número de linhas, a largura e os valores em
+ * bloco: sem descritor de classe e comprimento por linha, e sem alocar um
+ * vetor por linha em cada ponta. O vetor recebido pode ser usado diretamente
+ * como buffer do estêncil.
+ *
+ * A linha global i fica em data()[offset(i) .. offset(i) + width - 1].
+ *
+ * Com withCompression(true), os valores são gravados comprimidos por
+ * GorillaCodec (sem perdas). Um bloco recebido comprimido continua marcado,
+ * para que quem responde possa usar a mesma codificação.
+ */
+public final class GridBlock implements Externalizable {
+
+    private static final long serialVersionUID = 2L;
+
+    private int firstRow; // Linha global da primeira linha do bloco
+    private int rows; // Número de linhas
+    private int width; // Largura de cada linha
+    private double[] data; // rows × width valores em ordem row-major
+    private boolean compressed; // Valores gravados com GorillaCodec
+
+    /**
+     * Construtor público exigido por Externalizable.
+     */
+    public GridBlock() {
+        this.data = new double[0];
+    }
+
+    /**
+     * Cria o bloco sobre o vetor dado (sem copiar).
+     *
+     * @param data rows × width valores, linha a linha
+     */
+    public GridBlock(int firstRow, int rows, int width, double[] data) {
+        if (rows < 0 || width < 0 || data == null || data.length != rows * width)
+            throw new IllegalArgumentException("Bloco inválido: " + rows + "×" + width);
+        this.firstRow = firstRow;
+        this.rows = rows;
+        this.width = width;
+        this.data = data;
+    }
+
+    /**
+     * Copia as linhas [first, last] de uma malha row-major de largura width
+     * cuja linha 0 começa na posição 0 de src (vazio se first > last).
+     */
+    public static GridBlock copyOf(double[] src, int width, int first, int last) {
+        int rows = Math.max(0, last - first + 1);
+        double[] data = new double[rows * width];
+        System.arraycopy(src, first * width, data, 0, data.length);
+        return new GridBlock(first, rows, width, data);
+    }
+
+    /**
+     * Converte linhas em matriz para bloco (métodos antigos de Worker).
+     */
+    public static GridBlock of(double[][] matrix, int firstRow) {
+        int rows = matrix.length;
+        int width = rows > 0 ? matrix[0].length : 0;
+        double[] data = new double[rows * width];
+        for (int i = 0; i < rows; i++)
+            System.arraycopy(matrix[i], 0, data, i * width, width);
+        return new GridBlock(firstRow, rows, width, data);
+    }
+
+    /**
+     * Copia o bloco para uma matriz de linhas (métodos antigos de Worker).
+     */
+    public double[][] toRows() {
+        double[][] matrix = new double[rows][width];
+        for (int i = 0; i < rows; i++)
+            System.arraycopy(data, i * width, matrix[i], 0, width);
+        return matrix;
+    }
+
+    /**
+     * Copia as linhas do bloco para as mesmas linhas de uma malha row-major
+     * de mesma largura.
+     */
+    public void copyTo(double[] grid) {
+        System.arraycopy(data, 0, grid, firstRow * width, data.length);
+    }
+
+    /**
+     * Marca o bloco para ser gravado comprimido (ou não).
+     *
+     * @return este bloco
+     */
+    public GridBlock withCompression(boolean compressed) {
+        this.compressed = compressed;
+        return this;
+    }
+
+    /**
+     * Se o bloco é gravado comprimido (ou foi recebido comprimido).
+     */
+    public boolean compressed() {
+        return compressed;
+    }
+
+    public int firstRow() {
+        return firstRow;
+    }
+
+    public int lastRow() {
+        return firstRow + rows - 1;
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    /**
+     * Vetor de apoio (não copiado).
+     */
+    public double[] data() {
+        return data;
+    }
+
+    /**
+     * Posição da linha global i em data().
+     */
+    public int offset(int i) {
+        return (i - firstRow) * width;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeInt(firstRow);
+        out.writeInt(rows);
+        out.writeInt(width);
+        out.writeBoolean(compressed);
+        // Um único vetor primitivo: o stream converte os valores em bloco
+        out.writeObject(compressed ? encode(data) : data);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        firstRow = in.readInt();
+        rows = in.readInt();
+        width = in.readInt();
+        compressed = in.readBoolean();
+        Object values = in.readObject();
+        if (rows < 0 || width < 0 || (long) rows * width > Integer.MAX_VALUE)
+            throw new IOException("Bloco inválido: " + rows + "×" + width);
+        if (compressed && values instanceof long[] words) {
+            try {
+                values = decode(words, rows * width);
+            } catch (IllegalArgumentException ex) {
+                throw new IOException("Bloco comprimido inválido: " + rows + "×" + width, ex);
+            }
+        }
+        if (!(values instanceof double[]) || ((double[]) values).length != rows * width)
+            throw new IOException("Bloco inválido: " + rows + "×" + width);
+        data = (double[]) values;
+    }
+
+    /**
+     * Comprime os valores, registrando em CodecCounters.
+     */
+    public static long[] encode(double[] values) {
+        long t0 = System.nanoTime();
+        long[] words = GorillaCodec.encode(values);
+        CodecCounters.record(8L * values.length, 8L * words.length, System.nanoTime() - t0);
+        return words;
+    }
+
+    /**
+     * Descomprime 'count' valores, registrando em CodecCounters.
+     *
+     * @throws IllegalArgumentException se os dados estiverem truncados
+     */
+    public static double[] decode(long[] words, int count) {
+        long t0 = System.nanoTime();
+        double[] values = GorillaCodec.decode(words, count);
+        CodecCounters.record(8L * count, 8L * words.length, System.nanoTime() - t0);
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return "GridBlock[linhas " + firstRow + ".." + lastRow() + ", largura " + width
+                + (compressed ? ", comprimido" : "") + "]";
+    }
+}
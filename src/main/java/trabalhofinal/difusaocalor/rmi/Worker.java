@@ -67,6 +67,10 @@ public interface Worker extends Remote {
          * O worker executa internamente um loop com double buffering local,
          * retornando apenas o estado final após todas as iterações.
          * 
+         * As vizinhanças ficam congeladas durante o lote, então o resultado é
+         * aproximado para numSteps > 1; computeGhostZoneSteps dá o resultado
+         * exato.
+         * 
          * @param initialBlock bloco inicial com linhas a calcular mais vizinhanças
          * @param startRow     índice inicial da faixa de linhas
          * @param endRow       índice final da faixa de linhas
@@ -110,4 +114,199 @@ public interface Worker extends Remote {
          */
         void updateBoundaryRows(int startRow, int endRow, double[] rowBeforeStart, double[] rowAfterEnd)
                         throws RemoteException;
+
+        /**
+         * Seleciona o kernel do estêncil usado nos cálculos deste worker.
+         * 
+         * Se o kernel pedido não estiver disponível na JVM do worker (ex.: Vector
+         * API sem --add-modules jdk.incubator.vector), o worker usa o kernel
+         * escalar.
+         * 
+         * @param kernelName nome do kernel ("scalar" ou "vector")
+         * @return nome do kernel efetivamente selecionado
+         * @throws RemoteException se houver falha na comunicação RMI
+         */
+        String selectKernel(String kernelName) throws RemoteException;
+
+        /**
+         * Número de threads com que este worker calcula cada faixa (as linhas
+         * de cada passo são divididas entre elas). O coordenador usa o valor
+         * para dividir as linhas antes de haver medidas de vazão.
+         * 
+         * @return threads de cálculo (≥ 1)
+         * @throws RemoteException se houver falha na comunicação RMI
+         */
+        int getThreadCount() throws RemoteException;
+
+        /**
+         * Tempo acumulado em que este worker teve algum cálculo em curso, desde
+         * que foi criado (intervalos com chamadas simultâneas contam uma vez).
+         * A diferença entre duas leituras, dividida pelo tempo decorrido, dá a
+         * utilização do worker no período.
+         * 
+         * @return tempo ocupado em nanossegundos
+         * @throws RemoteException se houver falha na comunicação RMI
+         */
+        long getBusyNanos() throws RemoteException;
+
+        // Variantes com GridBlock das operações acima (as com double[][] são
+        // mantidas por compatibilidade): linhas em um único vetor e
+        // serialização em bloco
+
+        /**
+         * Como initializeMatrix(double[][], int), com a malha inteira em um
+         * bloco (n = largura do bloco).
+         * 
+         * @param T bloco com as linhas 0 a n-1
+         * @throws RemoteException se houver falha na comunicação RMI
+         */
+        void initializeMatrix(GridBlock T) throws RemoteException;
+
+        /**
+         * Como computeBlock(double[][], ...): o bloco contém as linhas
+         * startRow-1 a endRow+1.
+         * 
+         * @return linhas [startRow, endRow] após um passo
+         * @throws RemoteException se houver falha na comunicação RMI
+         */
+        GridBlock computeBlock(GridBlock block, int startRow, int endRow, double alpha, double dx, double dy,
+                        double dt) throws RemoteException;
+
+        /**
+         * Processa vários passos em lote com zona fantasma (ghost zone) de
+         * profundidade numSteps, com resultado idêntico a numSteps passos
+         * simples (ao contrário de computeMultipleSteps, que congela as
+         * vizinhanças).
+         * 
+         * O bloco traz as linhas [block.firstRow(), block.lastRow()], que
+         * devem cobrir [startRow - numSteps, endRow + numSteps] (limitadas à
+         * malha). As linhas vizinhas são recalculadas localmente com região
+         * encolhendo uma linha por passo (ver GhostZone).
+         * 
+         * @param block    linhas da malha com a zona fantasma
+         * @param startRow primeira linha da faixa a devolver
+         * @param endRow   última linha da faixa a devolver
+         * @param numSteps número de passos (e profundidade da zona fantasma)
+         * @return linhas [startRow, endRow] após numSteps passos
+         * @throws RemoteException se houver falha na comunicação RMI
+         */
+        GridBlock computeGhostZoneSteps(GridBlock block, int startRow, int endRow, double alpha, double dx,
+                        double dy, double dt, int numSteps) throws RemoteException;
+
+        /**
+         * Carrega uma faixa residente no worker, que passa a mantê-la entre
+         * passos (modo residente). Substitui a faixa anterior com a mesma linha
+         * inicial, se houver.
+         * 
+         * O bloco inclui, além da faixa, linhas fantasma em cada lado; sua
+         * quantidade limita a profundidade aceita por stepStrip.
+         * 
+         * @param startRow primeira linha da faixa (≥ 1)
+         * @param endRow   última linha da faixa (≤ n-2)
+         * @param rows     faixa e linhas fantasma, a partir de rows.firstRow()
+         * @throws RemoteException se houver falha na comunicação RMI
+         */
+        void loadStrip(int startRow, int endRow, GridBlock rows) throws RemoteException;
+
+        /**
+         * Avança numSteps passos a faixa residente [startRow, endRow].
+         * 
+         * Recebe as numSteps linhas fantasma de cada lado no passo atual
+         * (menos, se limitadas pelas linhas 0 e n-1) e avança a cópia mantida
+         * no worker com zona fantasma (resultado exato). Só essas linhas chegam
+         * e só as returnRows primeiras e últimas linhas da faixa voltam, em vez
+         * do bloco inteiro; returnRows > numSteps permite que a próxima troca
+         * use uma profundidade maior.
+         * 
+         * @param ghostBefore linhas [startRow - numSteps, startRow - 1]
+         * @param ghostAfter  linhas [endRow + 1, endRow + numSteps]
+         * @param numSteps    passos a avançar (≤ linhas da faixa e ≤ linhas
+         *                    fantasma carregadas)
+         * @param returnRows  linhas de borda devolvidas de cada lado (≤ linhas
+         *                    da faixa)
+         * @return bloco com as returnRows primeiras linhas da faixa seguidas
+         *         das returnRows últimas (linha inicial = startRow), após os
+         *         passos
+         * @throws RemoteException se houver falha na comunicação RMI ou se a
+         *                         faixa não tiver sido carregada
+         */
+        GridBlock stepStrip(int startRow, int endRow, GridBlock ghostBefore, GridBlock ghostAfter, double alpha,
+                        double dx, double dy, double dt, int numSteps, int returnRows) throws RemoteException;
+
+        /**
+         * Devolve as linhas atuais da faixa residente [startRow, endRow]
+         * (usado apenas para montar snapshots da malha completa).
+         * 
+         * @return linhas startRow a endRow
+         * @throws RemoteException se houver falha na comunicação RMI ou se a
+         *                         faixa não tiver sido carregada
+         */
+        GridBlock getStripBlock(int startRow, int endRow) throws RemoteException;
+
+        /**
+         * Informa à faixa residente [startRow, endRow] quem são suas vizinhas
+         * no modo ponto a ponto: a faixa que termina em startRow - 1 e a que
+         * começa em endRow + 1. O worker as localiza pela URL RMI (podem estar
+         * neste mesmo worker) e passa a trocar linhas fantasma diretamente com
+         * elas em runPeerSteps, sem passar pelo coordenador.
+         * 
+         * @param upUrl      URL do worker da faixa de cima, ou null se a
+         *                   vizinhança é a linha 0 (fixa)
+         * @param upStartRow linha inicial da faixa de cima
+         * @param downUrl    URL do worker da faixa de baixo, ou null se a
+         *                   vizinhança é a linha n-1 (fixa)
+         * @throws RemoteException se houver falha na comunicação RMI, se a
+         *                         faixa não tiver sido carregada ou se uma
+         *                         vizinha não for encontrada
+         */
+        void connectNeighbors(int startRow, int endRow, String upUrl, int upStartRow, String downUrl)
+                        throws RemoteException;
+
+        /**
+         * Avança numSteps passos a faixa residente [startRow, endRow] trocando
+         * linhas fantasma diretamente com as vizinhas (connectNeighbors).
+         * 
+         * Os passos são feitos em trocas de até 'depth' passos com zona
+         * fantasma: após cada troca a faixa envia suas 'depth' primeiras e
+         * últimas linhas às vizinhas e aguarda as delas. Todas as faixas
+         * devem ser chamadas ao mesmo tempo com os mesmos numSteps e depth;
+         * a chamada só retorna quando a faixa e suas linhas fantasma estão
+         * atualizadas.
+         * 
+         * Com overlap, a cada troca a faixa calcula primeiro só as linhas de
+         * borda que as vizinhas esperam (sobre uma cópia), envia-as em segundo
+         * plano e avança a faixa inteira enquanto elas trafegam. O resultado é
+         * o mesmo.
+         * 
+         * @param numSteps passos a avançar
+         * @param depth    passos por troca (≤ linhas das faixas e ≤ linhas
+         *                 fantasma carregadas)
+         * @param overlap  sobrepor os envios ao cálculo da faixa
+         * @return {passos avançados desde loadStrip, trocas, ns calculando a
+         *         faixa, ns calculando antecipadamente as bordas, ns de
+         *         duração dos envios às vizinhas, ns em que a faixa ficou
+         *         parada em envios ou aguardando as vizinhas}, nesta chamada
+         *         (exceto o primeiro, que serve de conferência do progresso
+         *         pelo coordenador)
+         * @throws RemoteException se houver falha na comunicação RMI, se uma
+         *                         vizinha não responder a tempo ou se a faixa
+         *                         não tiver sido carregada e conectada
+         */
+        long[] runPeerSteps(int startRow, int endRow, double alpha, double dx, double dy, double dt, int numSteps,
+                        int depth, boolean overlap) throws RemoteException;
+
+        /**
+         * Entrega linhas fantasma enviadas por uma faixa vizinha (chamado de
+         * worker para worker no modo ponto a ponto).
+         * 
+         * @param startRow  linha inicial da faixa destinatária
+         * @param exchange  número da troca a que as linhas pertencem (1, 2, ...
+         *                  desde loadStrip)
+         * @param fromAbove true se vêm da faixa de cima (linhas antes de
+         *                  startRow), false se da de baixo
+         * @param rows      linhas fantasma, em ordem crescente de linha
+         * @throws RemoteException se houver falha na comunicação RMI ou se a
+         *                         faixa não estiver carregada
+         */
+        void putGhostRows(int startRow, long exchange, boolean fromAbove, GridBlock rows) throws RemoteException;
 }
@@ -2,6 +2,25 @@ package trabalhofinal.difusaocalor.rmi;
 
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import trabalhofinal.difusaocalor.simulator.GhostZone;
+import trabalhofinal.difusaocalor.simulator.HeatGrid;
+import trabalhofinal.difusaocalor.simulator.StencilKernel;
+import trabalhofinal.difusaocalor.simulator.StencilKernels;
+import trabalhofinal.difusaocalor.transport.CountingClientSocketFactory;
+import trabalhofinal.difusaocalor.transport.SocketWorkerClient;
+import trabalhofinal.difusaocalor.transport.WorkerTransports;
 
 /**
  * Implementação concreta do worker RMI para cálculos distribuídos de difusão de
@@ -16,24 +35,77 @@ import java.rmi.server.UnicastRemoteObject;
  * Características de implementação:
  * - Cache local da matriz completa (evita retransmissão)
  * - Suporte a processamento em lote com double buffering interno
+ * - Kernel do estêncil selecionável (escalar ou SIMD) via selectKernel
+ * - Faixas residentes (loadStrip/stepStrip): a faixa fica no worker entre
+ * passos e só as linhas fantasma trafegam
+ * - Lotes exatos com zona fantasma (computeGhostZoneSteps e stepStrip com
+ * vários passos)
+ * - Modo ponto a ponto (connectNeighbors/runPeerSteps): faixas vizinhas
+ * trocam linhas fantasma diretamente entre si, sem o coordenador; com
+ * sobreposição, as linhas de borda são calculadas primeiro e enviadas em
+ * segundo plano enquanto o resto da faixa é calculado
+ * - Compressão espelhada: blocos devolvidos (e, no modo ponto a ponto,
+ * enviados às vizinhas) são comprimidos se os recebidos do coordenador
+ * vieram comprimidos (ver GridBlock.withCompression)
+ * - Cálculo multithread: as linhas de cada passo são divididas entre
+ * 'threads' threads locais (a da chamada e as do pool), como as faixas de
+ * ParallelHeatSimulator; o coordenador consulta o número com getThreadCount
+ * - Tempo ocupado: soma dos intervalos com algum cálculo em curso
+ * (getBusyNanos), para a utilização medida pelo coordenador
  * - Preservação automática das condições de contorno (bordas)
  * - Tratamento seguro de casos extremos (blocos vazios, dimensões inválidas)
  */
 public class WorkerImpl extends UnicastRemoteObject implements Worker {
 
-    private double[][] T; // Cache local da matriz de temperaturas
+    private HeatGrid T; // Cache local da matriz de temperaturas (contígua)
     private int n; // Dimensão da malha quadrada
+    private volatile StencilKernel kernel = StencilKernels.scalar(); // Kernel do estêncil
+    private final Map<Integer, ResidentStrip> strips = new ConcurrentHashMap<>(); // Por linha inicial
+    private final Map<String, Worker> peers = new ConcurrentHashMap<>(); // Stubs das vizinhas, por URL
+    private final int threads; // Threads que calculam cada faixa
+    private final ExecutorService pool; // threads - 1 auxiliares (null = só a thread da chamada)
+    private final ExecutorService senders = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "worker-envio-bordas");
+        t.setDaemon(true);
+        return t;
+    }); // Envios de linhas de borda em segundo plano (modo ponto a ponto)
+    private final Object busyLock = new Object();
+    private int computing; // Cálculos em curso (protegido por busyLock)
+    private long busySince; // Início do intervalo ocupado atual
+    private long busyNanos; // Soma dos intervalos ocupados já encerrados
+
+    /**
+     * Tempo máximo de espera pelas linhas fantasma de uma vizinha no modo
+     * ponto a ponto.
+     */
+    private static final long PEER_TIMEOUT_MS = 60_000;
 
     protected WorkerImpl() throws RemoteException {
-        super();
+        this(1);
+    }
+
+    /**
+     * @param threads threads locais que dividem as linhas de cada cálculo (a
+     *                da chamada RMI mais threads - 1 de um pool próprio)
+     */
+    protected WorkerImpl(int threads) throws RemoteException {
+        // Clientes contam os bytes RMI trocados com este worker (WireCounters)
+        super(0, new CountingClientSocketFactory(), null);
+        this.threads = Math.max(1, threads);
+        this.pool = this.threads > 1 ? Executors.newFixedThreadPool(this.threads - 1, r -> {
+            Thread t = new Thread(r, "worker-calculo");
+            t.setDaemon(true);
+            return t;
+        }) : null;
     }
 
     @Override
     public void initializeMatrix(double[][] matrix, int dimension) throws RemoteException {
         this.n = dimension;
-        this.T = new double[n][n];
+        this.T = new HeatGrid(n);
+        strips.clear(); // Nova simulação: faixas residentes anteriores não valem mais
         for (int i = 0; i < n; i++) {
-            System.arraycopy(matrix[i], 0, T[i], 0, n);
+            T.setRow(i, matrix[i]);
         }
     }
 
@@ -45,7 +117,6 @@ public class WorkerImpl extends UnicastRemoteObject implements Worker {
             return new double[0][];
 
         int rows = endRow - startRow + 1;
-        double[][] result = new double[rows][n];
 
         // Pré-calcula coeficientes do método de diferenças finitas (uma vez só)
         double coefX = alpha * dt / (dx * dx);
@@ -55,27 +126,22 @@ public class WorkerImpl extends UnicastRemoteObject implements Worker {
         // block[0] = linha startRow-1 (vizinhança superior)
         // block[1..rows] = linhas a calcular (startRow até endRow)
         // block[rows+1] = linha endRow+1 (vizinhança inferior)
+        // Copiado para um vetor contíguo para que o kernel navegue com ±n
+        double[] src = flatten(block);
+        double[] dst = src.clone(); // Preserva bordas esquerda e direita
+        StencilKernel k = kernel;
 
-        // Itera sobre cada linha interior do bloco
-        for (int ii = 0; ii < rows; ii++) {
-            int blockRowIdx = ii + 1; // Índice no bloco (pula a linha de vizinhança)
-
-            // Itera sobre colunas interiores (exclui bordas em j=0 e j=n-1)
-            for (int j = 1; j < n - 1; j++) {
-                // Método de diferenças finitas explícito 2D:
-                // T_novo = T_atual + alpha*dt * (d²T/dx² + d²T/dy²)
-                double t = block[blockRowIdx][j];
-                double tx = block[blockRowIdx + 1][j] - 2 * t + block[blockRowIdx - 1][j]; // Segunda derivada em X
-                double ty = block[blockRowIdx][j + 1] - 2 * t + block[blockRowIdx][j - 1]; // Segunda derivada em Y
-                result[ii][j] = t + coefX * tx + coefY * ty;
-            }
-
-            // Preserva condições de contorno (bordas esquerda e direita)
-            result[ii][0] = block[blockRowIdx][0];
-            result[ii][n - 1] = block[blockRowIdx][n - 1];
+        // Itera sobre cada linha interior do bloco (pula a linha de vizinhança),
+        // dividida entre as threads locais
+        // Colunas interiores apenas: exclui bordas em j=0 e j=n-1
+        beginCompute();
+        try {
+            GhostZone.computeRows(src, dst, n, 0, 1, rows, k, coefX, coefY, pool, threads);
+        } finally {
+            endCompute();
         }
 
-        return result;
+        return unflatten(dst, 1, rows);
     }
 
     @Override
@@ -89,51 +155,60 @@ public class WorkerImpl extends UnicastRemoteObject implements Worker {
         int blockRows = initialBlock.length;
 
         // Double buffering local: alterna entre current e next a cada iteração
-        // Isso permite ler de 'current' e escrever em 'next' sem interferência
-        double[][] current = new double[blockRows][n];
-        double[][] next = new double[blockRows][n];
-
-        // Copia o bloco inicial para o buffer 'current'
-        for (int i = 0; i < blockRows; i++) {
-            System.arraycopy(initialBlock[i], 0, current[i], 0, n);
-        }
+        // Isso permite ler de 'current' e escrever em 'next' sem interferência.
+        // Ambos começam com o bloco inicial, preservando vizinhanças e bordas
+        // laterais (nunca escritas pelo kernel).
+        double[] current = flatten(initialBlock);
+        double[] next = current.clone();
 
         // Pré-calcula coeficientes uma única vez
         double coefX = alpha * dt / (dx * dx);
         double coefY = alpha * dt / (dy * dy);
+        StencilKernel k = kernel;
 
         // Loop principal: processa numSteps iterações consecutivas localmente
         // Esta é a chave da otimização: N passos em 1 chamada RMI
-        for (int step = 0; step < numSteps; step++) {
-            // Calcula apenas linhas interiores do bloco (exclui vizinhanças)
-            // Índices 0 e blockRows-1 são linhas de vizinhança, não são atualizadas
-            for (int ii = 1; ii < blockRows - 1; ii++) {
-                for (int j = 1; j < n - 1; j++) {
-                    // Aplica diferenças finitas explícitas
-                    double t = current[ii][j];
-                    double tx = current[ii + 1][j] - 2 * t + current[ii - 1][j];
-                    double ty = current[ii][j + 1] - 2 * t + current[ii][j - 1];
-                    next[ii][j] = t + coefX * tx + coefY * ty;
-                }
-                // Preserva bordas laterais
-                next[ii][0] = current[ii][0];
-                next[ii][n - 1] = current[ii][n - 1];
-            }
+        beginCompute();
+        try {
+            for (int step = 0; step < numSteps; step++) {
+                // Calcula apenas linhas interiores do bloco (exclui vizinhanças)
+                // Índices 0 e blockRows-1 são linhas de vizinhança, não são atualizadas
+                GhostZone.computeRows(current, next, n, 0, 1, blockRows - 2, k, coefX, coefY, pool, threads);
 
-            // Swap: troca referências dos buffers (mais eficiente que copiar)
-            // Após o swap, 'current' aponta para os dados atualizados
-            double[][] temp = current;
-            current = next;
-            next = temp;
+                // Swap: troca referências dos buffers (mais eficiente que copiar)
+                // Após o swap, 'current' aponta para os dados atualizados
+                double[] temp = current;
+                current = next;
+                next = temp;
+            }
+        } finally {
+            endCompute();
         }
 
         // Retorna apenas as linhas interiores (exclui vizinhanças nos índices 0 e
         // blockRows-1)
-        double[][] result = new double[rows][n];
-        for (int ii = 0; ii < rows; ii++) {
-            System.arraycopy(current[ii + 1], 0, result[ii], 0, n);
+        return unflatten(current, 1, rows);
+    }
+
+    /**
+     * Copia um bloco de linhas para um vetor contíguo (row-major, largura n).
+     */
+    private double[] flatten(double[][] block) {
+        double[] flat = new double[block.length * n];
+        for (int i = 0; i < block.length; i++) {
+            System.arraycopy(block[i], 0, flat, i * n, n);
         }
+        return flat;
+    }
 
+    /**
+     * Extrai 'rows' linhas de um vetor contíguo a partir da linha firstRow.
+     */
+    private double[][] unflatten(double[] flat, int firstRow, int rows) {
+        double[][] result = new double[rows][n];
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(flat, (firstRow + i) * n, result[i], 0, n);
+        }
         return result;
     }
 
@@ -142,18 +217,402 @@ public class WorkerImpl extends UnicastRemoteObject implements Worker {
         if (newT == null || newT.length != n)
             return;
         for (int i = 0; i < n; i++) {
-            System.arraycopy(newT[i], 0, T[i], 0, n);
+            T.setRow(i, newT[i]);
         }
     }
 
     @Override
     public void updateBoundaryRows(int startRow, int endRow, double[] rowBeforeStart, double[] rowAfterEnd)
             throws RemoteException {
+        // Faixa residente começando em startRow: atualiza suas linhas fantasma
+        ResidentStrip strip = strips.get(startRow);
+        if (strip != null && strip.endRow == endRow)
+            strip.setGhostRows(
+                    rowBeforeStart != null ? GridBlock.of(new double[][] { rowBeforeStart }, startRow - 1) : null,
+                    rowAfterEnd != null ? GridBlock.of(new double[][] { rowAfterEnd }, endRow + 1) : null);
+        if (T == null)
+            return;
         if (rowBeforeStart != null && startRow > 0) {
-            System.arraycopy(rowBeforeStart, 0, T[startRow - 1], 0, Math.min(rowBeforeStart.length, n));
+            System.arraycopy(rowBeforeStart, 0, T.data(), T.index(startRow - 1, 0),
+                    Math.min(rowBeforeStart.length, n));
         }
         if (rowAfterEnd != null && endRow < n - 1) {
-            System.arraycopy(rowAfterEnd, 0, T[endRow + 1], 0, Math.min(rowAfterEnd.length, n));
+            System.arraycopy(rowAfterEnd, 0, T.data(), T.index(endRow + 1, 0), Math.min(rowAfterEnd.length, n));
+        }
+    }
+
+    @Override
+    public String selectKernel(String kernelName) throws RemoteException {
+        kernel = StencilKernels.byName(kernelName);
+        return kernel.name();
+    }
+
+    @Override
+    public int getThreadCount() throws RemoteException {
+        return threads;
+    }
+
+    @Override
+    public long getBusyNanos() throws RemoteException {
+        synchronized (busyLock) {
+            return busyNanos + (computing > 0 ? System.nanoTime() - busySince : 0);
+        }
+    }
+
+    /**
+     * Marca o início de um cálculo; com outros em curso, o intervalo ocupado
+     * continua o mesmo.
+     */
+    private void beginCompute() {
+        synchronized (busyLock) {
+            if (computing++ == 0)
+                busySince = System.nanoTime();
+        }
+    }
+
+    private void endCompute() {
+        synchronized (busyLock) {
+            if (--computing == 0)
+                busyNanos += System.nanoTime() - busySince;
+        }
+    }
+
+    @Override
+    public GridBlock computeGhostZoneSteps(GridBlock block, int startRow, int endRow, double alpha, double dx,
+            double dy, double dt, int numSteps) throws RemoteException {
+        int w = block.width();
+        if (startRow > endRow || block.rows() == 0 || numSteps <= 0)
+            return new GridBlock(startRow, 0, w, new double[0]);
+        if (block.firstRow() > GhostZone.firstRow(startRow, numSteps)
+                || block.lastRow() < GhostZone.lastRow(endRow, numSteps, w))
+            throw new RemoteException("Bloco sem zona fantasma suficiente para " + numSteps + " passos");
+
+        // O vetor recebido serve diretamente de buffer
+        double[] current = block.data();
+        double[] next = current.clone(); // Mesmas colunas extremas nos dois buffers
+        double[] result;
+        beginCompute();
+        try {
+            result = GhostZone.advance(current, next, w, block.firstRow(), startRow, endRow, numSteps, kernel,
+                    alpha * dt / (dx * dx), alpha * dt / (dy * dy), pool, threads);
+        } finally {
+            endCompute();
+        }
+        return new GridBlock(startRow, endRow - startRow + 1, w,
+                Arrays.copyOfRange(result, block.offset(startRow), block.offset(endRow + 1)))
+                .withCompression(block.compressed());
+    }
+
+    @Override
+    public GridBlock computeBlock(GridBlock block, int startRow, int endRow, double alpha, double dx, double dy,
+            double dt) throws RemoteException {
+        // Um passo é o caso de profundidade 1 da zona fantasma
+        return computeGhostZoneSteps(block, startRow, endRow, alpha, dx, dy, dt, 1);
+    }
+
+    @Override
+    public void initializeMatrix(GridBlock T) throws RemoteException {
+        int dimension = T.width();
+        if (T.firstRow() != 0 || T.rows() != dimension)
+            throw new RemoteException("Matriz inicial deve ter " + dimension + " linhas a partir da 0");
+        // Bloco e cache são row-major com a mesma largura: uma cópia só
+        this.n = dimension;
+        this.T = new HeatGrid(dimension);
+        strips.clear(); // Nova simulação: faixas residentes anteriores não valem mais
+        T.copyTo(this.T.data());
+    }
+
+    @Override
+    public void loadStrip(int startRow, int endRow, GridBlock rows) throws RemoteException {
+        if (rows.firstRow() > startRow - 1 || rows.lastRow() < endRow + 1 || rows.width() != n)
+            throw new RemoteException("Faixa inválida: [" + startRow + ", " + endRow + "]");
+        ResidentStrip strip = new ResidentStrip(startRow, endRow, rows.firstRow(), rows.rows(), rows.data(), n);
+        strip.compress = rows.compressed();
+        strips.put(startRow, strip);
+    }
+
+    @Override
+    public GridBlock stepStrip(int startRow, int endRow, GridBlock ghostBefore, GridBlock ghostAfter, double alpha,
+            double dx, double dy, double dt, int numSteps, int returnRows) throws RemoteException {
+        ResidentStrip strip = residentStrip(startRow, endRow);
+        int stripRows = endRow - startRow + 1;
+        if (numSteps < 1 || numSteps > stripRows || !strip.holds(numSteps))
+            throw new RemoteException("Profundidade inválida para a faixa: " + numSteps);
+        if (returnRows < 1 || returnRows > stripRows)
+            throw new RemoteException("Número de linhas de borda inválido: " + returnRows);
+        strip.setGhostRows(ghostBefore, ghostAfter);
+        // O coordenador pode ligar ou desligar a compressão entre trocas
+        if (ghostBefore != null || ghostAfter != null)
+            strip.compress = (ghostBefore != null ? ghostBefore : ghostAfter).compressed();
+        beginCompute();
+        try {
+            strip.advance(numSteps, kernel, alpha * dt / (dx * dx), alpha * dt / (dy * dy), pool, threads);
+        } finally {
+            endCompute();
+        }
+        int half = returnRows * n;
+        double[] result = new double[2 * half];
+        System.arraycopy(strip.current, strip.offset(startRow), result, 0, half);
+        System.arraycopy(strip.current, strip.offset(endRow - returnRows + 1), result, half, half);
+        return new GridBlock(startRow, 2 * returnRows, n, result).withCompression(strip.compress);
+    }
+
+    @Override
+    public GridBlock getStripBlock(int startRow, int endRow) throws RemoteException {
+        return residentStrip(startRow, endRow).rows(startRow, endRow);
+    }
+
+    @Override
+    public void connectNeighbors(int startRow, int endRow, String upUrl, int upStartRow, String downUrl)
+            throws RemoteException {
+        ResidentStrip strip = residentStrip(startRow, endRow);
+        strip.up = upUrl != null ? lookupPeer(upUrl) : null;
+        strip.upStartRow = upStartRow;
+        strip.down = downUrl != null ? lookupPeer(downUrl) : null;
+    }
+
+    @Override
+    public long[] runPeerSteps(int startRow, int endRow, double alpha, double dx, double dy, double dt,
+            int numSteps, int depth, boolean overlap) throws RemoteException {
+        ResidentStrip strip = residentStrip(startRow, endRow);
+        if (depth < 1 || depth > endRow - startRow + 1)
+            throw new RemoteException("Profundidade inválida para a faixa: " + depth);
+        double coefX = alpha * dt / (dx * dx);
+        double coefY = alpha * dt / (dy * dy);
+        long exchanges = 0;
+        long compute = 0; // Cálculo da faixa
+        long edges = 0; // Cálculo antecipado das linhas de borda (com sobreposição)
+        long exposed = 0; // Thread da faixa parada em envios ou aguardando as vizinhas
+        AtomicLong transit = new AtomicLong(); // Duração dos envios às vizinhas
+        int remaining = numSteps;
+        while (remaining > 0) {
+            // Mesma sequência de profundidades em todas as faixas: todas
+            // recebem os mesmos parâmetros e as mesmas quantidades de linhas
+            int d = Math.min(Math.min(depth, remaining), strip.validGhost);
+            if (!strip.holds(d))
+                throw new RemoteException("Profundidade inválida para a faixa: " + d);
+            long exchange = strip.exchange + 1;
+            List<Future<?>> sends = new ArrayList<>(2);
+            long t0 = System.nanoTime();
+            beginCompute();
+            try {
+                if (overlap) {
+                    // Linhas de borda primeiro (mesmos dados, mesmo resultado que
+                    // o avanço da faixa); seguem às vizinhas enquanto a faixa
+                    // inteira é calculada
+                    GridBlock top = strip.up != null
+                            ? strip.advancedRows(startRow, startRow + depth - 1, d, kernel, coefX, coefY)
+                            : null;
+                    GridBlock bottom = strip.down != null
+                            ? strip.advancedRows(endRow - depth + 1, endRow, d, kernel, coefX, coefY)
+                            : null;
+                    long t1 = System.nanoTime();
+                    edges += t1 - t0;
+                    if (top != null)
+                        sends.add(senders.submit(() -> sendGhostRows(strip.up, strip.upStartRow, exchange, false, top,
+                                transit)));
+                    if (bottom != null)
+                        sends.add(senders.submit(() -> sendGhostRows(strip.down, endRow + 1, exchange, true, bottom,
+                                transit)));
+                    strip.advance(d, kernel, coefX, coefY, pool, threads);
+                    t0 = System.nanoTime();
+                    compute += t0 - t1;
+                } else {
+                    strip.advance(d, kernel, coefX, coefY, pool, threads);
+                    long t1 = System.nanoTime();
+                    compute += t1 - t0;
+                    t0 = t1;
+                    // Linhas de borda vão direto às vizinhas; as delas chegam por
+                    // putGhostRows em outra thread do RMI
+                    if (strip.up != null)
+                        sendGhostRows(strip.up, strip.upStartRow, exchange, false,
+                                strip.rows(startRow, startRow + depth - 1), transit);
+                    if (strip.down != null)
+                        sendGhostRows(strip.down, endRow + 1, exchange, true, strip.rows(endRow - depth + 1, endRow),
+                                transit);
+                }
+            } finally {
+                endCompute();
+            }
+            strip.steps += d;
+            strip.exchange = exchange;
+            GridBlock before = strip.up != null ? strip.awaitGhostRows(exchange, true) : null;
+            GridBlock after = strip.down != null ? strip.awaitGhostRows(exchange, false) : null;
+            for (Future<?> f : sends) {
+                try {
+                    f.get();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new RemoteException("Interrompido enviando linhas fantasma", ex);
+                } catch (ExecutionException ex) {
+                    throw new RemoteException("Falha ao enviar linhas fantasma à faixa vizinha", ex.getCause());
+                }
+            }
+            exposed += System.nanoTime() - t0;
+            strip.setGhostRows(before, after);
+            strip.validGhost = depth;
+            remaining -= d;
+            exchanges++;
+        }
+        return new long[] { strip.steps, exchanges, compute, edges, transit.get(), exposed };
+    }
+
+    /**
+     * Envia linhas de borda a uma vizinha, somando a duração do envio em
+     * 'transit'.
+     */
+    private Void sendGhostRows(Worker peer, int peerStartRow, long exchange, boolean fromAbove, GridBlock rows,
+            AtomicLong transit) throws RemoteException {
+        long t0 = System.nanoTime();
+        peer.putGhostRows(peerStartRow, exchange, fromAbove, rows);
+        transit.addAndGet(System.nanoTime() - t0);
+        return null;
+    }
+
+    @Override
+    public void putGhostRows(int startRow, long exchange, boolean fromAbove, GridBlock rows)
+            throws RemoteException {
+        ResidentStrip strip = strips.get(startRow);
+        if (strip == null)
+            throw new RemoteException("Faixa iniciando em " + startRow + " não carregada neste worker");
+        strip.deliver(exchange, fromAbove, rows);
+    }
+
+    /**
+     * Obtém (e guarda) o Worker de uma vizinha, pelo transporte da URL.
+     */
+    private Worker lookupPeer(String url) throws RemoteException {
+        Worker peer = peers.get(url);
+        if (peer != null && !(peer instanceof SocketWorkerClient c && c.isClosed()))
+            return peer;
+        peer = WorkerTransports.connect(url);
+        peers.put(url, peer);
+        return peer;
+    }
+
+    private ResidentStrip residentStrip(int startRow, int endRow) throws RemoteException {
+        ResidentStrip strip = strips.get(startRow);
+        if (strip == null || strip.endRow != endRow)
+            throw new RemoteException("Faixa [" + startRow + ", " + endRow + "] não carregada neste worker");
+        return strip;
+    }
+
+    /**
+     * Faixa mantida no worker entre passos: linhas [firstRow, firstRow +
+     * rows - 1] (a faixa e suas linhas fantasma) em dois buffers contíguos
+     * trocados a cada passo. As linhas fantasma de 'current' são reescritas
+     * antes de cada avanço; as colunas extremas são iguais nos dois buffers e
+     * nunca mudam.
+     */
+    private static final class ResidentStrip {
+        final int startRow;
+        final int endRow;
+        final int firstRow;
+        final int rows;
+        final int n;
+        double[] current;
+        double[] next;
+        volatile boolean compress; // Blocos enviados comprimidos, como os recebidos
+
+        // Modo ponto a ponto
+        Worker up; // Worker da faixa de cima (null = linha 0)
+        int upStartRow; // Linha inicial da faixa de cima
+        Worker down; // Worker da faixa de baixo (null = linha n-1)
+        long exchange; // Trocas concluídas desde a carga
+        long steps; // Passos avançados desde a carga
+        int validGhost = Integer.MAX_VALUE; // Linhas fantasma atuais (após a carga, todas)
+        private final Map<Long, GridBlock> fromAbove = new HashMap<>(); // Linhas recebidas, por troca
+        private final Map<Long, GridBlock> fromBelow = new HashMap<>();
+
+        ResidentStrip(int startRow, int endRow, int firstRow, int rows, double[] data, int n) {
+            this.startRow = startRow;
+            this.endRow = endRow;
+            this.firstRow = firstRow;
+            this.rows = rows;
+            this.n = n;
+            this.current = data;
+            this.next = data.clone();
+        }
+
+        /**
+         * Verifica se o bloco guardado comporta a zona fantasma de 'depth'
+         * passos.
+         */
+        boolean holds(int depth) {
+            return firstRow <= GhostZone.firstRow(startRow, depth)
+                    && firstRow + rows - 1 >= GhostZone.lastRow(endRow, depth, n);
+        }
+
+        /**
+         * Posição da linha global i nos buffers.
+         */
+        int offset(int i) {
+            return (i - firstRow) * n;
+        }
+
+        void setGhostRows(GridBlock before, GridBlock after) {
+            if (before != null)
+                System.arraycopy(before.data(), 0, current, offset(before.firstRow()), before.data().length);
+            if (after != null)
+                System.arraycopy(after.data(), 0, current, offset(after.firstRow()), after.data().length);
+        }
+
+        void advance(int depth, StencilKernel k, double coefX, double coefY, ExecutorService pool, int threads) {
+            double[] result = GhostZone.advance(current, next, n, firstRow, startRow, endRow, depth, k, coefX, coefY,
+                    pool, threads);
+            if (result != current) {
+                next = current;
+                current = result;
+            }
+        }
+
+        /**
+         * Linhas globais [first, last] após 'depth' passos, calculadas sobre
+         * uma cópia das linhas necessárias (a faixa não muda). Usado para
+         * enviar as linhas de borda antes de avançar a faixa inteira.
+         */
+        GridBlock advancedRows(int first, int last, int depth, StencilKernel k, double coefX, double coefY) {
+            int from = GhostZone.firstRow(first, depth);
+            int to = GhostZone.lastRow(last, depth, n);
+            double[] band = Arrays.copyOfRange(current, offset(from), offset(to + 1));
+            double[] result = GhostZone.advance(band, band.clone(), n, from, first, last, depth, k, coefX, coefY);
+            return new GridBlock(first, last - first + 1, n,
+                    Arrays.copyOfRange(result, (first - from) * n, (last + 1 - from) * n)).withCompression(compress);
+        }
+
+        /**
+         * Guarda linhas enviadas por uma vizinha; podem chegar antes de a
+         * faixa terminar a troca anterior.
+         */
+        synchronized void deliver(long exchange, boolean above, GridBlock rows) {
+            (above ? fromAbove : fromBelow).put(exchange, rows);
+            notifyAll();
+        }
+
+        synchronized GridBlock awaitGhostRows(long exchange, boolean above) throws RemoteException {
+            Map<Long, GridBlock> box = above ? fromAbove : fromBelow;
+            long deadline = System.currentTimeMillis() + PEER_TIMEOUT_MS;
+            GridBlock rows;
+            while ((rows = box.remove(exchange)) == null) {
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0)
+                    throw new RemoteException("Tempo esgotado aguardando linhas fantasma da faixa vizinha");
+                try {
+                    wait(wait);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new RemoteException("Interrompido aguardando linhas fantasma", ex);
+                }
+            }
+            return rows;
+        }
+
+        /**
+         * Copia as linhas globais [first, last] do passo atual.
+         */
+        GridBlock rows(int first, int last) {
+            return new GridBlock(first, last - first + 1, n,
+                    Arrays.copyOfRange(current, offset(first), offset(last + 1))).withCompression(compress);
         }
     }
 }
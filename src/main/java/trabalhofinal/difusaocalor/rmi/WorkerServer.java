@@ -2,21 +2,32 @@ package trabalhofinal.difusaocalor.rmi;
 
 import java.rmi.Naming;
 import java.rmi.registry.LocateRegistry;
+import java.rmi.server.UnicastRemoteObject;
+
+import trabalhofinal.difusaocalor.transport.SocketWorkerServer;
+import trabalhofinal.difusaocalor.transport.WorkerTransports;
 
 /**
- * Servidor RMI que inicializa e registra um worker no RMI Registry.
+ * Servidor que inicializa um worker e o expõe ao coordenador.
  * 
  * Este programa deve ser executado em cada máquina que atuará como worker
- * no sistema distribuído. Cada instância cria um RMI registry na porta
- * especificada e registra um objeto Worker que ficará disponível para
- * chamadas remotas do coordenador.
+ * no sistema distribuído. Com o transporte RMI (padrão), cria um RMI registry
+ * na porta especificada e registra um objeto Worker que ficará disponível
+ * para chamadas remotas do coordenador. Com o transporte tcp, atende o
+ * protocolo binário (SocketWorkerServer) diretamente na porta.
  * 
  * Uso:
- * java WorkerServer <nome> <porta>
+ * java WorkerServer <nome> <porta> [rmi|tcp] [threads]
+ * 
+ * [threads] é o número de threads que dividem o cálculo de cada faixa
+ * (padrão: os núcleos disponíveis à JVM); o coordenador o consulta com
+ * Worker.getThreadCount.
  * 
  * Exemplo:
- * java WorkerServer Worker1 1099
+ * java WorkerServer Worker1 1099 (URL rmi://localhost:1099/Worker1)
  * java WorkerServer Worker2 1100
+ * java WorkerServer Worker3 2099 tcp (URL tcp://localhost:2099)
+ * java WorkerServer Worker4 1101 rmi 8
  * 
  * O processo permanece ativo aguardando chamadas remotas até ser
  * encerrado manualmente (Ctrl+C).
@@ -25,25 +36,41 @@ public class WorkerServer {
 
     public static void main(String[] args) throws Exception {
         if (args.length < 2) {
-            System.out.println("Usage: WorkerServer <name> <port>");
+            System.out.println("Usage: WorkerServer <name> <port> [rmi|tcp] [threads]");
             System.exit(1);
         }
         String name = args[0];
         int port = Integer.parseInt(args[1]);
+        String transport = args.length > 2 ? args[2] : "rmi";
+        int cores = Runtime.getRuntime().availableProcessors();
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : cores;
 
-        // Tenta criar o RMI registry na porta especificada
-        // Se já existir, ignora a exceção e reutiliza o registry existente
-        try {
-            LocateRegistry.createRegistry(port);
-        } catch (Exception ignore) {
-            // Registry já existe, pode ser compartilhado por múltiplos workers
-        }
+        WorkerImpl impl = new WorkerImpl(threads);
+        String url;
+        if (transport.equals(WorkerTransports.TCP_SCHEME)) {
+            // Atendido só pelo protocolo binário: dispensa a exportação RMI
+            UnicastRemoteObject.unexportObject(impl, true);
+            new SocketWorkerServer(impl, port);
+            url = WorkerTransports.TCP_SCHEME + "://localhost:" + port;
+        } else if (transport.equals("rmi")) {
+            // Tenta criar o RMI registry na porta especificada
+            // Se já existir, ignora a exceção e reutiliza o registry existente
+            try {
+                LocateRegistry.createRegistry(port);
+            } catch (Exception ignore) {
+                // Registry já existe, pode ser compartilhado por múltiplos workers
+            }
 
-        // Constrói a URL RMI e registra o worker
-        String url = "rmi://localhost:" + port + "/" + name;
-        WorkerImpl impl = new WorkerImpl();
-        Naming.rebind(url, impl);
-        System.out.println("Worker bound at " + url + ". Pressione Ctrl+C para encerrar.");
+            // Constrói a URL RMI e registra o worker
+            url = "rmi://localhost:" + port + "/" + name;
+            Naming.rebind(url, impl);
+        } else {
+            System.out.println("Transporte desconhecido: " + transport);
+            System.exit(1);
+            return;
+        }
+        System.out.println("Worker " + name + " bound at " + url + " (" + impl.getThreadCount() + " threads, "
+                + cores + " núcleos). Pressione Ctrl+C para encerrar.");
 
         // Mantém o processo vivo para atender chamadas remotas indefinidamente
         new java.util.concurrent.CountDownLatch(1).await();
@@ -1,19 +1,23 @@
 package trabalhofinal.difusaocalor.simulator;
 
+import java.util.Arrays;
+
 /**
  * Classe base abstrata para todos os simuladores de difusão de calor.
  * 
  * Implementa o comportamento comum compartilhado pelas versões sequencial,
  * paralela e distribuída, incluindo:
  * - Gerenciamento de buffers duplos (T e newT) para evitar leitura/escrita
- * simultânea
+ * simultânea, armazenados de forma contígua em HeatGrid e trocados por
+ * referência ao fim de cada passo
  * - Inicialização e reset da matriz de temperaturas
  * - Aplicação de condições de contorno (bordas com temperatura fixa)
  * - Sincronização segura para acesso concorrente
  * - Métodos de medição de desempenho com aquecimento (warmup)
  * 
  * Subclasses concretas devem implementar apenas computeStep(), que define
- * como calcular um passo da simulação (sequencial, paralelo ou distribuído).
+ * como calcular um passo da simulação (sequencial, paralelo ou distribuído),
+ * normalmente delegando cada faixa de linhas a computeRows().
  * 
  * Equação resolvida: ∂T/∂t = α * (∂²T/∂x² + ∂²T/∂y²)
  * Método numérico: diferenças finitas explícitas
@@ -26,9 +30,11 @@ public abstract class AbstractHeatSimulator {
     protected final double dy; // Espaçamento espacial no eixo Y
     protected final double dt; // Passo de tempo da simulação
 
-    protected final double[][] T; // Buffer de leitura: matriz atual de temperaturas
-    protected final double[][] newT; // Buffer de escrita: próxima matriz de temperaturas
-    protected final double[][] initialT; // Matriz inicial (para reset entre experimentos)
+    // Buffers trocados por referência a cada passo (swapBuffers). Subclasses não
+    // devem guardar cópias dessas referências entre passos.
+    protected HeatGrid T; // Buffer de leitura: matriz atual de temperaturas
+    protected HeatGrid newT; // Buffer de escrita: próxima matriz de temperaturas
+    protected final HeatGrid initialT; // Matriz inicial (para reset entre experimentos)
 
     // Flags para condições de contorno: bordas com temperatura fixa (100°C)
     protected boolean bordaCima = false;
@@ -39,6 +45,20 @@ public abstract class AbstractHeatSimulator {
     // Lock para sincronização thread-safe do acesso aos buffers
     protected final Object bufferLock = new Object();
 
+    // Kernel do estêncil usado no laço interno (escalar ou SIMD)
+    protected volatile StencilKernel kernel = StencilKernels.scalar();
+
+    // Travessia do interior em tiles de cache (NONE = linha a linha)
+    protected TileSize tileSize = TileSize.NONE;
+
+    /**
+     * Operação sobre um bloco de linhas [startRow, endRow] da malha.
+     */
+    @FunctionalInterface
+    protected interface RowBlockAction {
+        void apply(int startRow, int endRow);
+    }
+
     protected AbstractHeatSimulator(int n, double alpha) {
         this(n, alpha, 1.0, 1.0, 0.1);
     }
@@ -51,26 +71,39 @@ public abstract class AbstractHeatSimulator {
         this.dx = dx;
         this.dy = dy;
         this.dt = dt;
-        this.T = new double[n][n];
-        this.newT = new double[n][n];
-        this.initialT = new double[n][n];
+        this.T = new HeatGrid(n);
+        this.newT = new HeatGrid(n);
+        this.initialT = new HeatGrid(n);
         initDefault();
         copyToInitial();
     }
 
     protected void initDefault() {
-        for (int i = 0; i < n; i++) {
-            for (int j = 0; j < n; j++) {
-                T[i][j] = 20.0;
-                newT[i][j] = 20.0;
-                initialT[i][j] = 20.0;
-            }
-        }
+        forEachRowBlock((start, end) -> {
+            T.fillRows(start, end, 20.0);
+            newT.fillRows(start, end, 20.0);
+            initialT.fillRows(start, end, 20.0);
+        });
     }
 
     protected void copyToInitial() {
-        for (int i = 0; i < n; i++)
-            System.arraycopy(T[i], 0, initialT[i], 0, n);
+        forEachRowBlock((start, end) -> initialT.copyRowsFrom(T, start, end));
+    }
+
+    /**
+     * Aplica a ação a todas as linhas da malha, em blocos disjuntos.
+     * 
+     * Usado na inicialização, no reset e na cópia de snapshot. A versão base
+     * executa um único bloco [0, n-1] na thread chamadora; simuladores
+     * multi-thread podem sobrescrever para usar a mesma partição de linhas do
+     * cálculo, de modo que cada linha seja escrita primeiro (first-touch) pela
+     * thread que a calcula.
+     * 
+     * Atenção: é chamado pelo construtor desta classe, antes da inicialização
+     * dos campos das subclasses.
+     */
+    protected void forEachRowBlock(RowBlockAction action) {
+        action.apply(0, n - 1);
     }
 
     public void setBoundaryFlags(boolean cima, boolean baixo, boolean esquerda, boolean direita) {
@@ -82,24 +115,171 @@ public abstract class AbstractHeatSimulator {
         copyToInitial();
     }
 
-    protected void applyBoundaries(double[][] mat) {
+    protected void applyBoundaries(HeatGrid grid) {
+        double[] mat = grid.data();
         if (bordaCima)
             for (int i = 0; i < n; i++)
-                mat[0][i] = 100.0;
+                mat[i] = 100.0;
         if (bordaBaixo)
             for (int i = 0; i < n; i++)
-                mat[n - 1][i] = 100.0;
+                mat[(n - 1) * n + i] = 100.0;
         if (bordaEsquerda)
             for (int j = 0; j < n; j++)
-                mat[j][0] = 100.0;
+                mat[j * n] = 100.0;
         if (bordaDireita)
             for (int j = 0; j < n; j++)
-                mat[j][n - 1] = 100.0;
+                mat[j * n + n - 1] = 100.0;
     }
 
-    protected void copyTToNewT() {
-        for (int i = 0; i < n; i++)
-            System.arraycopy(T[i], 0, newT[i], 0, n);
+    /**
+     * Passo fundido para as linhas [startRow, endRow]: lê de T e escreve em newT
+     * todas as células dessas linhas em uma única passada.
+     * 
+     * - Células interiores: esquema explícito de diferenças finitas 2D,
+     * calculado pelo kernel selecionado, linha a linha ou em tiles (tileSize)
+     * - Colunas 0 e n-1: copiadas de T ou fixadas em 100°C (bordas ativas)
+     * - Linhas 0 e n-1: copiadas de T ou fixadas em 100°C (bordas ativas)
+     * 
+     * Substitui a antiga sequência cópia T→newT + cálculo + applyBoundaries,
+     * lendo T uma vez e escrevendo newT uma vez por passo.
+     * 
+     * Thread-safety: pode ser chamado em paralelo para faixas disjuntas.
+     */
+    protected final void computeRows(int startRow, int endRow) {
+        computeRows(T.data(), newT.data(), startRow, endRow);
+    }
+
+    /**
+     * Mesmo passo fundido de computeRows(int, int), mas entre vetores
+     * explícitos, para esquemas em que threads diferentes podem estar em passos
+     * diferentes (cada passo lê de um buffer escolhido pela paridade).
+     */
+    protected final void computeRows(double[] src, double[] dst, int startRow, int endRow) {
+        double coefX = alpha * dt / (dx * dx);
+        double coefY = alpha * dt / (dy * dy);
+        StencilKernel k = kernel;
+        TileSize tiles = tileSize;
+
+        if (!tiles.isEnabled()) {
+            for (int i = startRow; i <= endRow; i++) {
+                computeEdgeCells(src, dst, i);
+                if (i > 0 && i < n - 1)
+                    k.computeRow(src, dst, i * n + 1, n - 2, n, coefX, coefY);
+            }
+            return;
+        }
+
+        // Travessia em tiles: bordas primeiro (2 células por linha), depois o
+        // interior em blocos de tiles.height × tiles.width
+        for (int i = startRow; i <= endRow; i++)
+            computeEdgeCells(src, dst, i);
+        int first = Math.max(1, startRow);
+        int last = Math.min(n - 2, endRow);
+        for (int ib = first; ib <= last; ib += tiles.height) {
+            int ie = Math.min(last, ib + tiles.height - 1);
+            for (int jb = 1; jb < n - 1; jb += tiles.width) {
+                int count = Math.min(tiles.width, n - 1 - jb);
+                for (int i = ib; i <= ie; i++)
+                    k.computeRow(src, dst, i * n + jb, count, n, coefX, coefY);
+            }
+        }
+    }
+
+    /**
+     * Passagem com bloqueio temporal para as linhas [startRow, endRow]: escreve
+     * em newT o estado da malha 'depth' passos à frente de T.
+     * 
+     * O interior é dividido nos tiles de 'blocking' e cada tile é avançado
+     * 'depth' passos pelo engine (em buffers locais); as células extremas são
+     * escritas como em computeRows(), pois não mudam entre passos.
+     * 
+     * Thread-safety: pode ser chamado em paralelo para faixas disjuntas, desde
+     * que cada thread use seu próprio engine.
+     */
+    protected final void computeRowsTemporal(int startRow, int endRow, int depth, TemporalBlocking blocking,
+            TemporalBlockingEngine engine) {
+        double coefX = alpha * dt / (dx * dx);
+        double coefY = alpha * dt / (dy * dy);
+        double[] src = T.data();
+        double[] dst = newT.data();
+        StencilKernel k = kernel;
+        TileSize tile = blocking.tile;
+
+        for (int i = startRow; i <= endRow; i++)
+            computeEdgeCells(src, dst, i);
+        int first = Math.max(1, startRow);
+        int last = Math.min(n - 2, endRow);
+        for (int ib = first; ib <= last; ib += tile.height) {
+            int ie = Math.min(last, ib + tile.height - 1);
+            for (int jb = 1; jb < n - 1; jb += tile.width) {
+                int je = Math.min(n - 2, jb + tile.width - 1);
+                engine.advanceTile(src, dst, n, ib, ie, jb, je, depth, k, coefX, coefY);
+            }
+        }
+    }
+
+    /**
+     * Escreve em newT apenas as células extremas (bordas e linhas/colunas 0 e
+     * n-1) das linhas [startRow, endRow], sem calcular o interior.
+     */
+    protected final void computeEdges(int startRow, int endRow) {
+        double[] src = T.data();
+        double[] dst = newT.data();
+        for (int i = startRow; i <= endRow; i++)
+            computeEdgeCells(src, dst, i);
+    }
+
+    /**
+     * Aplica o estêncil ao bloco interior [startRow, endRow] × [startCol,
+     * endCol] (índices entre 1 e n-2), de T para newT. Não escreve células
+     * extremas; combine com computeEdges() para cobrir a malha inteira.
+     * 
+     * Thread-safety: pode ser chamado em paralelo para blocos disjuntos.
+     */
+    protected final void computeInterior(int startRow, int endRow, int startCol, int endCol) {
+        double coefX = alpha * dt / (dx * dx);
+        double coefY = alpha * dt / (dy * dy);
+        double[] src = T.data();
+        double[] dst = newT.data();
+        StencilKernel k = kernel;
+        int count = endCol - startCol + 1;
+        for (int i = startRow; i <= endRow; i++)
+            k.computeRow(src, dst, i * n + startCol, count, n, coefX, coefY);
+    }
+
+    /**
+     * Escreve em newT as células da linha i que não passam pelo estêncil:
+     * a linha inteira se i for 0 ou n-1, ou apenas as colunas 0 e n-1.
+     */
+    private void computeEdgeCells(double[] src, double[] dst, int i) {
+        int row = i * n; // Início da linha i no vetor contíguo
+        if (i == 0 || i == n - 1) {
+            if ((i == 0 && bordaCima) || (i == n - 1 && bordaBaixo)) {
+                Arrays.fill(dst, row, row + n, 100.0);
+            } else {
+                System.arraycopy(src, row, dst, row, n);
+                if (bordaEsquerda)
+                    dst[row] = 100.0;
+                if (bordaDireita)
+                    dst[row + n - 1] = 100.0;
+            }
+            return;
+        }
+        dst[row] = bordaEsquerda ? 100.0 : src[row];
+        dst[row + n - 1] = bordaDireita ? 100.0 : src[row + n - 1];
+    }
+
+    /**
+     * Troca os buffers T e newT por referência (sem copiar dados).
+     * Realizado sob bufferLock para que leitores de snapshot sempre vejam
+     * um buffer atual completo.
+     */
+    protected final void swapBuffers() {
+        synchronized (bufferLock) {
+            HeatGrid tmp = T;
+            T = newT;
+            newT = tmp;
+        }
     }
 
     /**
@@ -107,29 +287,20 @@ public abstract class AbstractHeatSimulator {
      * 
      * Fluxo de execução (Template Method Pattern):
      * 1. preStepHook() - permite preparação prévia em subclasses
-     * 2. Copia T -> newT (preserva condições de contorno)
-     * 3. computeStep() - subclasse calcula novas temperaturas em newT
-     * 4. Aplica condições de contorno sobre newT
-     * 5. Copia newT -> T de forma thread-safe (swap lógico)
-     * 6. postStepHook() - permite ações pós-passo em subclasses
+     * 2. computeStep() - subclasse escreve a malha completa do próximo passo em
+     * newT (interior, bordas e linhas/colunas extremas)
+     * 3. Troca T ↔ newT por referência de forma thread-safe
+     * 4. postStepHook() - permite ações pós-passo em subclasses
      * 
      * O uso de dois buffers evita condições de corrida onde uma thread
      * lê enquanto outra escreve na mesma posição.
      */
     public final void step() {
         preStepHook();
-        // Copia T para newT (preserva condições de contorno e evita ler/escrever na
-        // mesma matriz)
-        copyTToNewT();
-        // Implementação concreta atualiza newT com novos valores para o interior
+        // Implementação concreta escreve todas as células de newT a partir de T
         computeStep();
-        // Aplica condições de contorno sobre newT
-        applyBoundaries(newT);
-        // Copia resultado de newT para T (swap lógico sem trocar referências finais)
-        synchronized (bufferLock) {
-            for (int i = 0; i < n; i++)
-                System.arraycopy(newT[i], 0, T[i], 0, n);
-        }
+        // Próximo passo lê do buffer recém-escrito
+        swapBuffers();
         postStepHook();
     }
 
@@ -141,10 +312,11 @@ public abstract class AbstractHeatSimulator {
 
     /**
      * Método abstrato que deve ser implementado por subclasses.
-     * Calcula as novas temperaturas para o interior da malha e escreve em newT.
+     * Calcula as novas temperaturas e escreve em newT.
      * 
-     * A implementação não deve modificar T (apenas leitura) nem as bordas de newT.
-     * As bordas serão tratadas automaticamente por applyBoundaries().
+     * A implementação não deve modificar T (apenas leitura) e deve escrever
+     * todas as células de newT, inclusive bordas (ver computeRows()), pois o
+     * conteúdo anterior de newT é de dois passos atrás.
      */
     protected abstract void computeStep();
 
@@ -161,17 +333,21 @@ public abstract class AbstractHeatSimulator {
 
     public double[][] getTemperatureCopy() {
         synchronized (bufferLock) {
-            double[][] copy = new double[n][n];
-            for (int i = 0; i < n; i++)
-                System.arraycopy(T[i], 0, copy[i], 0, n);
+            HeatGrid src = T;
+            double[][] copy = new double[n][];
+            forEachRowBlock((start, end) -> {
+                for (int i = start; i <= end; i++) {
+                    copy[i] = new double[n];
+                    src.copyRowTo(i, copy[i]);
+                }
+            });
             return copy;
         }
     }
 
     public void resetToInitialState() {
         synchronized (bufferLock) {
-            for (int i = 0; i < n; i++)
-                System.arraycopy(initialT[i], 0, T[i], 0, n);
+            forEachRowBlock((start, end) -> T.copyRowsFrom(initialT, start, end));
         }
     }
 
@@ -199,6 +375,29 @@ public abstract class AbstractHeatSimulator {
         return (t1 - t0) / 1_000_000_000.0;
     }
 
+    /**
+     * Seleciona o kernel do estêncil (ver StencilKernels).
+     * Deve ser chamado entre passos, nunca durante step().
+     */
+    public void setStencilKernel(StencilKernel kernel) {
+        this.kernel = kernel != null ? kernel : StencilKernels.scalar();
+    }
+
+    public StencilKernel getStencilKernel() {
+        return kernel;
+    }
+
+    /**
+     * Define os tiles da travessia; chamado pelos construtores das subclasses.
+     */
+    protected void setTileSize(TileSize tileSize) {
+        this.tileSize = tileSize != null ? tileSize : TileSize.NONE;
+    }
+
+    public TileSize getTileSize() {
+        return tileSize;
+    }
+
     public int getSize() {
         return n;
     }
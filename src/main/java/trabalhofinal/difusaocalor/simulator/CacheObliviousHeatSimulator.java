@@ -0,0 +1,228 @@
+package trabalhofinal.difusaocalor.simulator;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Versão cache-oblivious do simulador, baseada na decomposição recursiva em
+ * trapézios de espaço-tempo de Frigo e Strumpen.
+ * 
+ * Estratégia:
+ * - O bloco de espaço-tempo (linhas × colunas × passos) é dividido
+ * recursivamente: cortes no espaço quando o trapézio é largo, cortes no tempo
+ * quando é alto
+ * - Em algum nível da recursão o trapézio cabe em cada nível de cache, sem
+ * precisar ajustar tamanhos de tile para a máquina
+ * - Cortes no espaço geram dois trapézios independentes (executados em
+ * paralelo no ForkJoinPool) e um terceiro que depende de ambos: em trapézios
+ * que estreitam, o invertido do meio roda depois; nos que alargam, o
+ * triângulo central roda antes
+ * 
+ * Os níveis de tempo alternam entre os dois buffers (T e newT) pela paridade
+ * do passo; a ordem da recursão respeita todas as dependências, então o
+ * resultado é idêntico bit a bit ao da execução passo a passo.
+ * 
+ * Durante runSteps() os dois buffers contêm níveis intermediários; por isso a
+ * recursão executa com bufferLock adquirido, e leitores de snapshot esperam o
+ * fim da chamada.
+ */
+public class CacheObliviousHeatSimulator extends AbstractHeatSimulator {
+
+    /**
+     * Trapézios com até este número de células (área × passos) são calculados
+     * diretamente, nível a nível.
+     */
+    private static final long BASE_VOLUME = 1L << 14;
+
+    /**
+     * Abaixo deste volume os trapézios independentes rodam na mesma thread
+     * (evita overhead de fork em tarefas pequenas).
+     */
+    private static final long FORK_VOLUME = 1L << 17;
+
+    private final ForkJoinPool pool; // Pool de work-stealing para os trapézios
+
+    public CacheObliviousHeatSimulator(int n, double alpha) {
+        this(n, alpha, Runtime.getRuntime().availableProcessors());
+    }
+
+    public CacheObliviousHeatSimulator(int n, double alpha, int threadCount) {
+        super(n, alpha);
+        this.pool = new ForkJoinPool(Math.max(1, threadCount));
+    }
+
+    @Override
+    protected void computeStep() {
+        computeRows(0, n - 1);
+    }
+
+    /**
+     * Executa todos os passos em uma única decomposição recursiva do bloco
+     * [0, steps) × interior da malha.
+     */
+    @Override
+    public void runSteps(int steps) {
+        if (steps <= 0)
+            return;
+        if (n < 3) {
+            super.runSteps(steps);
+            return;
+        }
+        synchronized (bufferLock) {
+            // Bordas fixas precisam estar nos dois buffers (níveis pares e ímpares)
+            computeEdges(0, n - 1);
+            double coefX = alpha * dt / (dx * dx);
+            double coefY = alpha * dt / (dy * dy);
+            Walk root = new Walk(new double[][] { T.data(), newT.data() }, kernel, coefX, coefY,
+                    0, steps, 1, 0, n - 1, 0, 1, 0, n - 1, 0);
+            pool.invoke(root);
+            // Nível final está em T (steps par) ou em newT (steps ímpar)
+            if ((steps & 1) == 1)
+                swapBuffers();
+        }
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Trapézio de espaço-tempo: passos [t0, t1), linhas [x0 + dx0·τ, x1 + dx1·τ)
+     * e colunas [y0 + dy0·τ, y1 + dy1·τ), com τ = t - t0. Inclinações de ±1
+     * (ou 0 nas bordas da malha).
+     */
+    private final class Walk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final double[][] buffers; // Nível t em buffers[t & 1]
+        private final transient StencilKernel k; // Tarefa nunca é serializada
+        private final double coefX;
+        private final double coefY;
+        private final int t0, t1, x0, dx0, x1, dx1, y0, dy0, y1, dy1;
+
+        Walk(double[][] buffers, StencilKernel k, double coefX, double coefY, int t0, int t1,
+                int x0, int dx0, int x1, int dx1, int y0, int dy0, int y1, int dy1) {
+            this.buffers = buffers;
+            this.k = k;
+            this.coefX = coefX;
+            this.coefY = coefY;
+            this.t0 = t0;
+            this.t1 = t1;
+            this.x0 = x0;
+            this.dx0 = dx0;
+            this.x1 = x1;
+            this.dx1 = dx1;
+            this.y0 = y0;
+            this.dy0 = dy0;
+            this.y1 = y1;
+            this.dy1 = dy1;
+        }
+
+        @Override
+        protected void compute() {
+            int steps = t1 - t0;
+            int wx = x1 - x0; // Largura na base (t0) em linhas
+            int wy = y1 - y0; // Largura na base (t0) em colunas
+            long volume = (long) Math.max(wx, wx + (dx1 - dx0) * steps)
+                    * Math.max(wy, wy + (dy1 - dy0) * steps) * steps;
+            if (steps == 1 || volume <= BASE_VOLUME) {
+                base();
+                return;
+            }
+
+            // Corte no espaço (linhas)
+            if (dx1 - dx0 <= 0) {
+                // Trapézio em pé (estreita ou mantém a largura): dois trapézios em
+                // pé independentes nas laterais + um invertido entre eles
+                int need = (2 + dx0 - dx1) * steps;
+                if (wx >= 2 * need) {
+                    int xm = x0 + (1 + dx0) * steps + (wx - need) / 2;
+                    sidesFirst(volume,
+                            walk(t0, t1, x0, dx0, xm, -1, y0, dy0, y1, dy1),
+                            walk(t0, t1, xm, 1, x1, dx1, y0, dy0, y1, dy1),
+                            walk(t0, t1, xm, -1, xm, 1, y0, dy0, y1, dy1));
+                    return;
+                }
+            } else if (wx >= 2 * steps) {
+                // Trapézio invertido (alarga): triângulo em pé no centro primeiro,
+                // depois as duas laterais independentes
+                int xa = x0 + (wx - 2 * steps) / 2;
+                int xb = xa + 2 * steps;
+                middleFirst(volume,
+                        walk(t0, t1, xa, 1, xb, -1, y0, dy0, y1, dy1),
+                        walk(t0, t1, x0, dx0, xa, 1, y0, dy0, y1, dy1),
+                        walk(t0, t1, xb, -1, x1, dx1, y0, dy0, y1, dy1));
+                return;
+            }
+
+            // Corte no espaço (colunas), mesma lógica
+            if (dy1 - dy0 <= 0) {
+                int need = (2 + dy0 - dy1) * steps;
+                if (wy >= 2 * need) {
+                    int ym = y0 + (1 + dy0) * steps + (wy - need) / 2;
+                    sidesFirst(volume,
+                            walk(t0, t1, x0, dx0, x1, dx1, y0, dy0, ym, -1),
+                            walk(t0, t1, x0, dx0, x1, dx1, ym, 1, y1, dy1),
+                            walk(t0, t1, x0, dx0, x1, dx1, ym, -1, ym, 1));
+                    return;
+                }
+            } else if (wy >= 2 * steps) {
+                int ya = y0 + (wy - 2 * steps) / 2;
+                int yb = ya + 2 * steps;
+                middleFirst(volume,
+                        walk(t0, t1, x0, dx0, x1, dx1, ya, 1, yb, -1),
+                        walk(t0, t1, x0, dx0, x1, dx1, y0, dy0, ya, 1),
+                        walk(t0, t1, x0, dx0, x1, dx1, yb, -1, y1, dy1));
+                return;
+            }
+
+            // Corte no tempo: metade inferior, depois metade superior
+            int s = steps / 2;
+            walk(t0, t0 + s, x0, dx0, x1, dx1, y0, dy0, y1, dy1).compute();
+            walk(t0 + s, t1, x0 + dx0 * s, dx0, x1 + dx1 * s, dx1, y0 + dy0 * s, dy0, y1 + dy1 * s, dy1)
+                    .compute();
+        }
+
+        private void sidesFirst(long volume, Walk left, Walk right, Walk middle) {
+            forkPair(volume, left, right); // Independentes: podem rodar em paralelo
+            middle.compute(); // Depende dos dois
+        }
+
+        private void middleFirst(long volume, Walk middle, Walk left, Walk right) {
+            middle.compute(); // As laterais dependem do centro
+            forkPair(volume, left, right);
+        }
+
+        private void forkPair(long volume, Walk a, Walk b) {
+            if (volume > FORK_VOLUME) {
+                invokeAll(a, b);
+            } else {
+                a.compute();
+                b.compute();
+            }
+        }
+
+        private Walk walk(int t0, int t1, int x0, int dx0, int x1, int dx1, int y0, int dy0, int y1, int dy1) {
+            return new Walk(buffers, k, coefX, coefY, t0, t1, x0, dx0, x1, dx1, y0, dy0, y1, dy1);
+        }
+
+        /**
+         * Caso base: calcula o trapézio nível a nível.
+         */
+        private void base() {
+            for (int t = t0; t < t1; t++) {
+                int tau = t - t0;
+                double[] src = buffers[t & 1];
+                double[] dst = buffers[(t + 1) & 1];
+                int xa = x0 + dx0 * tau;
+                int xb = x1 + dx1 * tau;
+                int ya = y0 + dy0 * tau;
+                int yb = y1 + dy1 * tau;
+                if (yb <= ya)
+                    continue;
+                for (int x = xa; x < xb; x++)
+                    k.computeRow(src, dst, x * n + ya, yb - ya, n, coefX, coefY);
+            }
+        }
+    }
+}
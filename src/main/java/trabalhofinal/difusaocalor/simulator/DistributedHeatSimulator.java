@@ -1,16 +1,25 @@
 package trabalhofinal.difusaocalor.simulator;
 
-import java.rmi.Naming;
 import java.rmi.RemoteException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.Callable;
+import java.util.Queue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import trabalhofinal.difusaocalor.rmi.GorillaCodec;
+import trabalhofinal.difusaocalor.rmi.GridBlock;
 import trabalhofinal.difusaocalor.rmi.Worker;
+import trabalhofinal.difusaocalor.transport.WorkerTransports;
 
 /**
  * Versão distribuída do simulador que delega cálculos para workers RMI remotos.
@@ -19,14 +28,48 @@ import trabalhofinal.difusaocalor.rmi.Worker;
  * - O coordenador (esta classe) divide as linhas da malha entre workers
  * - Cada worker RMI calcula independentemente seu bloco de linhas
  * - Workers podem estar em processos ou máquinas diferentes
- * - Comunicação via Java RMI (Remote Method Invocation)
+ * - Comunicação via Java RMI (Remote Method Invocation) ou, com URLs
+ * tcp://host:porta, pelo protocolo binário sobre SocketChannel (ver
+ * WorkerTransports)
  * 
  * Otimizações implementadas:
  * 1. Cache de matriz: enviada uma única vez no início (initializeMatrix)
  * 2. Blocos compactos: apenas vizinhanças necessárias são transmitidas
- * 3. Batching: múltiplos passos processados por chamada RMI (BATCH_SIZE)
- * 4. Fallback local: se worker falha, calcula localmente
+ * 3. Batching: múltiplos passos processados por chamada RMI, com zona
+ * fantasma de mesma profundidade (resultado exato; ver GhostZone). A
+ * profundidade é escolhida pela razão medida entre o custo fixo de uma
+ * chamada e o tempo de cálculo de uma linha (ou fixada com setGhostDepth)
+ * 4. Fallback local: se worker falha, calcula localmente só aquele lote; o
+ * worker sai da divisão (suas linhas passam aos demais) e a reconexão é
+ * tentada em segundo plano, com espera crescente entre tentativas
  * 5. Execução assíncrona: coordenador aguarda workers com Future/Callable
+ * 6. Modo residente (Mode.RESIDENT_STRIPS): cada worker mantém sua faixa entre
+ * passos e só as linhas fantasma trafegam; a malha completa só é reunida
+ * quando um snapshot é pedido
+ * 7. Modo ponto a ponto (Mode.PEER_TO_PEER): as faixas residentes trocam
+ * linhas fantasma diretamente entre os workers; o coordenador só dispara a
+ * execução, confere o progresso e reúne a malha em snapshots
+ * 8. Compressão sem perdas (GorillaCodec) dos blocos trocados com os workers,
+ * ligada automaticamente quando a banda, e não a latência, limita as
+ * chamadas (ver Compression)
+ * 9. Balanceamento por vazão medida: nos modos sem estado, as fronteiras das
+ * faixas se movem entre lotes para que workers de velocidades diferentes
+ * terminem ao mesmo tempo (ver setLoadBalancing)
+ * 10. Réplicas especulativas: nos modos sem estado, cada chamada tem um prazo
+ * tirado das medidas recentes do worker; a faixa que passa do prazo é
+ * repetida num worker livre ou no coordenador, e vale o primeiro resultado
+ * (ver setHedging)
+ * 11. Coordenador como worker: além de distribuir, o coordenador calcula uma
+ * faixa própria num pool local, ao mesmo tempo que as chamadas remotas, com
+ * tamanho dado por sua vazão medida (ver setCoordinatorCompute)
+ * 12. Sobreposição de comunicação e cálculo no modo ponto a ponto: cada faixa
+ * calcula primeiro suas linhas de borda, envia-as às vizinhas em segundo
+ * plano e calcula o resto enquanto elas trafegam (ver setHaloOverlap)
+ * 13. Várias faixas por worker e chamadas em voo: nos modos sem estado, a
+ * parte de cada worker é cortada em pedaços, com mais de uma chamada em
+ * curso por worker, que calcula o próximo pedaço enquanto o resultado do
+ * anterior volta (ver setStripsPerWorker, setInFlightDepth e
+ * getWorkerUtilization)
  * 
  * Trade-offs:
  * - Overhead de serialização RMI pode dominar em malhas pequenas
@@ -35,29 +78,285 @@ import trabalhofinal.difusaocalor.rmi.Worker;
  */
 public class DistributedHeatSimulator extends AbstractHeatSimulator {
 
+	/**
+	 * Forma de trocar dados com os workers.
+	 */
+	public enum Mode {
+		/**
+		 * Workers sem estado: a cada passo (ou lote) o coordenador envia a faixa
+		 * com vizinhanças e recebe a faixa inteira de volta.
+		 */
+		STATELESS_BLOCKS,
+		/**
+		 * Faixas residentes: cada worker mantém sua faixa entre passos; por
+		 * troca de k passos, cada faixa recebe k linhas fantasma de cada lado
+		 * e devolve suas k primeiras e últimas linhas (4k linhas em vez de
+		 * ~2 × faixa). O interior das faixas remotas só é trazido ao
+		 * coordenador em snapshots.
+		 */
+		RESIDENT_STRIPS,
+		/**
+		 * Faixas residentes que trocam linhas fantasma diretamente entre
+		 * workers vizinhos (connectNeighbors/runPeerSteps): nenhuma linha passa
+		 * pelo coordenador durante a execução, que custa uma chamada por faixa
+		 * para N passos. As faixas são divididas só entre os workers
+		 * disponíveis; sem nenhum, o cálculo é local.
+		 */
+		PEER_TO_PEER
+	}
+
+	/**
+	 * Uso da compressão (GridBlock.withCompression) nos blocos trocados com os
+	 * workers. Os workers respondem com a mesma codificação dos blocos
+	 * recebidos.
+	 */
+	public enum Compression {
+		OFF,
+		ON,
+		/**
+		 * Liga quando o tempo de transferência poupado supera o custo do codec
+		 * (ver updateCompression). A latência fixa de cada chamada não diminui
+		 * com a compressão e fica fora da conta.
+		 */
+		AUTO
+	}
+
+	/**
+	 * Estado de um worker para inspeção: linhas atribuídas, custo medido por
+	 * linha e passo (cálculo e transferência) e latência de uma chamada sem
+	 * dados.
+	 */
+	public static final class WorkerInfo {
+		public final String url;
+		public final int start; // Primeira linha atribuída (0 se nenhuma)
+		public final int end; // Última linha atribuída (-1 se nenhuma)
+		public final double rowNanos; // ≤ 0 se ainda não medido
+		public final double latencyNanos; // < 0 se ainda não sondado
+		public final boolean available; // Conectado (false = fora da divisão, reconectando)
+		public final int failures; // Falhas detectadas desde a criação do simulador
+		public final int threads; // Threads de cálculo informadas pelo worker (getThreadCount)
+
+		WorkerInfo(String url, int start, int end, double rowNanos, double latencyNanos, boolean available,
+				int failures, int threads) {
+			this.url = url;
+			this.start = start;
+			this.end = end;
+			this.rowNanos = rowNanos;
+			this.latencyNanos = latencyNanos;
+			this.available = available;
+			this.failures = failures;
+			this.threads = threads;
+		}
+
+		public int rows() {
+			return end - start + 1;
+		}
+
+		/**
+		 * Linhas calculadas por segundo (linhas × passos), ou 0 se não medido.
+		 */
+		public double rowsPerSecond() {
+			return rowNanos > 0 ? 1e9 / rowNanos : 0;
+		}
+
+		@Override
+		public String toString() {
+			if (!available)
+				return String.format("%s: indisponível, %d falhas", url, failures);
+			return String.format("%s: [%d..%d] %d linhas, %d threads, %.3e linhas/s, latência %.0f µs, %d falhas",
+					url, start, end, rows(), threads, rowsPerSecond(), latencyNanos / 1e3, failures);
+		}
+	}
+
+	/**
+	 * Réplicas especulativas e cauda de latência das faixas sem estado.
+	 * 
+	 * "Original" é a duração das chamadas originais, do envio até a resposta:
+	 * quanto o coordenador esperaria sem réplicas (a cauda antes). "Efetiva" é
+	 * quanto ele esperou de fato por cada faixa, até o primeiro resultado (a
+	 * cauda depois). Percentis sobre as últimas medidas, em ns (NaN sem
+	 * medidas).
+	 */
+	public static final class HedgeStats {
+		public final long calls; // Faixas enviadas a workers
+		public final long hedges; // Faixas replicadas por passarem do prazo
+		public final long hedgeWins; // Faixas resolvidas pela réplica
+		public final double primaryP50;
+		public final double primaryP99;
+		public final double effectiveP50;
+		public final double effectiveP99;
+
+		HedgeStats(long calls, long hedges, long hedgeWins, double primaryP50, double primaryP99,
+				double effectiveP50, double effectiveP99) {
+			this.calls = calls;
+			this.hedges = hedges;
+			this.hedgeWins = hedgeWins;
+			this.primaryP50 = primaryP50;
+			this.primaryP99 = primaryP99;
+			this.effectiveP50 = effectiveP50;
+			this.effectiveP99 = effectiveP99;
+		}
+
+		/**
+		 * Fração das faixas que foram replicadas.
+		 */
+		public double hedgeRate() {
+			return calls > 0 ? (double) hedges / calls : 0;
+		}
+
+		@Override
+		public String toString() {
+			return String.format(
+					"%d faixas, %d réplicas (%.1f%%), %d vencidas pela réplica; original p50 %.2f ms p99 %.2f ms; efetiva p50 %.2f ms p99 %.2f ms",
+					calls, hedges, 100 * hedgeRate(), hedgeWins, primaryP50 / 1e6, primaryP99 / 1e6,
+					effectiveP50 / 1e6, effectiveP99 / 1e6);
+		}
+	}
+
+	/**
+	 * Tempos das faixas no modo ponto a ponto, somados sobre as faixas e as
+	 * chamadas desde o último resetHaloTimings (relatados pelos workers).
+	 * 
+	 * "Comunicação" é a duração dos envios de linhas de borda às vizinhas;
+	 * "exposta" é o tempo em que as faixas ficaram paradas em envios ou
+	 * aguardando as linhas das vizinhas (inclui a espera por vizinhas mais
+	 * lentas). Sem sobreposição, todo envio é exposto.
+	 */
+	public static final class HaloTimings {
+		public final long stripSteps; // Passos avançados, somados sobre as faixas
+		public final long exchanges; // Trocas, somadas sobre as faixas
+		public final long computeNanos; // Cálculo das faixas
+		public final long edgeNanos; // Cálculo antecipado das bordas (com sobreposição)
+		public final long transitNanos; // Duração dos envios às vizinhas
+		public final long exposedNanos; // Faixas paradas em envios ou aguardando vizinhas
+
+		HaloTimings(long stripSteps, long exchanges, long computeNanos, long edgeNanos, long transitNanos,
+				long exposedNanos) {
+			this.stripSteps = stripSteps;
+			this.exchanges = exchanges;
+			this.computeNanos = computeNanos;
+			this.edgeNanos = edgeNanos;
+			this.transitNanos = transitNanos;
+			this.exposedNanos = exposedNanos;
+		}
+
+		/**
+		 * Fração da comunicação escondida atrás do cálculo: 1 - exposta /
+		 * comunicação, limitada a [0, 1].
+		 */
+		public double hiddenFraction() {
+			if (transitNanos <= 0)
+				return 0;
+			return Math.max(0, Math.min(1, 1 - (double) exposedNanos / transitNanos));
+		}
+
+		@Override
+		public String toString() {
+			double steps = Math.max(1, stripSteps);
+			return String.format(
+					"por passo de faixa: cálculo %.1f µs, bordas antecipadas %.1f µs, comunicação %.1f µs, exposta %.1f µs (%.0f%% escondida)",
+					computeNanos / steps / 1e3, edgeNanos / steps / 1e3, transitNanos / steps / 1e3,
+					exposedNanos / steps / 1e3, 100 * hiddenFraction());
+		}
+	}
+
 	private final List<String> workerUrls; // URLs RMI dos workers (rmi://host:port/nome)
 	private final List<Worker> workerCache; // Stubs RMI conectados aos workers
-	private final ExecutorService executor; // Pool para chamadas RMI assíncronas
+	private final ExecutorService executor; // Pool para chamadas RMI assíncronas (várias por worker)
+	private Mode mode = Mode.STATELESS_BLOCKS;
+	private List<int[]> residentRanges; // [worker, s, e] carregadas nos workers (null = não carregadas)
+	private boolean remoteRowsStale = false; // Interior das faixas remotas desatualizado em T
+	private final AtomicLong payloadBytes = new AtomicLong(); // Bytes de temperaturas trafegados
+	private int residentCapacity; // Linhas fantasma carregadas de cada lado das faixas residentes
+	private int residentValidDepth; // Linhas válidas em T junto às fronteiras das faixas remotas
+	private boolean residentStateLost = false; // Faixa perdida numa falha (até o reset)
+
+	/**
+	 * Repetições da medida local do tempo de cálculo de uma linha.
+	 */
+	private static final int CALIBRATION_REPEATS = 300;
+
+	private int ghostDepth = 0; // Profundidade fixa (0 = automática)
+
+	/**
+	 * Repetições da medida local do custo do codec.
+	 */
+	private static final int CODEC_CALIBRATION_REPEATS = 20;
+
+	/**
+	 * Chamadas medidas na sondagem de latência de cada worker.
+	 */
+	private static final int LATENCY_PROBES = 5;
+
+	private Compression compression = Compression.AUTO;
+	private volatile boolean compress = false; // Decisão atual: blocos enviados comprimidos
+
+	/**
+	 * Índice do coordenador nas divisões e medidas por worker (após os
+	 * workers): com setCoordinatorCompute, ele recebe uma faixa própria, com
+	 * latência zero.
+	 */
+	private final int local;
+	private boolean coordinatorCompute = true;
+	private final int localThreads = Runtime.getRuntime().availableProcessors();
+	private final ExecutorService localPool; // Cálculo local: faixa do coordenador e fallbacks
+	private final WorkerCostModel costs; // Medidas dos workers, profundidade k e divisão das linhas
+	private final StripScheduler strips; // Faixas dos modos sem estado (pedaços, réplicas)
 
 	/**
-	 * Número de passos processados por lote em cada worker.
-	 * Reduz chamadas RMI de N para N/BATCH_SIZE (~90% menos overhead).
+	 * Espera antes da primeira tentativa de reconexão a um worker que falhou;
+	 * dobra a cada tentativa sem sucesso, até MAX_RECONNECT_DELAY_MS.
 	 */
-	private static final int BATCH_SIZE = 10;
+	private static final long RECONNECT_DELAY_MS = 500;
+	private static final long MAX_RECONNECT_DELAY_MS = 30_000;
+
+	private final int[] workerFailures; // Falhas detectadas por worker
+	private final boolean[] reconnecting; // Reconexão agendada por worker
+	private final ScheduledExecutorService reconnector = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread t = new Thread(r, "reconexao-workers");
+		t.setDaemon(true);
+		return t;
+	});
+	private final Queue<Reconnected> reconnected = new ConcurrentLinkedQueue<>(); // Prontos para voltar
+
+	/**
+	 * Worker reconectado em segundo plano, aguardando voltar à divisão.
+	 */
+	private record Reconnected(int index, Worker worker, double latencyNanos, int threads) {
+	}
+
+	private boolean haloOverlap = true;
+	private final long[] haloTimings = new long[6]; // Somas de runPeerSteps (ver HaloTimings)
+	private final long[] busyNanos0; // getBusyNanos de cada worker no último resetWorkerUtilization (< 0 = sem leitura)
+	private long utilizationStart; // Instante do último resetWorkerUtilization
 
 	public DistributedHeatSimulator(int n, double alpha, List<String> workerUrls) {
 		super(n, alpha);
 		this.workerUrls = new ArrayList<>(workerUrls);
 		this.workerCache = new ArrayList<>();
-		this.executor = Executors.newFixedThreadPool(Math.max(1, workerUrls.size()));
+		this.executor = Executors.newCachedThreadPool();
+		// Uma posição a mais nas medidas: a do coordenador (índice local)
+		this.local = workerUrls.size();
+		this.costs = new WorkerCostModel(local, localThreads);
+		this.localPool = Executors.newFixedThreadPool(localThreads, r -> {
+			Thread t = new Thread(r, "calculo-coordenador");
+			t.setDaemon(true);
+			return t;
+		});
+		this.workerFailures = new int[workerUrls.size()];
+		this.busyNanos0 = new long[workerUrls.size()];
+		this.reconnecting = new boolean[workerUrls.size()];
+		this.strips = new StripScheduler(this, costs, local, executor, localPool);
 		initializeWorkers();
+		resetWorkerUtilization();
 	}
 
 	/**
 	 * Inicializa conexões com todos os workers RMI.
 	 * 
 	 * Para cada URL fornecida:
-	 * 1. Faz lookup no RMI registry para obter o stub
+	 * 1. Conecta pelo transporte da URL (lookup no RMI registry ou conexão
+	 * binária persistente)
 	 * 2. Envia a matriz inicial (única transmissão completa)
 	 * 3. Se falhar, adiciona null ao cache (será tratado como fallback local)
 	 * 
@@ -67,142 +366,926 @@ public class DistributedHeatSimulator extends AbstractHeatSimulator {
 	private void initializeWorkers() {
 		for (String url : workerUrls) {
 			try {
-				Worker w = (Worker) Naming.lookup(url);
-				workerCache.add(w);
+				Worker w = WorkerTransports.connect(url);
 				// Envia matriz inicial - única transferência completa da simulação
-				w.initializeMatrix(T, n);
+				w.initializeMatrix(extractBlock(T, 0, n - 1));
+				w.selectKernel(kernel.name());
+				costs.setThreads(workerCache.size(), Math.max(1, w.getThreadCount()));
+				// Só entra no cache após configurado (uma entrada por URL)
+				workerCache.add(w);
 			} catch (Exception ex) {
 				System.err.println("Aviso: falha ao conectar com worker " + url + ": " + ex.getMessage());
 				workerCache.add(null); // Marca worker como indisponível
+				scheduleReconnect(workerCache.size() - 1, RECONNECT_DELAY_MS);
 			}
 		}
 	}
 
+	/**
+	 * Tira da divisão o worker de índice i, que falhou numa chamada: libera a
+	 * conexão e agenda a reconexão. Suas linhas passam aos demais workers a
+	 * partir do próximo lote (ver currentAssignment). Chamado só pela thread
+	 * do coordenador.
+	 */
+	void markFailed(int i, Throwable cause) {
+		Worker w = workerCache.get(i);
+		if (w == null)
+			return;
+		System.err.println("Aviso: worker " + workerUrls.get(i) + " falhou ("
+				+ (cause != null ? cause.getMessage() : "sem resposta") + "); linhas redistribuídas");
+		workerCache.set(i, null);
+		WorkerTransports.close(w);
+		synchronized (this) {
+			workerFailures[i]++;
+		}
+		costs.forget(i);
+		scheduleReconnect(i, RECONNECT_DELAY_MS);
+	}
+
+	/**
+	 * Tenta reconectar ao worker i após 'delayMs' (transporte da URL, como em
+	 * initializeWorkers: Naming.lookup no RMI). Em caso de falha, agenda nova
+	 * tentativa com o dobro da espera. O worker reconectado só volta à divisão
+	 * pela thread do coordenador, entre lotes (acceptReconnected).
+	 */
+	private synchronized void scheduleReconnect(int i, long delayMs) {
+		if (reconnecting[i] && delayMs == RECONNECT_DELAY_MS)
+			return; // Já agendada
+		reconnecting[i] = true;
+		try {
+			reconnector.schedule(() -> {
+				Worker w = null;
+				try {
+					w = WorkerTransports.connect(workerUrls.get(i));
+					long best = Long.MAX_VALUE;
+					for (int p = 0; p < LATENCY_PROBES; p++) {
+						long t0 = System.nanoTime();
+						w.selectKernel(kernel.name());
+						best = Math.min(best, System.nanoTime() - t0);
+					}
+					reconnected.add(new Reconnected(i, w, best, Math.max(1, w.getThreadCount())));
+				} catch (Exception ex) {
+					if (w != null)
+						WorkerTransports.close(w);
+					scheduleReconnect(i, Math.min(MAX_RECONNECT_DELAY_MS, 2 * delayMs));
+				}
+			}, delayMs, TimeUnit.MILLISECONDS);
+		} catch (java.util.concurrent.RejectedExecutionException ex) {
+			// Simulador encerrado
+		}
+	}
+
+	/**
+	 * Devolve à divisão os workers reconectados, enviando-lhes a malha atual.
+	 * Nos modos residentes, só quando as faixas vão ser (re)carregadas, pois
+	 * as faixas em curso continuam com a divisão da carga. A divisão volta a
+	 * ser igual e é rebalanceada com as novas medidas.
+	 */
+	private void acceptReconnected() {
+		if (reconnected.isEmpty() || (mode != Mode.STATELESS_BLOCKS && residentRanges != null))
+			return;
+		Reconnected r;
+		while ((r = reconnected.poll()) != null) {
+			synchronized (this) {
+				reconnecting[r.index()] = false;
+			}
+			try {
+				r.worker().initializeMatrix(extractBlock(T, 0, n - 1));
+				r.worker().selectKernel(kernel.name());
+			} catch (RemoteException ex) {
+				WorkerTransports.close(r.worker());
+				scheduleReconnect(r.index(), RECONNECT_DELAY_MS);
+				continue;
+			}
+			workerCache.set(r.index(), r.worker());
+			System.err.println("Aviso: worker " + workerUrls.get(r.index()) + " reconectado");
+			costs.reconnected(r.index(), r.latencyNanos(), r.threads());
+		}
+	}
+
 	public DistributedHeatSimulator(int n, double alpha, String... workerUrls) {
 		this(n, alpha, java.util.Arrays.asList(workerUrls));
 	}
 
 	/**
-	 * Processa um lote de passos distribuindo trabalho entre workers RMI.
-	 * 
-	 * Otimização chave: em vez de fazer N chamadas RMI (uma por passo),
-	 * faz apenas 1 chamada pedindo ao worker processar N passos internamente.
-	 * 
-	 * Algoritmo:
-	 * 1. Divide linhas interiores entre workers disponíveis
-	 * 2. Para cada worker:
-	 * - Extrai bloco compacto (linhas + vizinhanças)
-	 * - Chama computeMultipleSteps(batchSize) de forma assíncrona
-	 * - Se worker falhar ou for null, calcula localmente
-	 * 3. Aguarda todos os Futures completarem
-	 * 4. Mescla resultados em newT
-	 * 5. Faz swap manual de buffers
+	 * Seleciona o kernel localmente (fallback) e em todos os workers conectados.
+	 * Cada worker recorre ao kernel escalar se a Vector API não estiver
+	 * disponível em sua JVM.
+	 */
+	@Override
+	public void setStencilKernel(StencilKernel kernel) {
+		super.setStencilKernel(kernel);
+		for (Worker w : workerCache) {
+			if (w == null)
+				continue;
+			try {
+				w.selectKernel(this.kernel.name());
+			} catch (RemoteException ex) {
+				System.err.println("Aviso: falha ao selecionar kernel no worker: " + ex.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Seleciona o modo de troca de dados com os workers. Ao sair do modo
+	 * residente, as faixas remotas são reunidas em T antes da troca.
+	 * Deve ser chamado entre passos.
+	 */
+	public void setMode(Mode mode) {
+		Mode m = mode != null ? mode : Mode.STATELESS_BLOCKS;
+		if (m == this.mode)
+			return;
+		gatherResidentRows();
+		residentRanges = null;
+		this.mode = m;
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+
+	/**
+	 * Total de bytes de temperaturas enviados e recebidos pelo coordenador
+	 * (conteúdo dos double[], sem o overhead de serialização RMI).
+	 */
+	public long getPayloadBytes() {
+		return payloadBytes.get();
+	}
+
+	public void resetPayloadBytes() {
+		payloadBytes.set(0);
+	}
+
+	/**
+	 * Liga ou desliga o balanceamento por vazão medida nos modos sem estado.
+	 * Desligado, as linhas voltam a ser divididas igualmente. As faixas
+	 * residentes usam a divisão atual quando são (re)carregadas.
+	 */
+	public void setLoadBalancing(boolean enabled) {
+		costs.setLoadBalancing(enabled);
+	}
+
+	public boolean isLoadBalancing() {
+		return costs.isLoadBalancing();
+	}
+
+	/**
+	 * Quantas vezes as fronteiras das faixas foram movidas.
+	 */
+	public int getRebalanceCount() {
+		return costs.getRebalanceCount();
+	}
+
+	/**
+	 * Linhas atribuídas a cada worker (na ordem das URLs) e suas medidas; com
+	 * setCoordinatorCompute, por último a faixa do coordenador (URL
+	 * "coordenador", latência zero).
+	 */
+	public synchronized List<WorkerInfo> getWorkerAssignments() {
+		int[] rows = currentAssignment();
+		List<WorkerInfo> list = new ArrayList<>();
+		int cur = 1;
+		for (int i = 0; i < slots(); i++) {
+			int count = rows != null ? rows[i] : 0;
+			boolean remote = i != local;
+			list.add(new WorkerInfo(remote ? workerUrls.get(i) : "coordenador", count > 0 ? cur : 0,
+					count > 0 ? cur + count - 1 : -1, costs.rowNanos(i), costs.probedLatency(i), available(i),
+					remote ? workerFailures[i] : 0, costs.threads(i)));
+			cur += count;
+		}
+		return list;
+	}
+
+	/**
+	 * Liga ou desliga a faixa própria do coordenador (ver Mode): ligada, ele
+	 * entra na divisão das linhas como mais um worker, com o peso de seus
+	 * núcleos até haver medidas, e calcula sua faixa num pool local enquanto
+	 * aguarda os workers. No modo ponto a ponto as faixas ficam só nos
+	 * workers. Deve ser chamado entre passos.
+	 */
+	public void setCoordinatorCompute(boolean enabled) {
+		gatherResidentRows();
+		residentRanges = null;
+		synchronized (this) {
+			coordinatorCompute = enabled;
+		}
+		costs.resetAssignment();
+	}
+
+	public synchronized boolean isCoordinatorCompute() {
+		return coordinatorCompute;
+	}
+
+	/**
+	 * Participantes da divisão das linhas: os workers e, se ligado, o
+	 * coordenador (índice local).
+	 */
+	private synchronized int slots() {
+		return workerCache.size() + (coordinatorCompute ? 1 : 0);
+	}
+
+	/**
+	 * Se o participante i pode receber linhas: o coordenador sempre, um
+	 * worker se conectado.
+	 */
+	private boolean available(int i) {
+		return i == local || workerCache.get(i) != null;
+	}
+
+	/**
+	 * Worker do participante i, ou null para o coordenador e workers
+	 * indisponíveis (faixas calculadas localmente).
+	 */
+	Worker worker(int i) {
+		return i < workerCache.size() ? workerCache.get(i) : null;
+	}
+
+	/**
+	 * Liga ou desliga as réplicas especulativas de faixas atrasadas nos modos
+	 * sem estado (ver computeStrips). Os modos residentes não são replicados:
+	 * stepStrip avança o estado da faixa no worker e não pode ser repetido.
+	 */
+	public void setHedging(boolean enabled) {
+		strips.setHedging(enabled);
+	}
+
+	public boolean isHedging() {
+		return strips.isHedging();
+	}
+
+	/**
+	 * Réplicas feitas e cauda de latência das faixas desde o último
+	 * resetHedgeStats.
+	 */
+	public HedgeStats getHedgeStats() {
+		return strips.getHedgeStats();
+	}
+
+	public void resetHedgeStats() {
+		strips.resetHedgeStats();
+	}
+
+	/**
+	 * Liga ou desliga, no modo ponto a ponto, a sobreposição dos envios de
+	 * linhas de borda ao cálculo das faixas (Worker.runPeerSteps com
+	 * overlap). O resultado é o mesmo; com ela, cada troca calcula as bordas
+	 * duas vezes.
+	 */
+	public synchronized void setHaloOverlap(boolean enabled) {
+		this.haloOverlap = enabled;
+	}
+
+	public synchronized boolean isHaloOverlap() {
+		return haloOverlap;
+	}
+
+	/**
+	 * Tempos de cálculo e comunicação das faixas no modo ponto a ponto desde
+	 * o último resetHaloTimings.
+	 */
+	public synchronized HaloTimings getHaloTimings() {
+		return new HaloTimings(haloTimings[0], haloTimings[1], haloTimings[2], haloTimings[3], haloTimings[4],
+				haloTimings[5]);
+	}
+
+	public synchronized void resetHaloTimings() {
+		Arrays.fill(haloTimings, 0);
+	}
+
+	/**
+	 * Fixa em quantos pedaços a parte de cada worker é cortada nos modos sem
+	 * estado (1 = uma faixa por worker). Cada pedaço é uma chamada com sua
+	 * própria zona fantasma: mais pedaços deixam o worker calcular um
+	 * enquanto outro trafega, ao custo de k - 1 linhas redundantes e uma
+	 * chamada a mais por pedaço.
+	 */
+	public void setStripsPerWorker(int strips) {
+		this.strips.setStripsPerWorker(strips);
+	}
+
+	public int getStripsPerWorker() {
+		return strips.getStripsPerWorker();
+	}
+
+	/**
+	 * Fixa quantas chamadas (pedaços) cada worker tem em curso ao mesmo tempo
+	 * nos modos sem estado; quando uma volta, o próximo pedaço do worker é
+	 * enviado. Com 1, o worker fica parado durante a ida e a volta de cada
+	 * chamada.
+	 */
+	public void setInFlightDepth(int depth) {
+		strips.setInFlightDepth(depth);
+	}
+
+	public int getInFlightDepth() {
+		return strips.getInFlightDepth();
+	}
+
+	/**
+	 * Recomeça a medida de utilização dos workers (getWorkerUtilization).
+	 */
+	public synchronized void resetWorkerUtilization() {
+		for (int i = 0; i < workerCache.size(); i++)
+			busyNanos0[i] = readBusyNanos(i);
+		utilizationStart = System.nanoTime();
+	}
+
+	/**
+	 * Fração do tempo, desde o último resetWorkerUtilization, em que cada
+	 * worker teve algum cálculo em curso (Worker.getBusyNanos), na ordem das
+	 * URLs; NaN para workers indisponíveis no início ou no fim do período.
+	 */
+	public synchronized double[] getWorkerUtilization() {
+		double elapsed = System.nanoTime() - utilizationStart;
+		double[] utilization = new double[workerCache.size()];
+		for (int i = 0; i < utilization.length; i++) {
+			long busy = readBusyNanos(i);
+			utilization[i] = busy < 0 || busyNanos0[i] < 0 || elapsed <= 0 ? Double.NaN
+					: Math.min(1, (busy - busyNanos0[i]) / elapsed);
+		}
+		return utilization;
+	}
+
+	/**
+	 * Tempo ocupado do worker i, ou -1 se indisponível (a falha não o tira da
+	 * divisão: isso fica para as chamadas de cálculo).
+	 */
+	private long readBusyNanos(int i) {
+		Worker w = workerCache.get(i);
+		if (w == null)
+			return -1;
+		try {
+			return w.getBusyNanos();
+		} catch (RemoteException ex) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Seleciona o uso de compressão. No modo ponto a ponto, as faixas são
+	 * recarregadas para que os workers passem a trocar blocos na nova
+	 * codificação. Deve ser chamado entre passos.
+	 */
+	public void setCompression(Compression compression) {
+		this.compression = compression != null ? compression : Compression.AUTO;
+		applyCompression(this.compression == Compression.ON);
+	}
+
+	public Compression getCompression() {
+		return compression;
+	}
+
+	/**
+	 * Se os blocos estão sendo trocados comprimidos (decisão atual do modo
+	 * AUTO, ou a fixada).
+	 */
+	public boolean isCompressing() {
+		return compress;
+	}
+
+	/**
+	 * Fixa a profundidade k dos lotes: passos por chamada RMI, com zona
+	 * fantasma de k linhas (resultado idêntico a k passos simples). Use 0
+	 * para a escolha automática.
+	 */
+	public void setGhostDepth(int depth) {
+		if (depth < 0)
+			throw new IllegalArgumentException("profundidade deve ser ≥ 0");
+		this.ghostDepth = depth;
+		// Faixas residentes precisam ser recarregadas com a nova capacidade
+		gatherResidentRows();
+		residentRanges = null;
+	}
+
+	/**
+	 * Se a profundidade k foi fixada por setGhostDepth (senão é automática).
+	 */
+	public boolean isGhostDepthFixed() {
+		return ghostDepth > 0;
+	}
+
+	/**
+	 * Profundidade que será usada no próximo lote: a fixada, ou a escolhida
+	 * pelo modelo de custo (ver WorkerCostModel.ghostDepth).
+	 */
+	public int getGhostDepth() {
+		return ghostDepth > 0 ? ghostDepth : costs.ghostDepth();
+	}
+
+	/**
+	 * No modo AUTO, reavalia se a compressão compensa, entre lotes (ver
+	 * WorkerCostModel.compressionPays).
+	 */
+	private void updateCompression() {
+		if (compression != Compression.AUTO)
+			return;
+		calibrateCodec();
+		applyCompression(costs.compressionPays(compress));
+	}
+
+	/**
+	 * Aplica a decisão de compressão. Os blocos enviados pelo coordenador já
+	 * carregam a nova codificação; no modo ponto a ponto, as faixas são
+	 * reunidas e recarregadas, pois as trocas entre workers usam a
+	 * codificação da carga.
+	 */
+	private void applyCompression(boolean on) {
+		if (on == compress)
+			return;
+		costs.markCodecCounters();
+		compress = on;
+		if (mode == Mode.PEER_TO_PEER) {
+			gatherResidentRows();
+			residentRanges = null;
+		}
+	}
+
+	/**
+	 * Mede localmente o custo do codec por byte (codificar e decodificar
+	 * algumas linhas de T, menor de várias medidas, como em
+	 * calibrateRowNanos) e a razão de compressão dessa amostra, e sonda a
+	 * latência dos workers com chamadas sem dados (selectKernel).
+	 */
+	private void calibrateCodec() {
+		if (costs.hasCodecCost() || n < 1)
+			return;
+		int rows = Math.min(n, 16);
+		double[] sample = new double[rows * n];
+		System.arraycopy(T.data(), 0, sample, 0, sample.length);
+		long best = Long.MAX_VALUE;
+		long[] words = null;
+		for (int r = 0; r < CODEC_CALIBRATION_REPEATS; r++) {
+			long t0 = System.nanoTime();
+			words = GorillaCodec.encode(sample);
+			GorillaCodec.decode(words, sample.length);
+			best = Math.min(best, System.nanoTime() - t0);
+		}
+		probeLatencies();
+		costs.setCodecCost(Math.max(1e-3, (double) best / (8L * sample.length)),
+				(double) sample.length / Math.max(1, words.length));
+	}
+
+	/**
+	 * Sonda, uma vez, a latência de cada worker: a menor duração de algumas
+	 * chamadas sem dados (selectKernel). Faixas sem worker são calculadas pelo
+	 * coordenador, com latência zero.
+	 */
+	private void probeLatencies() {
+		if (costs.hasLatencies())
+			return;
+		double[] latencies = new double[local + 1];
+		long min = Long.MAX_VALUE;
+		for (int i = 0; i < local; i++) {
+			Worker w = workerCache.get(i);
+			if (w == null)
+				continue;
+			long best = Long.MAX_VALUE;
+			for (int p = 0; p < LATENCY_PROBES; p++) {
+				try {
+					long t0 = System.nanoTime();
+					w.selectKernel(kernel.name());
+					best = Math.min(best, System.nanoTime() - t0);
+				} catch (RemoteException ex) {
+					break;
+				}
+			}
+			latencies[i] = best != Long.MAX_VALUE ? best : 0;
+			min = Math.min(min, best);
+		}
+		costs.setLatencies(latencies, min != Long.MAX_VALUE ? min : 0);
+	}
+
+	/**
+	 * Linhas interiores de cada participante (ver WorkerCostModel.assignment).
+	 */
+	private int[] currentAssignment() {
+		return costs.assignment(Math.max(0, n - 2), slots(), this::available);
+	}
+
+	/**
+	 * Mede localmente o tempo de cálculo de uma linha, com o kernel atual,
+	 * sobre uma cópia de algumas linhas de T (assume workers de desempenho
+	 * semelhante ao do coordenador). Repete o bastante para o JIT compilar o
+	 * kernel e fica com a menor medida.
+	 */
+	private void calibrateRowNanos() {
+		if (costs.hasRowNanos() || n < 3)
+			return;
+		int rows = Math.min(n, 18);
+		double[] a = new double[rows * n];
+		System.arraycopy(T.data(), 0, a, 0, a.length);
+		double[] b = a.clone();
+		double coefX = alpha * dt / (dx * dx);
+		double coefY = alpha * dt / (dy * dy);
+		long best = Long.MAX_VALUE;
+		for (int r = 0; r < CALIBRATION_REPEATS; r++) {
+			long t0 = System.nanoTime();
+			GhostZone.advance(a, b, n, 0, 1, rows - 2, 1, kernel, coefX, coefY);
+			best = Math.min(best, System.nanoTime() - t0);
+		}
+		costs.setRowNanos(Math.max(1.0, (double) best / (rows - 2)));
+	}
+
+	/**
+	 * Divide as linhas interiores entre os workers (divisão igual ou a
+	 * balanceada por vazão; ver currentAssignment).
 	 * 
-	 * @param batchSize número de passos a processar em lote
+	 * @return lista de {índice do worker, primeira linha, última linha}
 	 */
-	private void computeStepBatch(int batchSize) {
+	private List<int[]> interiorRanges() {
+		List<int[]> list = new ArrayList<>();
 		int interior = Math.max(0, n - 2);
+		if (interior == 0 || workerCache.isEmpty())
+			return list;
+		int[] rows = currentAssignment();
+		int cur = 1;
+		for (int i = 0; i < rows.length && cur <= n - 2; i++) {
+			if (rows[i] <= 0)
+				continue;
+			list.add(new int[] { i, cur, cur + rows[i] - 1 });
+			cur += rows[i];
+		}
+		return list;
+	}
 
-		// Fallback: se não há interior ou workers, calcula tudo localmente
-		if (interior == 0 || workerCache.isEmpty()) {
-			for (int b = 0; b < batchSize; b++) {
-				localCompute(1, n - 2);
-				swapBuffersManually();
+	/**
+	 * Carrega as faixas nos workers, se ainda não carregadas (início, após
+	 * reset ou mudança de bordas). Cada faixa leva linhas fantasma para a
+	 * maior profundidade permitida. Worker que falhar na carga passa a ser
+	 * tratado como indisponível e sua faixa é calculada localmente.
+	 */
+	private void ensureResident() {
+		checkResidentState();
+		if (residentRanges != null)
+			return;
+		acceptReconnected();
+		List<int[]> ranges = mode == Mode.PEER_TO_PEER ? peerRanges() : interiorRanges();
+		int capacity = ghostDepth > 0 ? ghostDepth : WorkerCostModel.MAX_GHOST_DEPTH;
+		boolean failed = false;
+		for (int[] r : ranges) {
+			Worker w = worker(r[0]);
+			if (w == null)
+				continue;
+			try {
+				int first = GhostZone.firstRow(r[1], capacity);
+				GridBlock rows = extractBlock(T, first, GhostZone.lastRow(r[2], capacity, n));
+				w.loadStrip(r[1], r[2], rows);
+				payloadBytes.addAndGet(8L * rows.data().length);
+			} catch (RemoteException ex) {
+				System.err.println("Aviso: falha ao carregar faixa no worker: " + ex.getMessage());
+				markFailed(r[0], ex);
+				failed = true;
 			}
+		}
+		if (mode == Mode.PEER_TO_PEER && !failed)
+			failed = !connectPeers(ranges);
+		if (mode == Mode.PEER_TO_PEER && failed) {
+			// Sem faixas locais no modo ponto a ponto: redivide entre os que
+			// restaram
+			ensureResident();
 			return;
 		}
+		residentRanges = ranges;
+		residentCapacity = capacity;
+		residentValidDepth = capacity; // T inteiro está válido após a carga
+		remoteRowsStale = false;
+		calibrateRowNanos();
+	}
 
-		// Divide linhas interiores entre workers (balanceamento)
-		int workers = workerCache.size();
-		int base = interior / workers;
-		int rem = interior % workers;
-
-		List<Future<WorkerResult>> futures = new ArrayList<>();
+	/**
+	 * Divide as linhas interiores só entre os workers disponíveis (modo ponto
+	 * a ponto, em que toda faixa precisa de um worker para trocar linhas com
+	 * as vizinhas).
+	 * 
+	 * @return lista de {índice do worker, primeira linha, última linha}
+	 */
+	private List<int[]> peerRanges() {
+		List<Integer> available = new ArrayList<>();
+		for (int i = 0; i < workerCache.size(); i++) {
+			if (workerCache.get(i) != null)
+				available.add(i);
+		}
+		List<int[]> list = new ArrayList<>();
+		int interior = Math.max(0, n - 2);
+		int workers = Math.min(available.size(), interior);
+		int cur = 1;
+		for (int i = 0; i < workers; i++) {
+			int chunk = interior / workers + (i < interior % workers ? 1 : 0);
+			list.add(new int[] { available.get(i), cur, cur + chunk - 1 });
+			cur += chunk;
+		}
+		return list;
+	}
 
-		int cur = 1; // Linha inicial atual
-		for (int i = 0; i < workers && cur <= n - 2; i++) {
-			// Primeiros 'rem' workers recebem uma linha extra
-			int chunk = base + (i < rem ? 1 : 0);
-			if (chunk <= 0) {
-				break;
+	/**
+	 * Informa a cada faixa as URLs dos workers das faixas vizinhas. Worker que
+	 * falhar passa a ser tratado como indisponível.
+	 * 
+	 * @return false se algum worker falhou
+	 */
+	private boolean connectPeers(List<int[]> ranges) {
+		boolean ok = true;
+		for (int i = 0; i < ranges.size(); i++) {
+			int[] r = ranges.get(i);
+			String up = i > 0 ? workerUrls.get(ranges.get(i - 1)[0]) : null;
+			int upStart = i > 0 ? ranges.get(i - 1)[1] : 0;
+			String down = i + 1 < ranges.size() ? workerUrls.get(ranges.get(i + 1)[0]) : null;
+			try {
+				workerCache.get(r[0]).connectNeighbors(r[1], r[2], up, upStart, down);
+			} catch (RemoteException ex) {
+				System.err.println("Aviso: falha ao conectar faixas vizinhas no worker: " + ex.getMessage());
+				markFailed(r[0], ex);
+				ok = false;
 			}
-			int start = cur;
-			int end = Math.min(n - 2, cur + chunk - 1);
-			Worker w = workerCache.get(i);
-			final int s = start;
-			final int e = end;
-
-			// Se worker indisponível, calcula localmente
-			if (w == null) {
-				for (int b = 0; b < batchSize; b++) {
-					localCompute(s, e);
-					swapBuffersManually();
+		}
+		return ok;
+	}
+
+	/**
+	 * Avança 'steps' passos no modo ponto a ponto: uma chamada runPeerSteps
+	 * por faixa, todas ao mesmo tempo (o executor cria threads sob demanda),
+	 * com trocas de profundidade getGhostDepth() diretamente entre os
+	 * workers, sobrepostas ao cálculo se isHaloOverlap(). Ao fim confere que
+	 * todas as faixas relatam o mesmo progresso e soma os tempos relatados
+	 * (getHaloTimings).
+	 * 
+	 * Como no modo residente, sem fallback local: se um worker falhar, o
+	 * estado de sua faixa se perde e a execução termina com
+	 * IllegalStateException. Os resultados são aguardados na ordem em que
+	 * chegam, e a primeira falha encerra a espera (as chamadas restantes são
+	 * canceladas): as vizinhas da faixa perdida ficariam paradas até o
+	 * próprio timeout aguardando linhas que não virão.
+	 */
+	private void runPeers(int steps) {
+		int depth = Math.min(getGhostDepth(), stripDepthLimit());
+		int exchanges = (steps + depth - 1) / depth;
+		boolean overlap = isHaloOverlap();
+		CompletionService<long[]> completion = new ExecutorCompletionService<>(executor);
+		List<Future<long[]>> futures = new ArrayList<>();
+		for (int[] r : residentRanges) {
+			Worker w = workerCache.get(r[0]);
+			int s = r[1];
+			int e = r[2];
+			int index = futures.size();
+			futures.add(completion.submit(() -> {
+				long t0 = System.nanoTime();
+				long[] timings = w.runPeerSteps(s, e, alpha, dx, dy, dt, steps, depth, overlap);
+				long callNanos = System.nanoTime() - t0;
+				synchronized (this) {
+					haloTimings[0] += steps;
+					for (int t = 1; t < haloTimings.length; t++)
+						haloTimings[t] += timings[t];
 				}
-				cur = end + 1;
-				continue;
+				return new long[] { timings[0], callNanos, index };
+			}));
+		}
+		remoteRowsStale = true;
+		long[][] results = new long[futures.size()][];
+		for (int done = 0; done < futures.size(); done++) {
+			Future<long[]> next = null;
+			try {
+				next = completion.take();
+				long[] result = next.get();
+				results[(int) result[2]] = result;
+			} catch (InterruptedException | ExecutionException ex) {
+				int failed = next != null ? futures.indexOf(next) : -1;
+				for (Future<long[]> f : futures)
+					f.cancel(true);
+				if (failed < 0) {
+					// Interrompido esperando: nenhum worker falhou, mas o estado
+					// das faixas é incerto
+					Thread.currentThread().interrupt();
+					residentRanges = null;
+					remoteRowsStale = false;
+					residentStateLost = true;
+					throw new IllegalStateException("Interrompido no modo ponto a ponto; estado perdido", ex);
+				}
+				int[] r = residentRanges.get(failed);
+				residentLost(r[0], ex.getCause());
+				throw new IllegalStateException(
+						"Worker da faixa [" + r[1] + ", " + r[2] + "] falhou no modo ponto a ponto; estado perdido",
+						ex);
 			}
+		}
+		long progress = -1;
+		for (int i = 0; i < results.length; i++) {
+			int[] r = residentRanges.get(i);
+			long[] result = results[i];
+			if (progress >= 0 && result[0] != progress)
+				throw new IllegalStateException("Faixas com progresso divergente: " + progress + " e " + result[0]);
+			progress = result[0];
+			// Custo por troca, para a escolha automática da profundidade: cada
+			// faixa envia e recebe 'depth' linhas de cada lado
+			costs.recordCall(r[0], result[1] / exchanges, depth, r[2] - r[1] + 1, 4L * depth * n * 8, compress);
+		}
+	}
 
-			// Cria tarefa assíncrona para chamar worker via RMI
-			Callable<WorkerResult> task = () -> {
+	/**
+	 * Maior profundidade possível na próxima troca residente: limitada pelas
+	 * linhas fantasma carregadas, pelas linhas válidas em T junto às
+	 * fronteiras e pela menor faixa (as linhas fantasma de uma faixa precisam
+	 * vir de uma única vizinha).
+	 */
+	private int residentDepthLimit() {
+		return Math.min(residentValidDepth, stripDepthLimit());
+	}
+
+	/**
+	 * Quantas linhas de borda uma faixa pode devolver: limitado pelas linhas
+	 * fantasma carregadas e pela menor faixa.
+	 */
+	private int stripDepthLimit() {
+		int limit = residentCapacity;
+		for (int[] r : residentRanges)
+			limit = Math.min(limit, r[2] - r[1] + 1);
+		return Math.max(1, limit);
+	}
+
+	/**
+	 * Avança 'depth' passos no modo residente, escrevendo em newT.
+	 * 
+	 * O coordenador atua como ponto de troca: envia a cada faixa remota as
+	 * 'depth' linhas de cada lado no passo atual (linhas de borda de faixas
+	 * vizinhas ou linhas extremas, válidas em T) e grava em newT as linhas de
+	 * borda devolvidas. Faixas sem worker e as linhas 0 e n-1 são calculadas
+	 * localmente, em paralelo com as chamadas RMI.
+	 * 
+	 * Cada faixa devolve 'returned' ≥ depth linhas de cada lado, para que a
+	 * próxima troca possa usar essa profundidade.
+	 * 
+	 * Sem fallback local: se um worker falhar, o estado de sua faixa se perde
+	 * e o passo termina com IllegalStateException.
+	 */
+	private void advanceResident(int depth) {
+		int returned = Math.max(depth, Math.min(getGhostDepth(), stripDepthLimit()));
+		List<Future<WorkerResult>> futures = new ArrayList<>();
+		List<Integer> futureWorkers = new ArrayList<>();
+		for (int[] r : residentRanges) {
+			Worker w = worker(r[0]);
+			if (w == null)
+				continue;
+			futureWorkers.add(r[0]);
+			int s = r[1];
+			int e = r[2];
+			GridBlock before = extractBlock(T, s - depth, s - 1);
+			GridBlock after = extractBlock(T, e + 1, e + depth);
+			futures.add(executor.submit(() -> {
 				try {
-					// Extrai bloco compacto: [s-1, s, s+1, ..., e-1, e, e+1]
-					// Inclui vizinhanças necessárias para o cálculo
-					double[][] compactBlock = extractBlock(T, s - 1, e + 1);
-
-					// Chamada RMI: processa batchSize passos remotamente
-					double[][] resultBlock = w.computeMultipleSteps(compactBlock, s, e, alpha, dx, dy, dt, batchSize);
-					return new WorkerResult(s, e, resultBlock, null);
-				} catch (RemoteException re) {
-					// Falha de comunicação RMI - será tratada como fallback
-					return new WorkerResult(s, e, null, re);
+					long t0 = System.nanoTime();
+					GridBlock rows = w.stepStrip(s, e, before, after, alpha, dx, dy, dt, depth, returned);
+					long bytes = 8L * (before.data().length + after.data().length + rows.data().length);
+					costs.recordCall(r[0], System.nanoTime() - t0, depth, e - s + 1, bytes, compress);
+					payloadBytes.addAndGet(bytes);
+					return new WorkerResult(s, e, rows, null);
 				} catch (Exception ex) {
 					return new WorkerResult(s, e, null, ex);
 				}
-			};
-
-			futures.add(executor.submit(task));
-			cur = end + 1;
+			}));
 		}
+		for (int[] r : residentRanges) {
+			if (worker(r[0]) != null)
+				continue;
+			long t0 = System.nanoTime();
+			localComputeBatch(r[1], r[2], depth);
+			costs.recordWorker(r[0], System.nanoTime() - t0, depth, r[2] - r[1] + 1);
+		}
+		localCompute(0, 0);
+		localCompute(n - 1, n - 1);
 
-		// Aguarda e processa resultados de todos os workers
-		for (Future<WorkerResult> f : futures) {
+		for (int k = 0; k < futures.size(); k++) {
+			WorkerResult r;
 			try {
-				WorkerResult r = f.get(); // Bloqueia até worker terminar
-				if (r.exception == null && r.block != null) {
-					// Sucesso: mescla resultado do worker em newT
-					int rows = r.e - r.s + 1;
-					for (int i = 0; i < rows; i++) {
-						System.arraycopy(r.block[i], 0, newT[r.s + i], 0, n);
-					}
-				} else {
-					// Falha: worker retornou exceção, calcula localmente
-					for (int b = 0; b < batchSize; b++) {
-						localCompute(r.s, r.e);
-						swapBuffersManually();
-					}
-				}
-			} catch (InterruptedException | ExecutionException e) {
-				// Exceção ao aguardar Future: fallback completo
-				for (int b = 0; b < batchSize; b++) {
-					localCompute(1, n - 2);
-					swapBuffersManually();
+				r = futures.get(k).get();
+			} catch (InterruptedException | ExecutionException ex) {
+				residentLost(futureWorkers.get(k), ex.getCause());
+				throw new IllegalStateException("Falha aguardando worker no modo residente", ex);
+			}
+			if (r.exception != null || r.block == null) {
+				residentLost(futureWorkers.get(k), r.exception);
+				throw new IllegalStateException(
+						"Worker da faixa [" + r.s + ", " + r.e + "] falhou no modo residente; estado perdido",
+						r.exception);
+			}
+			// Bloco com as 'returned' primeiras linhas da faixa e as 'returned' últimas
+			int half = returned * n;
+			System.arraycopy(r.block.data(), 0, newT.data(), r.s * n, half);
+			System.arraycopy(r.block.data(), half, newT.data(), (r.e - returned + 1) * n, half);
+		}
+		residentValidDepth = returned;
+		remoteRowsStale = true;
+	}
+
+	/**
+	 * Registra a perda de uma faixa residente: o worker sai da divisão (ver
+	 * markFailed) e a simulação fica sem estado válido até
+	 * resetToInitialState, pois o interior das faixas só existia nos workers.
+	 */
+	private void residentLost(int worker, Throwable cause) {
+		markFailed(worker, cause);
+		residentRanges = null;
+		remoteRowsStale = false;
+		residentStateLost = true;
+	}
+
+	private void checkResidentState() {
+		if (residentStateLost)
+			throw new IllegalStateException("Faixa residente perdida na falha de um worker; reinicie a simulação");
+	}
+
+	/**
+	 * Traz para T o interior das faixas residentes remotas, se desatualizado.
+	 */
+	private void gatherResidentRows() {
+		synchronized (bufferLock) {
+			if (!remoteRowsStale || residentRanges == null)
+				return;
+			for (int[] r : residentRanges) {
+				Worker w = worker(r[0]);
+				if (w == null)
+					continue;
+				try {
+					GridBlock rows = w.getStripBlock(r[1], r[2]);
+					payloadBytes.addAndGet(8L * rows.data().length);
+					rows.copyTo(T.data());
+				} catch (RemoteException ex) {
+					// Interior da faixa perdido com o worker: recusa novos passos
+					// até o reset, em vez de voltar a usar a faixa morta
+					residentLost(r[0], ex);
+					throw new IllegalStateException("Falha ao reunir a faixa [" + r[1] + ", " + r[2] + "]", ex);
 				}
 			}
+			remoteRowsStale = false;
+			residentValidDepth = residentCapacity;
 		}
-		// Após processar batch completo, sincroniza buffers
-		swapBuffersManually();
 	}
 
 	/**
-	 * Troca buffers T ↔ newT de forma segura e aplica condições de contorno.
-	 * Usado após processar um lote completo de passos.
+	 * No modo residente, reúne antes as faixas remotas (única transferência
+	 * da malha completa).
 	 */
-	private void swapBuffersManually() {
+	@Override
+	public double[][] getTemperatureCopy() {
+		gatherResidentRows();
+		return super.getTemperatureCopy();
+	}
+
+	@Override
+	public void resetToInitialState() {
 		synchronized (bufferLock) {
-			for (int i = 0; i < n; i++)
-				System.arraycopy(newT[i], 0, T[i], 0, n);
+			super.resetToInitialState();
+			// Faixas residentes serão recarregadas a partir do estado inicial
+			residentRanges = null;
+			remoteRowsStale = false;
+			residentStateLost = false;
 		}
-		applyBoundaries(T);
+	}
+
+	@Override
+	public void setBoundaryFlags(boolean cima, boolean baixo, boolean esquerda, boolean direita) {
+		gatherResidentRows();
+		super.setBoundaryFlags(cima, baixo, esquerda, direita);
+		residentRanges = null;
+	}
+
+	/**
+	 * Processa um lote de passos distribuindo trabalho entre workers RMI.
+	 * 
+	 * Otimização chave: em vez de fazer N chamadas RMI (uma por passo),
+	 * faz apenas 1 chamada pedindo ao worker processar N passos internamente.
+	 * 
+	 * Algoritmo:
+	 * 1. Divide linhas interiores entre workers disponíveis
+	 * 2. Para cada worker:
+	 * - Extrai bloco compacto (linhas + zona fantasma de batchSize linhas)
+	 * - Chama computeGhostZoneSteps(batchSize) de forma assíncrona
+	 * - Se worker falhar ou for null, calcula localmente
+	 * 3. Aguarda os resultados, replicando as faixas que passam do prazo
+	 * (ver computeStrips)
+	 * 4. Mescla resultados em newT e escreve as linhas extremas (0 e n-1)
+	 * 5. Troca T ↔ newT por referência
+	 * 
+	 * Durante todo o lote T permanece somente leitura, de modo que o fallback
+	 * local pode rodar ao mesmo tempo que as tarefas RMI extraem seus blocos.
+	 * 
+	 * @param batchSize número de passos a processar em lote
+	 */
+	private void computeStepBatch(int batchSize) {
+		int interior = Math.max(0, n - 2);
+
+		// Fallback: se não há interior ou workers, calcula tudo localmente
+		if (interior == 0 || workerCache.isEmpty()) {
+			for (int b = 0; b < batchSize; b++) {
+				localCompute(0, n - 1);
+				swapBuffers();
+			}
+			return;
+		}
+
+		computeStrips(batchSize);
+		// Linhas extremas não mudam ao longo do lote: uma passada basta
+		localCompute(0, 0);
+		localCompute(n - 1, n - 1);
+		swapBuffers();
 	}
 
 	/**
@@ -212,103 +1295,129 @@ public class DistributedHeatSimulator extends AbstractHeatSimulator {
 	 */
 	@Override
 	protected void computeStep() {
+		checkResidentState();
+		if (mode == Mode.RESIDENT_STRIPS) {
+			ensureResident();
+			advanceResident(1);
+			return;
+		}
+		if (mode == Mode.PEER_TO_PEER) {
+			ensureResident();
+			if (!residentRanges.isEmpty()) {
+				// Interior fica nos workers; só as linhas extremas vão a newT
+				runPeers(1);
+				localCompute(0, 0);
+				localCompute(n - 1, n - 1);
+				return;
+			}
+		}
 		int interior = Math.max(0, n - 2);
 		if (interior == 0 || workerCache.isEmpty()) {
-			localCompute(1, n - 2);
+			localCompute(0, n - 1);
 			return;
 		}
 
-		int workers = workerCache.size();
-		int base = interior / workers;
-		int rem = interior % workers;
-
-		List<Future<WorkerResult>> futures = new ArrayList<>();
+		computeStrips(1);
+		// Linhas extremas (bordas superior e inferior) são escritas pelo coordenador
+		localCompute(0, 0);
+		localCompute(n - 1, n - 1);
+	}
 
-		int cur = 1;
-		for (int i = 0; i < workers && cur <= n - 2; i++) {
-			int chunk = base + (i < rem ? 1 : 0);
-			if (chunk <= 0) {
-				break;
-			}
-			int start = cur;
-			int end = Math.min(n - 2, cur + chunk - 1);
-			Worker w = workerCache.get(i);
-			final int s = start;
-			final int e = end;
+	/**
+	 * Calcula as faixas interiores nos workers sem estado (ver
+	 * StripScheduler.computeStrips), com a divisão rebalanceada pela vazão
+	 * medida, e grava o resultado em newT.
+	 */
+	private void computeStrips(int k) {
+		acceptReconnected();
+		probeLatencies();
+		costs.rebalance(k, Math.max(0, n - 2), slots(), this::available);
+		strips.computeStrips(interiorRanges(), k);
+	}
 
-			if (w == null) {
-				localCompute(s, e);
-				cur = end + 1;
-				continue;
-			}
+	/**
+	 * Cálculo local de uma faixa do lote, gravado em newT.
+	 */
+	void localStrip(int s, int e, int k) {
+		if (k == 1)
+			localCompute(s, e);
+		else
+			localComputeBatch(s, e, k);
+	}
 
-			Callable<WorkerResult> task = () -> {
-				try {
-					// Envia apenas o bloco necessário (startRow-1 até endRow+1) para reduzir
-					// overhead
-					double[][] compactBlock = extractBlock(T, s - 1, e + 1);
-					double[][] resultBlock = w.computeBlock(compactBlock, s, e, alpha, dx, dy, dt);
-					return new WorkerResult(s, e, resultBlock, null);
-				} catch (RemoteException re) {
-					return new WorkerResult(s, e, null, re);
-				} catch (Exception ex) {
-					return new WorkerResult(s, e, null, ex);
-				}
-			};
+	/**
+	 * Linhas [s, e] de T com zona fantasma de k linhas de cada lado (limitada
+	 * à malha), para uma chamada sem estado.
+	 */
+	GridBlock ghostZoneBlock(int s, int e, int k) {
+		return extractBlock(T, GhostZone.firstRow(s, k), GhostZone.lastRow(e, k, n));
+	}
 
-			futures.add(executor.submit(task));
-			cur = end + 1;
-		}
+	/**
+	 * Grava em newT o bloco calculado de uma faixa.
+	 */
+	void mergeBlock(GridBlock block) {
+		block.copyTo(newT.data());
+	}
 
-		for (Future<WorkerResult> f : futures) {
-			try {
-				WorkerResult r = f.get();
-				if (r.exception == null && r.block != null) {
-					int rows = r.e - r.s + 1;
-					for (int i = 0; i < rows; i++) {
-						System.arraycopy(r.block[i], 0, newT[r.s + i], 0, n);
-					}
-				} else {
-					localCompute(r.s, r.e);
-				}
-			} catch (InterruptedException | ExecutionException e) {
-				Throwable cause = e.getCause();
-				System.err.println("Worker futuro falhou: " + (cause != null ? cause : e));
-				localCompute(1, n - 2);
-			}
-		}
+	void addPayloadBytes(long bytes) {
+		payloadBytes.addAndGet(bytes);
 	}
 
 	/**
 	 * Sobrescreve runSteps() para aplicar otimização de batching.
 	 * 
 	 * Em vez de fazer N passos individuais com N chamadas RMI,
-	 * agrupa em lotes de BATCH_SIZE passos. Exemplo:
+	 * agrupa em lotes de k passos (getGhostDepth(), reavaliada a cada lote).
+	 * Exemplo com k = 10:
 	 * - 200 passos → 20 lotes de 10 (200 chamadas RMI → 20 chamadas)
 	 * - Redução de ~90% no overhead de comunicação
 	 * 
+	 * Os lotes usam zona fantasma de k linhas, então o resultado é idêntico
+	 * ao de passos simples. No modo residente, cada lote é uma troca de
+	 * linhas fantasma de profundidade k; no ponto a ponto, todos os passos
+	 * vão numa única chamada por faixa e T não é trocado (seu interior fica
+	 * desatualizado até o próximo snapshot).
+	 * 
 	 * @param steps número total de passos a executar
 	 */
 	@Override
 	public void runSteps(int steps) {
-		int fullBatches = steps / BATCH_SIZE; // Lotes completos
-		int remainder = steps % BATCH_SIZE; // Passos restantes
-
-		// Processa lotes completos
-		for (int i = 0; i < fullBatches; i++) {
-			computeStepBatch(BATCH_SIZE);
+		checkResidentState();
+		if (mode == Mode.PEER_TO_PEER && steps > 0) {
+			updateCompression();
+			ensureResident();
+			if (!residentRanges.isEmpty()) {
+				runPeers(steps);
+				return;
+			}
 		}
-
-		// Processa passos restantes (se houver)
-		if (remainder > 0) {
-			computeStepBatch(remainder);
+		if (mode == Mode.RESIDENT_STRIPS) {
+			int remaining = steps;
+			while (remaining > 0) {
+				updateCompression();
+				ensureResident();
+				int depth = Math.min(remaining, Math.min(getGhostDepth(), residentDepthLimit()));
+				advanceResident(depth);
+				swapBuffers();
+				remaining -= depth;
+			}
+			return;
+		}
+		calibrateRowNanos();
+		int remaining = steps;
+		while (remaining > 0) {
+			updateCompression();
+			int depth = Math.min(remaining, getGhostDepth());
+			computeStepBatch(depth);
+			remaining -= depth;
 		}
 	}
 
 	/**
 	 * Calcula um bloco de linhas localmente (fallback quando worker falha).
-	 * Idêntico ao código do SequentialHeatSimulator, mas para um intervalo
-	 * específico.
+	 * Usa o mesmo passo fundido do SequentialHeatSimulator (computeRows), mas
+	 * para um intervalo específico.
 	 * 
 	 * @param start primeira linha a calcular
 	 * @param end   última linha a calcular
@@ -316,16 +1425,38 @@ public class DistributedHeatSimulator extends AbstractHeatSimulator {
 	private void localCompute(int start, int end) {
 		if (start > end)
 			return;
-		double coefX = alpha * dt / (dx * dx);
-		double coefY = alpha * dt / (dy * dy);
-		for (int i = start; i <= end; i++) {
-			for (int j = 1; j < n - 1; j++) {
-				double t = T[i][j];
-				double tx = T[i + 1][j] - 2 * t + T[i - 1][j];
-				double ty = T[i][j + 1] - 2 * t + T[i][j - 1];
-				newT[i][j] = t + coefX * tx + coefY * ty;
-			}
-		}
+		computeRows(start, end);
+	}
+
+	/**
+	 * Fallback local de um lote: avança a faixa [start, end] por batchSize
+	 * passos com zona fantasma, exatamente como o worker faria em
+	 * computeGhostZoneSteps, e grava o resultado em newT.
+	 */
+	private void localComputeBatch(int start, int end, int batchSize) {
+		if (start > end)
+			return;
+		localBlock(start, end, batchSize).copyTo(newT.data());
+	}
+
+	/**
+	 * Avança a faixa [start, end] por depth passos com zona fantasma, com as
+	 * linhas de cada passo divididas entre as threads do pool local.
+	 * 
+	 * Usa buffers próprios para não tocar em T, que ainda está sendo lido
+	 * pelas demais tarefas do lote.
+	 * 
+	 * @return linhas [start, end] após depth passos
+	 */
+	GridBlock localBlock(int start, int end, int depth) {
+		int first = GhostZone.firstRow(start, depth);
+		int rows = GhostZone.lastRow(end, depth, n) - first + 1;
+		double[] current = new double[rows * n];
+		System.arraycopy(T.data(), first * n, current, 0, rows * n);
+		double[] result = GhostZone.advance(current, current.clone(), n, first, start, end, depth, kernel,
+				alpha * dt / (dx * dx), alpha * dt / (dy * dy), localPool, localThreads);
+		return new GridBlock(start, end - start + 1, n,
+				Arrays.copyOfRange(result, (start - first) * n, (end + 1 - first) * n));
 	}
 
 	/**
@@ -344,20 +1475,13 @@ public class DistributedHeatSimulator extends AbstractHeatSimulator {
 	 * @param mat      matriz fonte
 	 * @param startRow primeira linha a extrair (incluindo vizinhança)
 	 * @param endRow   última linha a extrair (incluindo vizinhança)
-	 * @return bloco compacto [startRow..endRow] × [0..n-1]
+	 * @return bloco compacto [startRow..endRow] × [0..n-1] (vazio se
+	 *         startRow > endRow)
 	 */
-	private double[][] extractBlock(double[][] mat, int startRow, int endRow) {
+	private GridBlock extractBlock(HeatGrid mat, int startRow, int endRow) {
 		startRow = Math.max(0, startRow);
 		endRow = Math.min(n - 1, endRow);
-		if (startRow > endRow)
-			return new double[0][];
-
-		int rows = endRow - startRow + 1;
-		double[][] block = new double[rows][n];
-		for (int i = 0; i < rows; i++) {
-			System.arraycopy(mat[startRow + i], 0, block[i], 0, n);
-		}
-		return block;
+		return GridBlock.copyOf(mat.data(), n, startRow, endRow).withCompression(compress);
 	}
 
 	@Override
@@ -373,10 +1497,10 @@ public class DistributedHeatSimulator extends AbstractHeatSimulator {
 	private static class WorkerResult {
 		final int s;
 		final int e;
-		final double[][] block;
+		final GridBlock block;
 		final Throwable exception;
 
-		WorkerResult(int s, int e, double[][] block, Throwable exception) {
+		WorkerResult(int s, int e, GridBlock block, Throwable exception) {
 			this.s = s;
 			this.e = e;
 			this.block = block;
@@ -386,5 +1510,12 @@ public class DistributedHeatSimulator extends AbstractHeatSimulator {
 
 	public void shutdown() {
 		executor.shutdownNow();
+		strips.shutdown();
+		localPool.shutdownNow();
+		reconnector.shutdownNow();
+		for (Worker w : workerCache) {
+			if (w != null)
+				WorkerTransports.close(w);
+		}
 	}
 }
@@ -0,0 +1,149 @@
+package trabalhofinal.difusaocalor.simulator;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Avanço exato de uma faixa de linhas por vários passos usando uma zona
+ * fantasma (ghost zone) de profundidade igual ao número de passos.
+ *
+ * Para a faixa de saída [startRow, endRow] e profundidade d, o bloco precisa
+ * conter as linhas [startRow-d, endRow+d] (limitadas à malha) no passo atual.
+ * No passo s (1..d) são calculadas as linhas [startRow-d+s, endRow+d-s]: a
+ * região válida encolhe uma linha por passo de cada lado, e ao fim as linhas
+ * da faixa têm exatamente os valores de d passos simples. As linhas vizinhas
+ * são recalculadas por faixas adjacentes (computação redundante), em troca de
+ * uma única troca de dados a cada d passos.
+ *
+ * Linhas e colunas extremas da malha (0 e n-1) não mudam entre passos, por
+ * isso valem como vizinhança em qualquer passo (mesma regra de
+ * TemporalBlockingEngine, aqui só na direção das linhas).
+ *
+ * Usado pelo coordenador distribuído e pelos workers RMI. Os workers dividem
+ * as linhas de cada passo entre threads locais (advance com pool).
+ */
+public final class GhostZone {
+
+    /**
+     * Menor número de células por tarefa ao dividir as linhas de um passo
+     * entre threads (como o grão mínimo de ParallelHeatSimulator).
+     */
+    private static final int MIN_TASK_CELLS = 4096;
+
+    private GhostZone() {
+    }
+
+    /**
+     * Avança a faixa [startRow, endRow] em depth passos.
+     *
+     * Os dois buffers guardam linhas da malha a partir da linha global
+     * baseRow (largura n) e devem ter as mesmas colunas extremas, que o kernel
+     * nunca escreve. O conteúdo de 'next' nas linhas calculadas é descartável.
+     *
+     * @param current buffer com o passo atual (linhas [startRow-depth,
+     *                endRow+depth] válidas)
+     * @param next    buffer de rascunho, do mesmo tamanho
+     * @param baseRow linha global correspondente à linha 0 dos buffers
+     * @return o buffer que contém o resultado (current ou next)
+     */
+    public static double[] advance(double[] current, double[] next, int n, int baseRow, int startRow, int endRow,
+            int depth, StencilKernel k, double coefX, double coefY) {
+        return advance(current, next, n, baseRow, startRow, endRow, depth, k, coefX, coefY, null, 1);
+    }
+
+    /**
+     * Como advance, com as linhas de cada passo divididas em até 'tasks'
+     * blocos calculados ao mesmo tempo: tasks - 1 no pool e um pela thread
+     * chamadora. Cada passo só começa quando todos os blocos do anterior
+     * terminam (uma rodada por passo, como em ParallelHeatSimulator). O
+     * resultado é idêntico ao sequencial.
+     *
+     * @param pool  threads auxiliares (null = só a thread chamadora)
+     * @param tasks número máximo de blocos por passo
+     */
+    public static double[] advance(double[] current, double[] next, int n, int baseRow, int startRow, int endRow,
+            int depth, StencilKernel k, double coefX, double coefY, ExecutorService pool, int tasks) {
+        double[] cur = current;
+        double[] nxt = next;
+        for (int s = 1; s <= depth; s++) {
+            int i0 = Math.max(1, startRow - depth + s);
+            int i1 = Math.min(n - 2, endRow + depth - s);
+            computeRows(cur, nxt, n, baseRow, i0, i1, k, coefX, coefY, pool, tasks);
+            double[] tmp = cur;
+            cur = nxt;
+            nxt = tmp;
+        }
+        return cur;
+    }
+
+    /**
+     * Calcula as linhas globais [i0, i1] de um passo (de src para dst, com
+     * linha 0 dos buffers = baseRow), divididas em até 'tasks' blocos: tasks -
+     * 1 no pool e o último pela thread chamadora, que aguarda os demais.
+     * Blocos têm ao menos MIN_TASK_CELLS células.
+     */
+    public static void computeRows(double[] src, double[] dst, int n, int baseRow, int i0, int i1, StencilKernel k,
+            double coefX, double coefY, ExecutorService pool, int tasks) {
+        int rows = i1 - i0 + 1;
+        if (rows <= 0)
+            return;
+        int chunks = pool == null ? 1
+                : Math.max(1, Math.min(Math.min(tasks, rows), (int) ((long) rows * n / MIN_TASK_CELLS)));
+        if (chunks == 1) {
+            for (int i = i0; i <= i1; i++)
+                k.computeRow(src, dst, (i - baseRow) * n + 1, n - 2, n, coefX, coefY);
+            return;
+        }
+
+        // Mesma divisão de ParallelHeatSimulator: os primeiros blocos levam
+        // uma linha a mais
+        CountDownLatch latch = new CountDownLatch(chunks - 1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        int base = rows / chunks;
+        int remainder = rows % chunks;
+        int start = i0;
+        for (int c = 0; c < chunks - 1; c++) {
+            int first = start;
+            int last = first + base + (c < remainder ? 1 : 0) - 1;
+            pool.execute(() -> {
+                try {
+                    for (int i = first; i <= last; i++)
+                        k.computeRow(src, dst, (i - baseRow) * n + 1, n - 2, n, coefX, coefY);
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                } finally {
+                    latch.countDown();
+                }
+            });
+            start = last + 1;
+        }
+        for (int i = start; i <= i1; i++)
+            k.computeRow(src, dst, (i - baseRow) * n + 1, n - 2, n, coefX, coefY);
+
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Parallel computation interrupted", e);
+        }
+        if (failure.get() != null)
+            throw new RuntimeException("Falha no cálculo paralelo das linhas", failure.get());
+    }
+
+    /**
+     * Primeira linha do bloco necessário para avançar uma faixa que começa em
+     * startRow por depth passos.
+     */
+    public static int firstRow(int startRow, int depth) {
+        return Math.max(0, startRow - depth);
+    }
+
+    /**
+     * Última linha do bloco necessário para avançar uma faixa que termina em
+     * endRow por depth passos, numa malha n×n.
+     */
+    public static int lastRow(int endRow, int depth, int n) {
+        return Math.min(n - 1, endRow + depth);
+    }
+}
@@ -0,0 +1,114 @@
+package trabalhofinal.difusaocalor.simulator;
+
+import java.util.Arrays;
+
+/**
+ * Malha quadrada de temperaturas armazenada em um único vetor contíguo.
+ *
+ * Layout row-major: a célula (i, j) fica na posição i * stride + j, onde
+ * stride = n. Em comparação com double[n][n]:
+ * - Elimina a indireção por ponteiro de linha (e sua verificação de limites)
+ * - Linhas vizinhas ficam adjacentes na memória (melhor uso de cache e
+ * prefetch)
+ * - Facilita a auto-vetorização do laço interno pelo JIT
+ *
+ * Os laços de estêncil acessam data() diretamente e navegam com deslocamentos
+ * de ±1 (vizinhos na linha) e ±stride (vizinhos na coluna).
+ */
+public final class HeatGrid {
+
+    private final int n; // Dimensão da malha quadrada (n×n)
+    private final double[] data; // Células em ordem row-major
+
+    public HeatGrid(int n) {
+        if (n <= 0)
+            throw new IllegalArgumentException("n deve ser positivo");
+        // n² células num único vetor: limitado ao maior vetor que a JVM aloca
+        if ((long) n * n > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("n = " + n + " excede o tamanho máximo de malha contígua ("
+                    + (int) Math.sqrt(Integer.MAX_VALUE - 8) + ")");
+        this.n = n;
+        this.data = new double[n * n];
+    }
+
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Distância (em posições do vetor) entre duas linhas consecutivas.
+     */
+    public int stride() {
+        return n;
+    }
+
+    public int index(int i, int j) {
+        return i * n + j;
+    }
+
+    public double get(int i, int j) {
+        return data[i * n + j];
+    }
+
+    public void set(int i, int j, double value) {
+        data[i * n + j] = value;
+    }
+
+    /**
+     * Vetor de apoio, exposto para os laços de estêncil.
+     * Alterações no vetor retornado alteram a malha.
+     */
+    public double[] data() {
+        return data;
+    }
+
+    public void fill(double value) {
+        Arrays.fill(data, value);
+    }
+
+    /**
+     * Preenche as linhas [startRow, endRow] com o valor dado.
+     */
+    public void fillRows(int startRow, int endRow, double value) {
+        if (startRow > endRow)
+            return;
+        Arrays.fill(data, startRow * n, (endRow + 1) * n, value);
+    }
+
+    public void copyFrom(HeatGrid other) {
+        System.arraycopy(other.data, 0, data, 0, data.length);
+    }
+
+    /**
+     * Copia as linhas [startRow, endRow] de outra malha de mesma dimensão.
+     */
+    public void copyRowsFrom(HeatGrid other, int startRow, int endRow) {
+        if (startRow > endRow)
+            return;
+        System.arraycopy(other.data, startRow * n, data, startRow * n, (endRow - startRow + 1) * n);
+    }
+
+    public void copyRowTo(int i, double[] dest) {
+        System.arraycopy(data, i * n, dest, 0, n);
+    }
+
+    public void setRow(int i, double[] src) {
+        System.arraycopy(src, 0, data, i * n, n);
+    }
+
+    /**
+     * Extrai as linhas [startRow, endRow] como matriz independente.
+     */
+    public double[][] copyRows(int startRow, int endRow) {
+        if (startRow > endRow)
+            return new double[0][];
+        double[][] rows = new double[endRow - startRow + 1][n];
+        for (int i = 0; i < rows.length; i++)
+            System.arraycopy(data, (startRow + i) * n, rows[i], 0, n);
+        return rows;
+    }
+
+    public double[][] toMatrix() {
+        return copyRows(0, n - 1);
+    }
+}
@@ -0,0 +1,50 @@
+package trabalhofinal.difusaocalor.simulator;
+
+import java.util.Arrays;
+
+/**
+ * Janela circular com as últimas medidas (durações ou custos por linha), da
+ * qual se tiram percentis.
+ *
+ * Usada pelo DistributedHeatSimulator para os prazos das chamadas aos
+ * workers e para o relatório da cauda de latência. Não é sincronizada: quem
+ * a usa protege o acesso.
+ */
+final class LatencyWindow {
+
+    private final double[] values;
+    private int count; // Medidas guardadas (até a capacidade)
+    private int next; // Posição da próxima medida
+
+    LatencyWindow(int capacity) {
+        this.values = new double[capacity];
+    }
+
+    void add(double value) {
+        values[next] = value;
+        next = (next + 1) % values.length;
+        count = Math.min(count + 1, values.length);
+    }
+
+    int size() {
+        return count;
+    }
+
+    /**
+     * Percentil (0 a 100) das medidas guardadas, pelo método nearest-rank
+     * (como BenchmarkUtil.percentile), ou NaN se vazia.
+     */
+    double percentile(double p) {
+        if (count == 0)
+            return Double.NaN;
+        double[] sorted = Arrays.copyOf(values, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(p / 100.0 * count);
+        return sorted[Math.max(0, Math.min(count - 1, rank - 1))];
+    }
+
+    void clear() {
+        count = 0;
+        next = 0;
+    }
+}
@@ -5,20 +5,40 @@ import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 /**
  * Versão paralelizada (multi-thread) do simulador de difusão de calor.
  * 
  * Estratégia de paralelização:
- * - Divide as linhas interiores da malha em blocos contíguos
- * - Cada thread processa independentemente um bloco de linhas
- * - Usa ExecutorService com pool de threads fixo
- * - CountDownLatch garante sincronização: todas as threads terminam antes do
- * swap de buffers
+ * - Divide as linhas da malha em blocos contíguos, um por thread
+ * - Cada passo lê de T e escreve em newT; a sincronização entre passos
+ * depende do escalonamento (Scheduling):
+ * - PER_STEP_TASKS: uma rodada de tarefas por passo num ExecutorService de
+ * pool fixo; um CountDownLatch garante que todas as threads terminam antes
+ * do swap de buffers
+ * - PERSISTENT_BARRIER: runSteps() entrega a cada thread o laço de passos
+ * inteiro, sincronizado por uma barreira reutilizável compartilhada em vez
+ * de submeter tarefas a cada passo
+ * - NEIGHBOR_SYNC: cada thread espera apenas os contadores de progresso das
+ * duas faixas vizinhas, sem barreira global
+ * - WORK_STEALING: o interior é dividido recursivamente em muito mais blocos
+ * do que threads, balanceados por roubo de tarefas num ForkJoinPool
+ * - Opcionalmente (setRebalanceInterval), as fronteiras das faixas são
+ * redistribuídas periodicamente em proporção à vazão medida de cada faixa
+ * - Inicialização, reset e cópia de snapshot usam a mesma partição de linhas
+ * do cálculo (first-touch alinhado à thread dona de cada faixa)
+ * - Opcionalmente (Decomposition.BLOCKS_2D), cada thread recebe um bloco de
+ * uma grade px × py de threads em vez de uma faixa de largura total
  * 
  * Vantagens:
  * - Explora paralelismo de dados (data parallelism)
- * - Sem dependências entre threads (cada uma lê de T e escreve em newT)
+ * - Dentro de um passo, as threads não dependem umas das outras (cada uma lê
+ * de T e escreve em newT); só a passagem de um passo ao seguinte é
+ * sincronizada, globalmente ou apenas entre vizinhas
  * - Escalabilidade proporcional ao número de núcleos da CPU
  * 
  * Ideal para máquinas multi-core quando a malha é suficientemente grande
@@ -26,73 +46,761 @@ import java.util.concurrent.Executors;
  */
 public class ParallelHeatSimulator extends AbstractHeatSimulator {
 
+    /**
+     * Forma de distribuir os passos de runSteps() entre as threads.
+     */
+    public enum Scheduling {
+        /**
+         * Uma rodada de tarefas por passo, aguardada com CountDownLatch.
+         */
+        PER_STEP_TASKS,
+        /**
+         * Uma tarefa longa por faixa para todos os passos; as threads se
+         * sincronizam a cada passo por uma barreira spin-then-park.
+         */
+        PERSISTENT_BARRIER,
+        /**
+         * Uma tarefa longa por faixa; antes de cada passo a faixa espera apenas
+         * que as faixas vizinhas tenham concluído o passo anterior (contadores
+         * de progresso ponto a ponto). Threads vizinhas podem se afastar em até
+         * um passo, e faixas distantes em até um passo por faixa entre elas,
+         * absorvendo atrasos momentâneos de uma thread sem parar todas.
+         * Executa um passo por vez (ignora o bloqueio temporal).
+         */
+        NEIGHBOR_SYNC,
+        /**
+         * A cada passo, o interior é dividido recursivamente (linhas e colunas)
+         * até o tamanho de grão, gerando muito mais tarefas do que threads; o
+         * ForkJoinPool redistribui os blocos por roubo de tarefas, de modo que
+         * uma thread preemptada ou um núcleo lento não seguram o passo inteiro.
+         * Executa um passo por vez (ignora o bloqueio temporal).
+         */
+        WORK_STEALING
+    }
+
+    /**
+     * Forma de dividir a malha entre as threads.
+     */
+    public enum Decomposition {
+        /**
+         * Uma faixa de linhas de largura total por thread.
+         */
+        ROW_STRIPS,
+        /**
+         * Grade de py × px blocos, um por thread, escolhida para minimizar o
+         * perímetro de halo (px + py mínimo entre os fatores do número de
+         * threads). Conjunto de trabalho de cada thread menor que uma faixa de
+         * largura total, o que alivia a L3 compartilhada em malhas grandes.
+         * Executa um passo por vez, e algumas opções deixam de valer (sem
+         * erro; ver setDecomposition): o bloqueio temporal e o
+         * reparticionamento adaptativo são ignorados, NEIGHBOR_SYNC passa a
+         * usar a barreira persistente (PERSISTENT_BARRIER) e os tiles de cache
+         * não são aplicados dentro dos blocos.
+         */
+        BLOCKS_2D
+    }
+
+    // Grão padrão: ~OVERSPLIT blocos por thread, com no mínimo MIN_GRAIN células
+    private static final int OVERSPLIT = 16;
+    private static final int MIN_GRAIN = 4096;
+
+    /**
+     * Estado de uma faixa para inspeção: linhas atuais e tempo médio de cálculo
+     * por passo (sem esperas de sincronização) desde o último rebalanceamento.
+     */
+    public static final class RangeInfo {
+        public final int start;
+        public final int end;
+        public final int firstCol; // Colunas do bloco (0 e n-1 em faixas)
+        public final int lastCol;
+        public final double meanStepNanos;
+
+        RangeInfo(int start, int end, int firstCol, int lastCol, double meanStepNanos) {
+            this.start = start;
+            this.end = end;
+            this.firstCol = firstCol;
+            this.lastCol = lastCol;
+            this.meanStepNanos = meanStepNanos;
+        }
+
+        public int rows() {
+            return end - start + 1;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("[%d..%d]×[%d..%d] %d linhas, %.0f ns/passo", start, end, firstCol, lastCol,
+                    rows(), meanStepNanos);
+        }
+    }
+
     private final ExecutorService executor; // Pool de threads para cálculos paralelos
-    private final List<LineRange> ranges; // Divisão de linhas entre threads
+    private volatile List<LineRange> ranges; // Divisão da malha entre threads (trocada só entre passos)
+    private final Object rangesLock = new Object(); // Protege as fronteiras das faixas
+    private Decomposition decomposition = Decomposition.ROW_STRIPS;
+    private int blockRows = 1; // Dimensões da grade de threads (py × px)
+    private int blockCols = 1;
+    private TemporalBlocking temporalBlocking = TemporalBlocking.NONE;
+    private Scheduling scheduling = Scheduling.PER_STEP_TASKS;
+    private boolean recordStepTimes = false; // Registra o tempo de cada passo por thread
+    private final int workerCount;
+    private ForkJoinPool forkJoinPool; // Criado sob demanda para WORK_STEALING
+    private int grainSize = 0; // Células por bloco em WORK_STEALING (0 = padrão)
+    private int rebalanceInterval = 0; // Passos entre rebalanceamentos (0 = faixas fixas)
+    private int stepsSinceRebalance = 0;
+    private int rebalanceCount = 0;
+    private final boolean parallelGridAccess; // Init/reset/snapshot na partição do cálculo
+    // Impede que init/reset/snapshot usem o pool enquanto threads persistentes o
+    // ocupam (a barreira troca buffers sob bufferLock, que o snapshot detém)
+    private final ReentrantLock poolAccess = new ReentrantLock();
 
     public ParallelHeatSimulator(int n, double alpha) {
         this(n, alpha, Runtime.getRuntime().availableProcessors());
     }
 
     public ParallelHeatSimulator(int n, double alpha, int threadCount) {
+        this(n, alpha, threadCount, TileSize.NONE);
+    }
+
+    /**
+     * @param threadCount número de threads do pool
+     * @param tileSize    tiles de cache aplicados dentro da faixa de cada thread
+     *                    (TileSize.NONE para percorrer linha a linha)
+     */
+    public ParallelHeatSimulator(int n, double alpha, int threadCount, TileSize tileSize) {
+        this(n, alpha, threadCount, tileSize, true);
+    }
+
+    /**
+     * @param parallelGridAccess se true, inicialização, reset e cópia de
+     *                           snapshot são feitos pelas threads do pool, cada
+     *                           uma nas linhas de sua faixa de cálculo; se false,
+     *                           pela thread chamadora (comportamento anterior)
+     */
+    public ParallelHeatSimulator(int n, double alpha, int threadCount, TileSize tileSize,
+            boolean parallelGridAccess) {
         super(n, alpha);
+        setTileSize(tileSize);
         int workers = Math.max(1, threadCount);
+        this.workerCount = workers;
         this.executor = Executors.newFixedThreadPool(workers);
         this.ranges = buildRanges(workers);
+        this.blockRows = ranges.size();
+        this.parallelGridAccess = parallelGridAccess;
+        if (parallelGridAccess) {
+            // O construtor base já inicializou pela thread chamadora (o pool
+            // ainda não existia); reescreve as malhas pelas threads donas
+            initDefault();
+            copyToInitial();
+        }
     }
 
     /**
-     * Divide as linhas interiores da malha em blocos balanceados para as threads.
+     * Executa a ação nas faixas de cálculo, cada uma pela thread do pool, para
+     * que as páginas de cada faixa sejam tocadas primeiro pela thread que as
+     * calcula (em máquinas NUMA, alocadas no nó dessa thread, se a JVM e o SO
+     * aplicarem first-touch; ex.: -XX:+UseNUMA).
+     * 
+     * Usa a thread chamadora durante a construção, com parallelGridAccess
+     * desativado ou quando threads persistentes ocupam o pool.
+     */
+    @Override
+    protected void forEachRowBlock(RowBlockAction action) {
+        if (executor == null || !parallelGridAccess || !poolAccess.tryLock()) {
+            super.forEachRowBlock(action);
+            return;
+        }
+        try {
+            // Fronteiras lidas de uma vez: um rebalanceamento concorrente não
+            // pode deixar linhas de fora ou repetidas. Em blocos 2D, só os blocos
+            // da primeira coluna (que cobrem todas as linhas) executam a ação
+            List<LineRange> list = ranges;
+            int[][] bounds = new int[list.size()][];
+            synchronized (rangesLock) {
+                for (LineRange range : list)
+                    if (range.firstCol == 0)
+                        bounds[range.index] = new int[] { range.start, range.end };
+            }
+            runOnRanges(list, range -> {
+                int[] b = bounds[range.index];
+                if (b != null)
+                    action.apply(b[0], b[1]);
+            });
+        } finally {
+            poolAccess.unlock();
+        }
+    }
+
+    public boolean isParallelGridAccess() {
+        return parallelGridAccess;
+    }
+
+    /**
+     * Divide as linhas da malha em blocos balanceados para as threads.
+     * 
+     * As linhas de borda (0 e n-1) entram no primeiro e no último bloco, pois o
+     * passo fundido (computeRows) também as escreve em newT.
      * 
      * Algoritmo de balanceamento:
-     * - Calcula número de linhas interiores (n-2, excluindo bordas)
+     * - Considera todas as n linhas da malha
      * - Divide em no máximo 'workers' blocos (pode ser menos se houver poucas
      * linhas)
      * - Distribui linhas extras uniformemente: primeiros blocos recebem +1 linha
      * 
-     * Exemplo: 100 linhas interiores, 3 threads -> [34 linhas, 33 linhas, 33
-     * linhas]
+     * Exemplo: 100 linhas, 3 threads -> [34 linhas, 33 linhas, 33 linhas]
      * 
      * @param workers número de threads no pool
      * @return lista de ranges, cada um definindo [startRow, endRow] para uma thread
      */
     private List<LineRange> buildRanges(int workers) {
         List<LineRange> list = new ArrayList<>();
-        int interiorStart = 1; // Primeira linha interior
-        int interiorEnd = n - 2; // Última linha interior
-        if (interiorEnd < interiorStart)
-            return list; // Malha muito pequena (n <= 2)
-
-        int interior = interiorEnd - interiorStart + 1;
-        int maxChunks = Math.min(workers, interior); // Não criar mais threads que linhas
-        int base = interior / maxChunks; // Linhas por bloco (base)
-        int remainder = interior % maxChunks; // Linhas extras a distribuir
+        int maxChunks = Math.min(workers, n); // Não criar mais threads que linhas
+        int base = n / maxChunks; // Linhas por bloco (base)
+        int remainder = n % maxChunks; // Linhas extras a distribuir
 
-        int current = interiorStart;
+        int current = 0;
         for (int i = 0; i < maxChunks; i++) {
             // Primeiros 'remainder' blocos recebem uma linha extra
             int size = base + (i < remainder ? 1 : 0);
             int start = current;
             int end = start + size - 1;
-            list.add(new LineRange(start, end));
+            list.add(new LineRange(i, start, end, 0, n - 1));
             current = end + 1;
         }
         return list;
     }
 
+    /**
+     * Divide a malha numa grade de rows × cols blocos balanceados (mesma regra
+     * de buildRanges em cada eixo), numerados linha a linha da grade.
+     */
+    private List<LineRange> buildBlocks(int rows, int cols) {
+        List<LineRange> list = new ArrayList<>();
+        int rowStart = 0;
+        for (int bi = 0; bi < rows; bi++) {
+            int rowSize = n / rows + (bi < n % rows ? 1 : 0);
+            int colStart = 0;
+            for (int bj = 0; bj < cols; bj++) {
+                int colSize = n / cols + (bj < n % cols ? 1 : 0);
+                list.add(new LineRange(list.size(), rowStart, rowStart + rowSize - 1, colStart,
+                        colStart + colSize - 1));
+                colStart += colSize;
+            }
+            rowStart += rowSize;
+        }
+        return list;
+    }
+
+    /**
+     * Escolhe a grade py × px (py * px = workers) de menor perímetro de halo:
+     * cada corte horizontal ou vertical tem comprimento n, então o total de
+     * fronteiras é (py - 1 + px - 1) * n e basta minimizar px + py. Em empate,
+     * prefere mais linhas de blocos (trechos contíguos mais longos). Números
+     * primos de threads resultam em faixas (workers × 1).
+     * 
+     * @return {py, px}
+     */
+    static int[] chooseBlockLayout(int workers, int n) {
+        int bestRows = Math.min(workers, n);
+        int bestCols = 1;
+        for (int cols = 2; cols <= workers; cols++) {
+            if (workers % cols != 0)
+                continue;
+            int rows = workers / cols;
+            if (rows > n || cols > n || rows < cols)
+                continue;
+            if (rows + cols < bestRows + bestCols) {
+                bestRows = rows;
+                bestCols = cols;
+            }
+        }
+        return new int[] { bestRows, bestCols };
+    }
+
+    /**
+     * Seleciona a divisão da malha entre as threads (ver Decomposition).
+     * Deve ser chamado entre passos, nunca durante step() ou runSteps().
+     * Reinicia as faixas (descarta rebalanceamentos e medidas anteriores).
+     * 
+     * Com BLOCKS_2D, as configurações abaixo continuam guardadas (os getters
+     * as devolvem e voltam a valer com ROW_STRIPS), mas não têm efeito:
+     * - setTemporalBlocking: cada passagem avança um único passo
+     * - setScheduling(NEIGHBOR_SYNC): runSteps() usa a barreira persistente,
+     * pois um bloco tem até oito vizinhos, e não duas faixas
+     * - tileSize do construtor: cada bloco é percorrido linha a linha, sem
+     * tiles internos
+     * - setRebalanceInterval: as fronteiras dos blocos ficam fixas
+     */
+    public void setDecomposition(Decomposition decomposition) {
+        Decomposition d = decomposition != null ? decomposition : Decomposition.ROW_STRIPS;
+        List<LineRange> list;
+        if (d == Decomposition.BLOCKS_2D) {
+            int[] layout = chooseBlockLayout(workerCount, n);
+            blockRows = layout[0];
+            blockCols = layout[1];
+            list = buildBlocks(blockRows, blockCols);
+        } else {
+            list = buildRanges(workerCount);
+            blockRows = list.size();
+            blockCols = 1;
+        }
+        this.decomposition = d;
+        this.stepsSinceRebalance = 0;
+        this.ranges = list;
+    }
+
+    public Decomposition getDecomposition() {
+        return decomposition;
+    }
+
+    /**
+     * Grade de threads atual, como "py×px" (faixas: "p×1").
+     */
+    public String getThreadLayout() {
+        return blockRows + "×" + blockCols;
+    }
+
     @Override
     protected void computeStep() {
-        if (ranges.isEmpty())
+        if (scheduling == Scheduling.WORK_STEALING) {
+            computeStepWorkStealing();
+            return;
+        }
+        // Cada thread calcula seu bloco independentemente
+        runOnRanges(range -> {
+            long t0 = System.nanoTime();
+            computeRange(range);
+            range.addBusy(System.nanoTime() - t0, 1);
+        });
+        onStepsCompleted(1);
+    }
+
+    /**
+     * Ativa o bloqueio temporal em runSteps(): cada thread avança os tiles de
+     * sua faixa blocking.steps passos por passagem, com buffers próprios.
+     * Resultados idênticos à execução passo a passo. Use TemporalBlocking.NONE
+     * para desativar.
+     */
+    public void setTemporalBlocking(TemporalBlocking blocking) {
+        this.temporalBlocking = blocking != null ? blocking : TemporalBlocking.NONE;
+    }
+
+    public TemporalBlocking getTemporalBlocking() {
+        return temporalBlocking;
+    }
+
+    /**
+     * Seleciona como runSteps() distribui os passos entre as threads.
+     * step() continua usando uma rodada de tarefas por passo (ou, em
+     * WORK_STEALING, a divisão recursiva no ForkJoinPool).
+     */
+    public void setScheduling(Scheduling scheduling) {
+        this.scheduling = scheduling != null ? scheduling : Scheduling.PER_STEP_TASKS;
+    }
+
+    public Scheduling getScheduling() {
+        return scheduling;
+    }
+
+    /**
+     * Tamanho de grão (células do interior por bloco) em
+     * Scheduling.WORK_STEALING; blocos maiores são divididos ao meio. Use 0 para
+     * o padrão calculado a partir de n e do número de threads.
+     */
+    public void setGrainSize(int cells) {
+        if (cells < 0)
+            throw new IllegalArgumentException("grão deve ser ≥ 0");
+        this.grainSize = cells;
+    }
+
+    /**
+     * Grão efetivo: o configurado, ou o interior dividido em ~OVERSPLIT blocos
+     * por thread, limitado inferiormente por MIN_GRAIN (abaixo disso o custo de
+     * criar a tarefa supera o do cálculo).
+     */
+    public int getGrainSize() {
+        if (grainSize > 0)
+            return grainSize;
+        long interior = (long) Math.max(0, n - 2) * Math.max(0, n - 2);
+        long perTask = interior / ((long) workerCount * OVERSPLIT);
+        return (int) Math.max(MIN_GRAIN, Math.min(Integer.MAX_VALUE, perTask));
+    }
+
+    /**
+     * Ativa o reparticionamento adaptativo: a cada 'steps' passos, as linhas são
+     * redistribuídas entre as faixas em proporção à vazão (linhas por
+     * nanossegundo) medida no cálculo de cada faixa, compensando núcleos de
+     * velocidades diferentes (ex.: núcleos de desempenho e de eficiência).
+     * 
+     * O ganho depende de cada faixa rodar sempre na mesma thread, o que vale
+     * em PERSISTENT_BARRIER e NEIGHBOR_SYNC (durante cada runSteps); com
+     * PER_STEP_TASKS o pool pode trocar a thread de uma faixa a cada passo. Em
+     * NEIGHBOR_SYNC as fronteiras só mudam entre chamadas de runSteps(). Não se
+     * aplica a WORK_STEALING, que não usa faixas.
+     * 
+     * @param steps passos entre rebalanceamentos; 0 mantém as faixas fixas
+     */
+    public void setRebalanceInterval(int steps) {
+        if (steps < 0)
+            throw new IllegalArgumentException("intervalo deve ser ≥ 0");
+        this.rebalanceInterval = steps;
+        this.stepsSinceRebalance = 0;
+    }
+
+    public int getRebalanceInterval() {
+        return rebalanceInterval;
+    }
+
+    /**
+     * Quantas vezes as fronteiras das faixas foram alteradas.
+     */
+    public int getRebalanceCount() {
+        return rebalanceCount;
+    }
+
+    /**
+     * Faixas atuais e tempo médio de cálculo por passo de cada uma.
+     * Leitura informativa: durante uma execução, os valores podem estar
+     * defasados em relação às threads.
+     */
+    public List<RangeInfo> getRangeTimings() {
+        List<RangeInfo> result = new ArrayList<>();
+        for (LineRange range : ranges)
+            result.add(new RangeInfo(range.start, range.end, range.firstCol, range.lastCol, range.meanStepNanos()));
+        return result;
+    }
+
+    /**
+     * Contabiliza passos concluídos por todas as faixas e rebalanceia ao
+     * atingir o intervalo. Chamado só em pontos de sincronização (uma thread,
+     * com as demais paradas), então pode alterar as fronteiras das faixas.
+     */
+    private void onStepsCompleted(int steps) {
+        if (rebalanceInterval <= 0)
+            return;
+        stepsSinceRebalance += steps;
+        if (stepsSinceRebalance >= rebalanceInterval) {
+            stepsSinceRebalance = 0;
+            rebalance();
+        }
+    }
+
+    /**
+     * Redistribui as n linhas em proporção à vazão de cada faixa (cada faixa
+     * mantém ao menos uma linha). Mudanças de até max(1, n/100) linhas são
+     * ignoradas (histerese contra ruído de medição).
+     */
+    private void rebalance() {
+        int count = ranges.size();
+        if (count < 2 || decomposition != Decomposition.ROW_STRIPS)
+            return;
+        double[] speed = new double[count];
+        double total = 0;
+        for (int i = 0; i < count; i++) {
+            LineRange range = ranges.get(i);
+            if (range.busySteps == 0 || range.busyNanos <= 0)
+                return; // Sem medidas suficientes; tenta no próximo intervalo
+            speed[i] = (double) range.rows() * range.busySteps / range.busyNanos;
+            total += speed[i];
+        }
+
+        int[] sizes = new int[count];
+        double[] fraction = new double[count];
+        int assigned = 0;
+        for (int i = 0; i < count; i++) {
+            double ideal = n * speed[i] / total;
+            sizes[i] = Math.max(1, (int) ideal);
+            fraction[i] = ideal - (int) ideal;
+            assigned += sizes[i];
+        }
+        // Ajusta a soma para n: linhas restantes às maiores frações, excesso
+        // (do mínimo de uma linha) retirado das maiores faixas
+        while (assigned < n) {
+            int best = 0;
+            for (int i = 1; i < count; i++)
+                if (fraction[i] > fraction[best])
+                    best = i;
+            sizes[best]++;
+            fraction[best] = -1;
+            assigned++;
+        }
+        while (assigned > n) {
+            int largest = 0;
+            for (int i = 1; i < count; i++)
+                if (sizes[i] > sizes[largest])
+                    largest = i;
+            sizes[largest]--;
+            assigned--;
+        }
+
+        int maxShift = 0;
+        for (int i = 0; i < count; i++)
+            maxShift = Math.max(maxShift, Math.abs(sizes[i] - ranges.get(i).rows()));
+        for (LineRange range : ranges)
+            range.resetBusy();
+        if (maxShift <= Math.max(1, n / 100))
+            return;
+
+        synchronized (rangesLock) {
+            int current = 0;
+            for (int i = 0; i < count; i++) {
+                LineRange range = ranges.get(i);
+                range.start = current;
+                range.end = current + sizes[i] - 1;
+                current = range.end + 1;
+            }
+        }
+        rebalanceCount++;
+    }
+
+    /**
+     * Com bloqueio temporal, agrupa os passos em passagens de até
+     * temporalBlocking.steps passos: uma rodada de tarefas e uma troca de
+     * buffers por passagem, em vez de uma por passo.
+     * 
+     * Com Scheduling.PERSISTENT_BARRIER, as passagens (de um passo ou
+     * temporalBlocking.steps passos) são executadas por threads persistentes.
+     */
+    @Override
+    public void runSteps(int steps) {
+        // Blocos 2D avançam um passo por vez e não têm vizinhança linear
+        boolean blocks = decomposition == Decomposition.BLOCKS_2D;
+        TemporalBlocking blocking = blocks ? TemporalBlocking.NONE : temporalBlocking;
+        boolean persistent = scheduling == Scheduling.PERSISTENT_BARRIER
+                || (blocks && scheduling == Scheduling.NEIGHBOR_SYNC);
+        if (persistent && steps > 0 && !ranges.isEmpty()) {
+            runPersistent(steps, blocking);
+            return;
+        }
+        if (scheduling == Scheduling.NEIGHBOR_SYNC && steps > 0 && !ranges.isEmpty()) {
+            runNeighborSync(steps);
+            return;
+        }
+        if (!blocking.isEnabled() || scheduling == Scheduling.WORK_STEALING) {
+            super.runSteps(steps);
+            return;
+        }
+        int remaining = steps;
+        while (remaining > 0) {
+            int depth = Math.min(blocking.steps, remaining);
+            runOnRanges(range -> {
+                long t0 = System.nanoTime();
+                computeRowsTemporal(range.start, range.end, depth, blocking, range.engine);
+                range.addBusy(System.nanoTime() - t0, depth);
+            });
+            swapBuffers();
+            onStepsCompleted(depth);
+            remaining -= depth;
+        }
+    }
+
+    /**
+     * Threads persistentes: cada faixa recebe uma única tarefa que executa todas
+     * as passagens, esperando as demais na barreira ao fim de cada uma. A última
+     * thread a chegar troca os buffers (ação da barreira), então nenhuma thread
+     * lê T antes de todas terem terminado de escrever newT. A ação da barreira
+     * também é o ponto em que as faixas podem ser rebalanceadas.
+     */
+    private void runPersistent(int steps, TemporalBlocking blocking) {
+        int phaseDepth = blocking.isEnabled() ? blocking.steps : 1;
+        SpinBarrier barrier = new SpinBarrier(ranges.size(), () -> {
+            swapBuffers();
+            onStepsCompleted(phaseDepth);
+        });
+        prepareStepTimes(steps);
+        poolAccess.lock();
+        try {
+            runOnRanges(range -> {
+                try {
+                    int remaining = steps;
+                    int phase = 0;
+                    while (remaining > 0) {
+                        int depth = Math.min(phaseDepth, remaining);
+                        long t0 = System.nanoTime();
+                        if (depth == 1)
+                            computeRange(range);
+                        else
+                            computeRowsTemporal(range.start, range.end, depth, blocking, range.engine);
+                        range.addBusy(System.nanoTime() - t0, depth);
+                        barrier.await();
+                        range.recordStep(phase++);
+                        remaining -= depth;
+                    }
+                } catch (RuntimeException | Error ex) {
+                    // Libera as demais threads presas na barreira
+                    barrier.breakBarrier();
+                    throw ex;
+                }
+            });
+        } finally {
+            poolAccess.unlock();
+        }
+        if (barrier.isBroken())
+            throw new IllegalStateException("Parallel computation failed");
+    }
+
+    /**
+     * Sincronização ponto a ponto: cada faixa avança passo a passo, esperando
+     * somente as faixas vizinhas (ProgressCounters).
+     * 
+     * Como as faixas podem estar em passos diferentes, não há troca global de
+     * buffers: o passo t lê de buffers[t % 2] e escreve em buffers[(t+1) % 2].
+     * Esperar que as vizinhas tenham concluído o passo t garante tanto a
+     * leitura (linhas de fronteira do passo t prontas) quanto a escrita (as
+     * vizinhas já não precisam do passo t-1, que será sobrescrito).
+     * 
+     * Os dois buffers contêm níveis intermediários durante a execução, por isso
+     * bufferLock fica adquirido até o fim (leitores de snapshot esperam).
+     */
+    private void runNeighborSync(int steps) {
+        int count = ranges.size();
+        ProgressCounters progress = new ProgressCounters(count);
+        prepareStepTimes(steps);
+        synchronized (bufferLock) {
+            double[][] buffers = { T.data(), newT.data() };
+            runOnRanges(range -> {
+                int idx = range.index;
+                try {
+                    for (int t = 0; t < steps; t++) {
+                        if (idx > 0)
+                            progress.awaitAtLeast(idx - 1, t);
+                        if (idx < count - 1)
+                            progress.awaitAtLeast(idx + 1, t);
+                        long t0 = System.nanoTime();
+                        computeRows(buffers[t & 1], buffers[(t + 1) & 1], range.start, range.end);
+                        range.addBusy(System.nanoTime() - t0, 1);
+                        progress.publish(idx, t + 1);
+                        range.recordStep(t);
+                    }
+                } catch (RuntimeException | Error ex) {
+                    // Libera as vizinhas que aguardam esta faixa
+                    progress.abort();
+                    throw ex;
+                }
+            });
+            if (progress.isAborted())
+                throw new IllegalStateException("Parallel computation failed");
+            // Último nível está em newT quando o número de passos é ímpar
+            if ((steps & 1) == 1)
+                swapBuffers();
+        }
+        onStepsCompleted(steps);
+    }
+
+    /**
+     * Um passo com roubo de tarefas: células extremas escritas pela thread
+     * chamadora (custo O(n)) e interior dividido em blocos por InteriorTask.
+     */
+    private void computeStepWorkStealing() {
+        computeEdges(0, n - 1);
+        if (n < 3)
+            return;
+        ForkJoinPool pool;
+        synchronized (this) {
+            if (forkJoinPool == null)
+                forkJoinPool = new ForkJoinPool(workerCount);
+            pool = forkJoinPool;
+        }
+        pool.invoke(new InteriorTask(1, n - 2, 1, n - 2, getGrainSize()));
+    }
+
+    /**
+     * Bloco [r0, r1] × [c0, c1] do interior. Divide ao meio até caber no grão:
+     * preferencialmente por linhas (mantém trechos contíguos longos para o
+     * kernel), e por colunas quando o bloco é muito mais largo que alto.
+     */
+    private class InteriorTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int r0, r1, c0, c1;
+        private final int grain;
+
+        InteriorTask(int r0, int r1, int c0, int c1, int grain) {
+            this.r0 = r0;
+            this.r1 = r1;
+            this.c0 = c0;
+            this.c1 = c1;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            int rows = r1 - r0 + 1;
+            int cols = c1 - c0 + 1;
+            if ((long) rows * cols <= grain || (rows == 1 && cols == 1)) {
+                computeInterior(r0, r1, c0, c1);
+                return;
+            }
+            if (rows > 1 && (long) rows * 4 >= cols) {
+                int mid = r0 + rows / 2;
+                invokeAll(new InteriorTask(r0, mid - 1, c0, c1, grain), new InteriorTask(mid, r1, c0, c1, grain));
+            } else {
+                int mid = c0 + cols / 2;
+                invokeAll(new InteriorTask(r0, r1, c0, mid - 1, grain), new InteriorTask(r0, r1, mid, c1, grain));
+            }
+        }
+    }
+
+    /**
+     * Ativa o registro do instante de conclusão de cada passo, por thread, nos
+     * escalonamentos persistentes (PERSISTENT_BARRIER e NEIGHBOR_SYNC).
+     */
+    public void setRecordStepTimes(boolean record) {
+        this.recordStepTimes = record;
+    }
+
+    /**
+     * Duração de cada passo de cada thread na última chamada de runSteps()
+     * (intervalo entre conclusões consecutivas, incluindo esperas), em
+     * nanossegundos. Vazio se o registro estiver desativado.
+     */
+    public long[] getStepDurationsNanos() {
+        List<Long> all = new ArrayList<>();
+        for (LineRange range : ranges) {
+            long[] ends = range.stepEnds;
+            if (ends == null)
+                continue;
+            long prev = range.runStart;
+            for (long end : ends) {
+                if (end == 0)
+                    break;
+                all.add(end - prev);
+                prev = end;
+            }
+        }
+        long[] result = new long[all.size()];
+        for (int i = 0; i < result.length; i++)
+            result[i] = all.get(i);
+        return result;
+    }
+
+    private void prepareStepTimes(int steps) {
+        long now = System.nanoTime();
+        for (LineRange range : ranges) {
+            range.stepEnds = recordStepTimes ? new long[steps] : null;
+            range.runStart = now;
+        }
+    }
+
+    /**
+     * Executa a tarefa para cada bloco de linhas no pool e aguarda todas.
+     */
+    private void runOnRanges(Consumer<LineRange> task) {
+        runOnRanges(ranges, task);
+    }
+
+    private void runOnRanges(List<LineRange> list, Consumer<LineRange> task) {
+        if (list.isEmpty())
             return;
 
         // CountDownLatch: barreira de sincronização para aguardar todas as threads
-        CountDownLatch latch = new CountDownLatch(ranges.size());
+        CountDownLatch latch = new CountDownLatch(list.size());
 
         // Submete uma tarefa para cada bloco de linhas
-        for (LineRange range : ranges) {
+        for (LineRange range : list) {
             executor.execute(() -> {
                 try {
-                    // Cada thread calcula seu bloco independentemente
-                    computeRange(range.start, range.end);
+                    task.accept(range);
                 } finally {
                     // Sempre decrementa o contador, mesmo se houver exceção
                     latch.countDown();
@@ -115,33 +823,82 @@ public class ParallelHeatSimulator extends AbstractHeatSimulator {
      * Este método é chamado em paralelo por múltiplas threads, cada uma
      * processando um intervalo [start, end] sem sobreposição.
      * 
+     * Quando há tiles configurados, a faixa da thread é percorrida em tiles
+     * (ver computeRows), mantendo o conjunto de trabalho de cada thread em cache.
+     * 
+     * Em blocos 2D, o bloco da primeira coluna de blocos também escreve as
+     * células extremas de suas linhas (linhas 0/n-1 inteiras e colunas 0/n-1),
+     * e cada bloco calcula apenas seu trecho do interior.
+     * 
      * Thread-safety: seguro porque cada thread escreve em posições distintas
      * de newT e apenas lê de T (que não é modificado durante computeStep).
      */
-    private void computeRange(int start, int end) {
-        double coefX = alpha * dt / (dx * dx);
-        double coefY = alpha * dt / (dy * dy);
-        for (int i = start; i <= end; i++) {
-            for (int j = 1; j < n - 1; j++) {
-                double t = T[i][j];
-                double tx = T[i + 1][j] - 2 * t + T[i - 1][j];
-                double ty = T[i][j + 1] - 2 * t + T[i][j - 1];
-                newT[i][j] = t + coefX * tx + coefY * ty;
-            }
+    private void computeRange(LineRange range) {
+        if (range.firstCol == 0 && range.lastCol == n - 1) {
+            computeRows(range.start, range.end);
+            return;
         }
+        if (range.firstCol == 0)
+            computeEdges(range.start, range.end);
+        int r0 = Math.max(1, range.start);
+        int r1 = Math.min(n - 2, range.end);
+        int c0 = Math.max(1, range.firstCol);
+        int c1 = Math.min(n - 2, range.lastCol);
+        if (r0 <= r1 && c0 <= c1)
+            computeInterior(r0, r1, c0, c1);
     }
 
     public void shutdown() {
         executor.shutdownNow();
+        synchronized (this) {
+            if (forkJoinPool != null)
+                forkJoinPool.shutdownNow();
+        }
     }
 
     private static class LineRange {
-        final int start;
-        final int end;
+        final int index; // Posição da faixa (vizinhas são index-1 e index+1)
+        int start; // Fronteiras alteradas apenas em pontos de sincronização
+        int end;
+        final int firstCol; // Colunas do bloco (0 e n-1 em faixas de largura total)
+        final int lastCol;
+        final TemporalBlockingEngine engine = new TemporalBlockingEngine(); // Rascunho da faixa
+        long[] stepEnds; // Instante de conclusão de cada passo (se registrando)
+        long runStart;
+        long busyNanos; // Tempo de cálculo acumulado desde o último rebalanceamento
+        int busySteps;
+        double lastStepNanos; // Média do intervalo anterior (para inspeção)
 
-        LineRange(int start, int end) {
+        LineRange(int index, int start, int end, int firstCol, int lastCol) {
+            this.index = index;
             this.start = start;
             this.end = end;
+            this.firstCol = firstCol;
+            this.lastCol = lastCol;
+        }
+
+        void recordStep(int step) {
+            if (stepEnds != null)
+                stepEnds[step] = System.nanoTime();
+        }
+
+        int rows() {
+            return end - start + 1;
+        }
+
+        void addBusy(long nanos, int steps) {
+            busyNanos += nanos;
+            busySteps += steps;
+        }
+
+        void resetBusy() {
+            lastStepNanos = meanStepNanos();
+            busyNanos = 0;
+            busySteps = 0;
+        }
+
+        double meanStepNanos() {
+            return busySteps > 0 ? (double) busyNanos / busySteps : lastStepNanos;
         }
     }
 }
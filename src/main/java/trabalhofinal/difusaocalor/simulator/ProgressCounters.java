@@ -0,0 +1,52 @@
+package trabalhofinal.difusaocalor.simulator;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Contadores de progresso por faixa para sincronização ponto a ponto.
+ * 
+ * Cada faixa publica quantos passos já concluiu; antes de calcular o passo t,
+ * uma faixa espera apenas que as duas faixas vizinhas tenham concluído o passo
+ * t (e não todas as threads, como numa barreira global). A espera usa a mesma
+ * política spin → yield → park de SpinBarrier.
+ * 
+ * Os contadores ficam espaçados no vetor para que faixas diferentes não
+ * compartilhem linha de cache (false sharing).
+ */
+final class ProgressCounters {
+
+    private static final int PAD = 16; // 16 longs = 128 bytes entre contadores
+
+    private final AtomicLongArray values;
+    private volatile boolean aborted;
+
+    ProgressCounters(int count) {
+        this.values = new AtomicLongArray(count * PAD);
+    }
+
+    void publish(int index, long completedSteps) {
+        values.setRelease(index * PAD, completedSteps);
+    }
+
+    /**
+     * Aguarda até a faixa 'index' ter concluído pelo menos 'steps' passos.
+     * 
+     * @throws IllegalStateException se outra faixa falhou (abort)
+     */
+    void awaitAtLeast(int index, long steps) {
+        int spins = 0;
+        while (values.getAcquire(index * PAD) < steps) {
+            if (aborted)
+                throw new IllegalStateException("Sincronização abortada por falha em outra thread");
+            SpinBarrier.backoff(spins++);
+        }
+    }
+
+    void abort() {
+        aborted = true;
+    }
+
+    boolean isAborted() {
+        return aborted;
+    }
+}
@@ -0,0 +1,33 @@
+package trabalhofinal.difusaocalor.simulator;
+
+/**
+ * Implementação escalar do estêncil (referência).
+ * 
+ * Laço simples que o compilador C2 pode ou não auto-vetorizar; sempre
+ * disponível, serve de fallback quando o módulo jdk.incubator.vector não está
+ * presente.
+ */
+final class ScalarStencilKernel implements StencilKernel {
+
+    static final ScalarStencilKernel INSTANCE = new ScalarStencilKernel();
+
+    private ScalarStencilKernel() {
+    }
+
+    @Override
+    public String name() {
+        return StencilKernels.SCALAR;
+    }
+
+    @Override
+    public void computeRow(double[] src, double[] dst, int offset, int count, int stride, double coefX,
+            double coefY) {
+        int end = offset + count;
+        for (int idx = offset; idx < end; idx++) {
+            double t = src[idx];
+            double tx = src[idx + stride] - 2 * t + src[idx - stride]; // d²T/dx²
+            double ty = src[idx + 1] - 2 * t + src[idx - 1]; // d²T/dy²
+            dst[idx] = t + coefX * tx + coefY * ty;
+        }
+    }
+}
@@ -11,26 +11,59 @@ package trabalhofinal.difusaocalor.simulator;
  */
 public class SequentialHeatSimulator extends AbstractHeatSimulator {
 
+    private final TemporalBlockingEngine engine = new TemporalBlockingEngine();
+    private TemporalBlocking temporalBlocking = TemporalBlocking.NONE;
+
     public SequentialHeatSimulator(int n, double alpha) {
+        this(n, alpha, TileSize.NONE);
+    }
+
+    /**
+     * @param tileSize tiles de cache para a travessia do interior (TileSize.NONE
+     *                 para percorrer linha a linha)
+     */
+    public SequentialHeatSimulator(int n, double alpha, TileSize tileSize) {
         super(n, alpha);
+        setTileSize(tileSize);
+    }
+
+    /**
+     * Ativa o bloqueio temporal em runSteps(): cada tile avança
+     * blocking.steps passos por passagem pela malha. Resultados idênticos à
+     * execução passo a passo. Use TemporalBlocking.NONE para desativar.
+     */
+    public void setTemporalBlocking(TemporalBlocking blocking) {
+        this.temporalBlocking = blocking != null ? blocking : TemporalBlocking.NONE;
+    }
+
+    public TemporalBlocking getTemporalBlocking() {
+        return temporalBlocking;
     }
 
+    /**
+     * Com bloqueio temporal, agrupa os passos em passagens de até
+     * temporalBlocking.steps passos (uma troca de buffers por passagem).
+     */
     @Override
-    protected void computeStep() {
-        // Pré-calcula coeficientes do esquema de diferenças finitas
-        double coefX = alpha * dt / (dx * dx);
-        double coefY = alpha * dt / (dy * dy);
-
-        // Itera apenas sobre o interior da malha (1..n-2)
-        // As bordas (i=0, i=n-1, j=0, j=n-1) são tratadas por applyBoundaries()
-        for (int i = 1; i < n - 1; i++) {
-            for (int j = 1; j < n - 1; j++) {
-                // Esquema explícito de diferenças finitas 2D
-                double t = T[i][j];
-                double tx = T[i + 1][j] - 2 * t + T[i - 1][j]; // d²T/dx²
-                double ty = T[i][j + 1] - 2 * t + T[i][j - 1]; // d²T/dy²
-                newT[i][j] = t + coefX * tx + coefY * ty;
-            }
+    public void runSteps(int steps) {
+        TemporalBlocking blocking = temporalBlocking;
+        if (!blocking.isEnabled()) {
+            super.runSteps(steps);
+            return;
+        }
+        int remaining = steps;
+        while (remaining > 0) {
+            int depth = Math.min(blocking.steps, remaining);
+            computeRowsTemporal(0, n - 1, depth, blocking, engine);
+            swapBuffers();
+            remaining -= depth;
         }
     }
+
+    @Override
+    protected void computeStep() {
+        // Uma única passada sobre todas as linhas: interior pelo esquema de
+        // diferenças finitas, bordas copiadas/fixadas no mesmo laço
+        computeRows(0, n - 1);
+    }
 }
@@ -0,0 +1,88 @@
+package trabalhofinal.difusaocalor.simulator;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Barreira reutilizável de baixa latência (spin-then-park).
+ * 
+ * Usada pelas threads persistentes do ParallelHeatSimulator ao fim de cada
+ * passo. Em vez de bloquear imediatamente (como CyclicBarrier, que usa lock e
+ * Condition), cada thread:
+ * 1. Gira em espera ativa (Thread.onSpinWait) por algumas iterações
+ * 2. Cede o processador (Thread.yield)
+ * 3. Estaciona por intervalos curtos (LockSupport.parkNanos)
+ * 
+ * Com todas as threads em núcleos dedicados, a travessia fica na ordem de
+ * centenas de nanossegundos. A última thread a chegar executa a ação da
+ * barreira (ex.: troca de buffers) antes de liberar as demais.
+ * 
+ * Se uma thread falhar, breakBarrier() libera as demais com exceção, evitando
+ * que fiquem presas para sempre.
+ */
+final class SpinBarrier {
+
+    private static final int SPIN_LIMIT = 1 << 12; // Iterações de espera ativa
+    private static final int YIELD_LIMIT = 1 << 6; // Iterações com Thread.yield()
+    private static final long PARK_NANOS = 20_000; // Estacionamento após desistir de girar
+
+    private final int parties;
+    private final Runnable action;
+    private final AtomicInteger arrived = new AtomicInteger();
+    private volatile int generation;
+    private volatile boolean broken;
+
+    SpinBarrier(int parties, Runnable action) {
+        this.parties = parties;
+        this.action = action;
+    }
+
+    /**
+     * Aguarda todas as threads chegarem à barreira.
+     * 
+     * @throws IllegalStateException se a barreira foi rompida por outra thread
+     */
+    void await() {
+        int gen = generation;
+        if (arrived.incrementAndGet() == parties) {
+            // Última a chegar: zera o contador, executa a ação e libera a geração
+            arrived.set(0);
+            try {
+                action.run();
+            } catch (RuntimeException | Error ex) {
+                breakBarrier();
+                throw ex;
+            }
+            generation = gen + 1;
+            return;
+        }
+        int spins = 0;
+        while (generation == gen) {
+            if (broken)
+                throw new IllegalStateException("Barreira rompida por falha em outra thread");
+            backoff(spins++);
+        }
+    }
+
+    /**
+     * Uma iteração de espera com a política spin → yield → park, conforme o
+     * número de iterações já feitas. Compartilhada com ProgressCounters.
+     */
+    static void backoff(int spins) {
+        if (spins < SPIN_LIMIT) {
+            Thread.onSpinWait();
+        } else if (spins < SPIN_LIMIT + YIELD_LIMIT) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    }
+
+    void breakBarrier() {
+        broken = true;
+    }
+
+    boolean isBroken() {
+        return broken;
+    }
+}
@@ -0,0 +1,37 @@
+package trabalhofinal.difusaocalor.simulator;
+
+/**
+ * Núcleo de cálculo do estêncil de 5 pontos sobre uma linha da malha.
+ * 
+ * Isola o laço mais interno da simulação para que diferentes implementações
+ * (escalar ou SIMD) possam ser escolhidas em qualquer modo de execução:
+ * sequencial, paralelo ou distribuído (nos workers RMI).
+ * 
+ * Todas as implementações devem produzir resultados idênticos bit a bit,
+ * avaliando t + coefX * ((baixo - 2t) + cima) + coefY * ((dir - 2t) + esq)
+ * na mesma ordem de operações.
+ */
+public interface StencilKernel {
+
+    /**
+     * Nome usado para seleção (ex.: "scalar", "vector").
+     */
+    String name();
+
+    /**
+     * Calcula count células consecutivas de uma linha.
+     * 
+     * A célula na posição idx (offset ≤ idx < offset + count) tem vizinhos em
+     * idx ± 1 (mesma linha) e idx ± stride (linhas adjacentes) no vetor src.
+     * O resultado é gravado na mesma posição de dst.
+     * 
+     * @param src    malha de leitura em ordem row-major
+     * @param dst    malha de escrita (mesmo layout de src)
+     * @param offset posição da primeira célula a calcular
+     * @param count  número de células a calcular
+     * @param stride distância entre linhas consecutivas
+     * @param coefX  alpha * dt / dx²
+     * @param coefY  alpha * dt / dy²
+     */
+    void computeRow(double[] src, double[] dst, int offset, int count, int stride, double coefX, double coefY);
+}
@@ -0,0 +1,60 @@
+package trabalhofinal.difusaocalor.simulator;
+
+/**
+ * Fábrica e seleção dos kernels de estêncil disponíveis.
+ * 
+ * O kernel vetorial depende do módulo incubado jdk.incubator.vector, que só
+ * é resolvido quando a JVM recebe --add-modules jdk.incubator.vector. Por isso
+ * ele é carregado por reflexão uma única vez; se a carga falhar, todas as
+ * seleções de "vector" retornam o kernel escalar.
+ */
+public final class StencilKernels {
+
+    public static final String SCALAR = "scalar";
+    public static final String VECTOR = "vector";
+
+    private static final StencilKernel VECTOR_KERNEL = loadVectorKernel();
+
+    private StencilKernels() {
+    }
+
+    public static StencilKernel scalar() {
+        return ScalarStencilKernel.INSTANCE;
+    }
+
+    /**
+     * Kernel SIMD, ou o escalar se a Vector API não estiver disponível.
+     */
+    public static StencilKernel vector() {
+        return VECTOR_KERNEL != null ? VECTOR_KERNEL : scalar();
+    }
+
+    public static boolean isVectorAvailable() {
+        return VECTOR_KERNEL != null;
+    }
+
+    /**
+     * Seleciona um kernel pelo nome ("scalar" ou "vector").
+     * 
+     * @param name nome do kernel (null ou desconhecido resulta no escalar)
+     * @return kernel efetivamente disponível
+     */
+    public static StencilKernel byName(String name) {
+        if (VECTOR.equalsIgnoreCase(name))
+            return vector();
+        return scalar();
+    }
+
+    private static StencilKernel loadVectorKernel() {
+        try {
+            Class<?> cls = Class.forName("trabalhofinal.difusaocalor.simulator.VectorStencilKernel");
+            StencilKernel kernel = (StencilKernel) cls.getDeclaredConstructor().newInstance();
+            // Força a inicialização da espécie e dos intrínsecos
+            double[] probe = new double[9];
+            kernel.computeRow(probe, new double[9], 4, 1, 3, 0.1, 0.1);
+            return kernel;
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,480 @@
+package trabalhofinal.difusaocalor.simulator;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import trabalhofinal.difusaocalor.rmi.GridBlock;
+import trabalhofinal.difusaocalor.rmi.Worker;
+
+/**
+ * Escalonador das faixas nos modos sem estado do DistributedHeatSimulator:
+ * corta a parte de cada worker em pedaços, mantém algumas chamadas em curso
+ * por worker, replica as faixas que passam do prazo e recorre ao cálculo
+ * local quando um worker falha.
+ *
+ * Lê T e grava newT pelo simulador, que continua responsável pela divisão
+ * das linhas (WorkerCostModel), pelas conexões e pelo cálculo local. As
+ * configurações e as medidas de réplicas são sincronizadas na instância.
+ */
+final class StripScheduler {
+
+    /**
+     * Percentil do custo por linha recente de cada worker usado no prazo das
+     * chamadas (ver hedgeDeadlineNanos): cerca de 1 em 20 chamadas normais
+     * passa do prazo.
+     */
+    private static final double HEDGE_PERCENTILE = 95;
+
+    /**
+     * Medidas de um worker antes de suas chamadas terem prazo (e réplicas).
+     */
+    private static final int HEDGE_MIN_SAMPLES = 16;
+
+    /**
+     * Durações guardadas para o relatório da cauda de latência (HedgeStats).
+     */
+    private static final int HEDGE_STATS_WINDOW = 4096;
+
+    /**
+     * Menor pedaço, em linhas (ou k, se maior): abaixo disso a latência e a
+     * zona fantasma de cada chamada pesam mais que o ganho de sobrepor, e
+     * faixas pequenas não são cortadas.
+     */
+    private static final int MIN_PIECE_ROWS = 16;
+
+    private final DistributedHeatSimulator sim;
+    private final WorkerCostModel costs;
+    private final int local; // Índice do coordenador (após os workers)
+    private final ExecutorService executor; // Chamadas originais aos workers
+    private final ExecutorService localPool; // Faixa do coordenador
+    private final ExecutorService hedgeExecutor = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "replicas-faixas");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private boolean hedging = true;
+    private int stripsPerWorker = 2;
+    private int inFlightDepth = 2;
+
+    private long stripCalls; // Faixas enviadas a workers
+    private long hedges; // Faixas replicadas por passarem do prazo
+    private long hedgeWins; // Faixas resolvidas pela réplica
+    private final LatencyWindow primaryWindow = new LatencyWindow(HEDGE_STATS_WINDOW); // Chamadas originais
+    private final LatencyWindow stripWindow = new LatencyWindow(HEDGE_STATS_WINDOW); // Espera efetiva por faixa
+
+    StripScheduler(DistributedHeatSimulator sim, WorkerCostModel costs, int local, ExecutorService executor,
+            ExecutorService localPool) {
+        this.sim = sim;
+        this.costs = costs;
+        this.local = local;
+        this.executor = executor;
+        this.localPool = localPool;
+    }
+
+    synchronized void setHedging(boolean enabled) {
+        this.hedging = enabled;
+    }
+
+    synchronized boolean isHedging() {
+        return hedging;
+    }
+
+    synchronized DistributedHeatSimulator.HedgeStats getHedgeStats() {
+        return new DistributedHeatSimulator.HedgeStats(stripCalls, hedges, hedgeWins, primaryWindow.percentile(50),
+                primaryWindow.percentile(99), stripWindow.percentile(50), stripWindow.percentile(99));
+    }
+
+    synchronized void resetHedgeStats() {
+        stripCalls = 0;
+        hedges = 0;
+        hedgeWins = 0;
+        primaryWindow.clear();
+        stripWindow.clear();
+    }
+
+    synchronized void setStripsPerWorker(int strips) {
+        if (strips < 1)
+            throw new IllegalArgumentException("faixas por worker deve ser ≥ 1");
+        this.stripsPerWorker = strips;
+    }
+
+    synchronized int getStripsPerWorker() {
+        return stripsPerWorker;
+    }
+
+    synchronized void setInFlightDepth(int depth) {
+        if (depth < 1)
+            throw new IllegalArgumentException("chamadas em voo deve ser ≥ 1");
+        this.inFlightDepth = depth;
+    }
+
+    synchronized int getInFlightDepth() {
+        return inFlightDepth;
+    }
+
+    /**
+     * Calcula as faixas 'ranges' ({participante, primeira linha, última
+     * linha}) nos workers sem estado, k passos por chamada (computeBlock se k
+     * = 1, computeGhostZoneSteps com zona fantasma de k linhas se maior), e
+     * grava o resultado em newT.
+     *
+     * A parte de cada worker é cortada em getStripsPerWorker() pedaços, e
+     * cada worker tem até getInFlightDepth() chamadas em curso: quando uma
+     * volta, o próximo pedaço da fila do worker é enviado. Assim o worker
+     * calcula um pedaço enquanto o resultado do anterior é serializado e
+     * trafega. Com pedaços ou chamadas simultâneas, a duração de uma chamada
+     * inclui a espera pelas outras do mesmo worker; o custo por linha é
+     * então medido por lote, do primeiro envio à última resposta do worker.
+     *
+     * Em vez de bloquear em cada Future sem limite, o coordenador espera os
+     * resultados até o prazo de cada chamada (hedgeDeadlineNanos). Uma faixa
+     * que passa do prazo ganha uma réplica especulativa: num worker que já
+     * entregou seus pedaços neste lote ou, sem nenhum livre, no próprio
+     * coordenador. Vale o primeiro resultado; o outro é descartado. As
+     * chamadas não têm estado, então repetir uma faixa não altera a malha.
+     *
+     * Se todas as tentativas de uma faixa falham, ela é calculada localmente
+     * e o worker que falhou sai da divisão (markFailed); os pedaços dele
+     * ainda na fila também são calculados localmente.
+     */
+    void computeStrips(List<int[]> ranges, int k) {
+        int pieces;
+        int depth;
+        synchronized (this) {
+            pieces = stripsPerWorker;
+            depth = inFlightDepth;
+        }
+        boolean perCall = pieces == 1 && depth == 1; // Mede cada chamada (senão, o lote de cada worker)
+        int workers = local;
+        BlockingQueue<StripAttempt> results = new LinkedBlockingQueue<>();
+        List<StripCall> calls = new ArrayList<>();
+        boolean[] idle = new boolean[workers]; // Entregou seus pedaços, sem réplica em curso
+        List<ArrayDeque<StripCall>> queued = new ArrayList<>(); // Pedaços ainda não enviados, por worker
+        for (int i = 0; i < workers; i++)
+            queued.add(new ArrayDeque<>());
+        int[] inFlight = new int[workers]; // Chamadas originais em curso por worker
+        long[] firstSent = new long[workers];
+        long[] lastDone = new long[workers];
+        double[] computedRows = new double[workers]; // Linhas × passos entregues no lote
+        long[] batchBytes = new long[workers];
+        int[] rounds = new int[workers]; // Levas de chamadas em sequência (cada uma paga a latência)
+
+        for (int[] range : ranges) {
+            int i = range[0];
+            Worker w = sim.worker(i);
+            int s = range[1];
+            int e = range[2];
+
+            // Faixa do coordenador: calculada no pool local, sem prazo
+            if (i == local) {
+                StripCall call = new StripCall(i, s, e, -1);
+                calls.add(call);
+                submitLocal(call, k, results);
+                continue;
+            }
+
+            // Se worker indisponível, calcula localmente (medido como a vazão
+            // desse worker)
+            if (w == null) {
+                long t0 = System.nanoTime();
+                sim.localStrip(s, e, k);
+                costs.recordWorker(i, System.nanoTime() - t0, k, e - s + 1);
+                continue;
+            }
+
+            // Pedaços de tamanhos iguais (±1 linha); os que estiverem em curso
+            // juntos dividem o worker, e o prazo cresce na mesma proporção
+            int rows = e - s + 1;
+            int m = Math.max(1, Math.min(pieces, rows / Math.max(k, MIN_PIECE_ROWS)));
+            int concurrent = Math.min(depth, m);
+            rounds[i] = (m + depth - 1) / depth;
+            int ps = s;
+            for (int p = 0; p < m; p++) {
+                int pe = ps + rows / m + (p < rows % m ? 1 : 0) - 1;
+                StripCall call = new StripCall(i, ps, pe, hedgeDeadlineNanos(i, k, pe - ps + 1, concurrent));
+                calls.add(call);
+                queued.get(i).add(call);
+                ps = pe + 1;
+            }
+            firstSent[i] = System.nanoTime();
+            sendQueued(i, queued.get(i), inFlight, depth, k, perCall, results);
+        }
+
+        int pending = calls.size();
+        while (pending > 0) {
+            // Espera até o próximo prazo de uma faixa enviada e ainda sem réplica
+            long wait = Long.MAX_VALUE;
+            long now = System.nanoTime();
+            for (StripCall c : calls) {
+                if (!c.done && !c.hedged && c.outstanding > 0 && c.deadlineNanos > 0)
+                    wait = Math.min(wait, c.startNanos + c.deadlineNanos - now);
+            }
+            StripAttempt r;
+            try {
+                r = wait == Long.MAX_VALUE ? results.take()
+                        : results.poll(Math.max(0, wait), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException ex) {
+                // Interrompido: termina localmente as faixas que faltam
+                Thread.currentThread().interrupt();
+                for (StripCall c : calls) {
+                    if (!c.done) {
+                        c.done = true;
+                        sim.localStrip(c.s, c.e, k);
+                    }
+                }
+                return;
+            }
+
+            if (r == null) {
+                // Prazo vencido: réplica num worker livre, ou no coordenador
+                now = System.nanoTime();
+                for (StripCall c : calls) {
+                    if (c.done || c.hedged || c.outstanding == 0 || c.deadlineNanos <= 0
+                            || now - c.startNanos < c.deadlineNanos)
+                        continue;
+                    c.hedged = true;
+                    int j = idleWorker(idle);
+                    synchronized (this) {
+                        hedges++;
+                    }
+                    if (j >= 0) {
+                        idle[j] = false;
+                        submitAttempt(c, j, sim.worker(j), k, true, perCall, hedgeExecutor, results);
+                    } else {
+                        sim.localStrip(c.s, c.e, k);
+                        c.done = true;
+                        pending--;
+                        finishStrip(c, true);
+                    }
+                }
+                continue;
+            }
+
+            StripCall c = r.call;
+            c.outstanding--;
+            boolean primary = r.worker != local && !r.hedge;
+            if (primary) {
+                // Libera a vaga do worker: segue o próximo pedaço da fila
+                inFlight[r.worker]--;
+                if (r.block != null) {
+                    lastDone[r.worker] = System.nanoTime();
+                    computedRows[r.worker] += (double) k * (c.e - c.s + k);
+                    batchBytes[r.worker] += 8L * sim.n * (GhostZone.lastRow(c.e, k, sim.n)
+                            - GhostZone.firstRow(c.s, k) + 1 + c.e - c.s + 1);
+                }
+                if (r.exception == null && sim.worker(r.worker) != null)
+                    sendQueued(r.worker, queued.get(r.worker), inFlight, depth, k, perCall, results);
+            }
+            if (r.block != null) {
+                if (r.worker != local)
+                    idle[r.worker] = sim.worker(r.worker) != null && queued.get(r.worker).isEmpty()
+                            && inFlight[r.worker] == 0;
+                if (!c.done) {
+                    // Primeiro resultado da faixa: mescla em newT
+                    sim.mergeBlock(r.block);
+                    c.done = true;
+                    pending--;
+                    finishStrip(c, r.hedge);
+                }
+            } else if (r.exception != null) {
+                // Falha: o worker sai da divisão; se nenhuma tentativa da faixa
+                // segue em curso, calcula localmente este lote
+                if (r.worker != local) {
+                    sim.markFailed(r.worker, r.exception);
+                    idle[r.worker] = false;
+                }
+                if (!c.done && c.outstanding == 0) {
+                    sim.localStrip(c.s, c.e, k);
+                    c.done = true;
+                    pending--;
+                    finishStrip(c, false);
+                }
+                if (primary) {
+                    for (StripCall q : queued.get(r.worker)) {
+                        sim.localStrip(q.s, q.e, k);
+                        q.done = true;
+                        pending--;
+                        finishStrip(q, false);
+                    }
+                    queued.get(r.worker).clear();
+                }
+            }
+        }
+
+        // Pedaços e chamadas simultâneas: um custo por linha por worker, do
+        // primeiro envio à última resposta (as esperas entre as chamadas do
+        // mesmo worker não contam como custo de cada uma), sem a latência das
+        // levas após a primeira (recordWorker desconta a de uma chamada)
+        if (!perCall) {
+            for (int i = 0; i < workers; i++) {
+                if (computedRows[i] <= 0 || sim.worker(i) == null)
+                    continue;
+                long nanos = Math.max(1, lastDone[i] - firstSent[i] - (long) ((rounds[i] - 1) * costs.latency(i)));
+                costs.recordCall(i, nanos, computedRows[i], batchBytes[i], sim.isCompressing());
+            }
+        }
+    }
+
+    /**
+     * Envia pedaços da fila do worker i até ele ter 'depth' chamadas em
+     * curso.
+     */
+    private void sendQueued(int i, ArrayDeque<StripCall> queue, int[] inFlight, int depth, int k, boolean perCall,
+            BlockingQueue<StripAttempt> results) {
+        Worker w = sim.worker(i);
+        while (inFlight[i] < depth && !queue.isEmpty()) {
+            StripCall call = queue.poll();
+            call.startNanos = System.nanoTime();
+            inFlight[i]++;
+            submitAttempt(call, i, w, k, false, perCall, executor, results);
+        }
+    }
+
+    /**
+     * Envia a faixa da chamada 'call' ao worker de índice 'worker' pelo pool
+     * dado; o resultado (ou a falha) entra na fila 'results'. Tarefas de
+     * faixas já resolvidas quando chegam a rodar são descartadas. Com
+     * 'measure', a duração entra nas medidas do worker (recordCall).
+     */
+    private void submitAttempt(StripCall call, int worker, Worker w, int k, boolean hedge, boolean measure,
+            ExecutorService pool, BlockingQueue<StripAttempt> results) {
+        call.outstanding++;
+        pool.submit(() -> {
+            if (call.done) {
+                results.add(new StripAttempt(call, worker, hedge, null, null));
+                return;
+            }
+            try {
+                int s = call.s;
+                int e = call.e;
+                // Extrai bloco compacto: [s-k, ..., e+k] (limitado à malha)
+                GridBlock compactBlock = sim.ghostZoneBlock(s, e, k);
+                long t0 = System.nanoTime();
+                GridBlock resultBlock = k == 1 ? w.computeBlock(compactBlock, s, e, sim.alpha, sim.dx, sim.dy, sim.dt)
+                        : w.computeGhostZoneSteps(compactBlock, s, e, sim.alpha, sim.dx, sim.dy, sim.dt, k);
+                long t1 = System.nanoTime();
+                long bytes = 8L * (compactBlock.data().length + resultBlock.data().length);
+                if (measure)
+                    costs.recordCall(worker, t1 - t0, k, e - s + 1, bytes, sim.isCompressing());
+                sim.addPayloadBytes(bytes);
+                if (!hedge)
+                    recordPrimary(t1 - call.startNanos);
+                results.add(new StripAttempt(call, worker, hedge, resultBlock, null));
+            } catch (Exception ex) {
+                // Falha de comunicação RMI - tratada pelo coordenador
+                results.add(new StripAttempt(call, worker, hedge, null, ex));
+            }
+        });
+    }
+
+    /**
+     * Calcula no pool local a faixa da chamada 'call' (a do coordenador),
+     * medida como a vazão do coordenador; o resultado entra na fila 'results'
+     * como o de um worker.
+     */
+    private void submitLocal(StripCall call, int k, BlockingQueue<StripAttempt> results) {
+        call.outstanding++;
+        localPool.execute(() -> {
+            try {
+                long t0 = System.nanoTime();
+                GridBlock block = sim.localBlock(call.s, call.e, k);
+                costs.recordWorker(local, System.nanoTime() - t0, k, call.e - call.s + 1);
+                results.add(new StripAttempt(call, local, false, block, null));
+            } catch (RuntimeException ex) {
+                results.add(new StripAttempt(call, local, false, null, ex));
+            }
+        });
+    }
+
+    /**
+     * Worker livre para uma réplica (conectado, já entregou sua faixa neste
+     * lote), o de menor custo por linha; -1 se nenhum.
+     */
+    private int idleWorker(boolean[] idle) {
+        int best = -1;
+        for (int j = 0; j < idle.length; j++) {
+            if (idle[j] && sim.worker(j) != null && (best < 0 || costs.rowNanos(j) < costs.rowNanos(best)))
+                best = j;
+        }
+        return best;
+    }
+
+    /**
+     * Registra uma faixa resolvida: a espera efetiva do coordenador por ela e
+     * se o resultado usado veio da réplica.
+     */
+    private synchronized void finishStrip(StripCall c, boolean hedgeWon) {
+        if (c.worker == local)
+            return; // Faixa do coordenador: fora das medidas de réplicas
+        stripCalls++;
+        if (hedgeWon)
+            hedgeWins++;
+        stripWindow.add(System.nanoTime() - c.startNanos);
+    }
+
+    /**
+     * Registra a duração de uma chamada original (sem réplica), desde o envio
+     * ao pool até a resposta: a espera que o coordenador teria sem réplicas.
+     */
+    private synchronized void recordPrimary(long nanos) {
+        primaryWindow.add(nanos);
+    }
+
+    /**
+     * Prazo de uma chamada de k passos sobre 'rows' linhas ao worker de
+     * índice 'worker', em ns: latência sondada + percentil HEDGE_PERCENTILE
+     * do custo por linha recente × k·(rows + k - 1) × 'concurrent' (chamadas
+     * do mesmo worker em curso junto com esta), o mesmo modelo de
+     * recordWorker. Sem réplicas (≤ 0) se desligadas ou se o worker ainda
+     * tem menos de HEDGE_MIN_SAMPLES medidas.
+     */
+    private long hedgeDeadlineNanos(int worker, int k, int rows, int concurrent) {
+        if (!isHedging())
+            return -1;
+        double perRow = costs.recentRowNanos(worker, HEDGE_PERCENTILE, HEDGE_MIN_SAMPLES);
+        if (Double.isNaN(perRow))
+            return -1;
+        return (long) (costs.latency(worker) + perRow * k * (rows + k - 1) * concurrent);
+    }
+
+    void shutdown() {
+        hedgeExecutor.shutdownNow();
+    }
+
+    /**
+     * Chamada de uma faixa (ou pedaço) num lote: prazo, tentativas em curso e
+     * se já foi resolvida ou replicada. Os campos, exceto 'done', só são
+     * escritos pela thread do coordenador.
+     */
+    private static final class StripCall {
+        final int worker;
+        final int s;
+        final int e;
+        final long deadlineNanos; // ≤ 0 = sem prazo
+        long startNanos = System.nanoTime(); // Envio ao worker (antes disso, a criação)
+        volatile boolean done;
+        boolean hedged;
+        int outstanding;
+
+        StripCall(int worker, int s, int e, long deadlineNanos) {
+            this.worker = worker;
+            this.s = s;
+            this.e = e;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+
+    /**
+     * Resultado de uma tentativa (original ou réplica) de uma faixa; block e
+     * exception nulos se a tentativa foi descartada antes de rodar.
+     */
+    private record StripAttempt(StripCall call, int worker, boolean hedge, GridBlock block, Throwable exception) {
+    }
+}
@@ -0,0 +1,73 @@
+package trabalhofinal.difusaocalor.simulator;
+
+/**
+ * Avança tiles da malha vários passos dentro de buffers locais (em cache).
+ * 
+ * Cada instância mantém seus próprios buffers de rascunho e deve ser usada por
+ * uma única thread de cada vez; o simulador paralelo mantém uma instância por
+ * faixa de linhas.
+ * 
+ * Para um tile de saída [r0, r1] × [c0, c1] e profundidade d:
+ * 1. Copia de T a região expandida por d células (limitada à malha)
+ * 2. No passo s (1..d), calcula a região expandida por d-s células
+ * 3. Grava o tile de saída em newT
+ * 
+ * Linhas e colunas extremas da malha (0 e n-1) não mudam entre passos (são
+ * bordas fixas ou cópias de T), por isso valem como vizinhança em qualquer
+ * passo.
+ */
+final class TemporalBlockingEngine {
+
+    private double[] a = new double[0]; // Buffer de leitura do rascunho
+    private double[] b = new double[0]; // Buffer de escrita do rascunho
+
+    /**
+     * Avança o tile [r0, r1] × [c0, c1] (interior da malha) em depth passos.
+     * 
+     * @param src   malha atual (T), somente leitura
+     * @param dst   malha de destino (newT)
+     * @param n     dimensão da malha
+     * @param depth número de passos
+     */
+    void advanceTile(double[] src, double[] dst, int n, int r0, int r1, int c0, int c1, int depth,
+            StencilKernel k, double coefX, double coefY) {
+        int R0 = Math.max(0, r0 - depth);
+        int R1 = Math.min(n - 1, r1 + depth);
+        int C0 = Math.max(0, c0 - depth);
+        int C1 = Math.min(n - 1, c1 + depth);
+        int width = C1 - C0 + 1; // Stride do rascunho
+        int rows = R1 - R0 + 1;
+        ensureCapacity(rows * width);
+
+        double[] cur = a;
+        double[] next = b;
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(src, (R0 + i) * n + C0, cur, i * width, width);
+            System.arraycopy(src, (R0 + i) * n + C0, next, i * width, width);
+        }
+
+        for (int s = 1; s <= depth; s++) {
+            // Região válida encolhe uma célula por passo em cada direção
+            int i0 = Math.max(1, r0 - depth + s);
+            int i1 = Math.min(n - 2, r1 + depth - s);
+            int j0 = Math.max(1, c0 - depth + s);
+            int j1 = Math.min(n - 2, c1 + depth - s);
+            for (int i = i0; i <= i1; i++)
+                k.computeRow(cur, next, (i - R0) * width + (j0 - C0), j1 - j0 + 1, width, coefX, coefY);
+            double[] tmp = cur;
+            cur = next;
+            next = tmp;
+        }
+
+        int count = c1 - c0 + 1;
+        for (int i = r0; i <= r1; i++)
+            System.arraycopy(cur, (i - R0) * width + (c0 - C0), dst, i * n + c0, count);
+    }
+
+    private void ensureCapacity(int size) {
+        if (a.length < size) {
+            a = new double[size];
+            b = new double[size];
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package trabalhofinal.difusaocalor.simulator;
+
+/**
+ * Dimensões de um tile (bloco de cache) para a travessia do estêncil.
+ * 
+ * Com tiles, o interior da malha é percorrido em blocos de height linhas por
+ * width colunas em vez de linhas inteiras. Para n grande, as três linhas
+ * lidas (i-1, i, i+1) e a linha escrita deixam de caber em L1/L2; dentro de um
+ * tile, cada linha lida é reaproveitada pelas linhas vizinhas enquanto ainda
+ * está em cache.
+ * 
+ * TileSize.NONE desativa os tiles (travessia linha a linha).
+ */
+public final class TileSize {
+
+    public static final TileSize NONE = new TileSize(0, 0);
+
+    public final int width; // Colunas por tile
+    public final int height; // Linhas por tile
+
+    private TileSize(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * @param width  colunas por tile (> 0)
+     * @param height linhas por tile (> 0)
+     */
+    public static TileSize of(int width, int height) {
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException("dimensões do tile devem ser positivas");
+        return new TileSize(width, height);
+    }
+
+    public boolean isEnabled() {
+        return width > 0 && height > 0;
+    }
+
+    @Override
+    public String toString() {
+        return isEnabled() ? width + "x" + height : "sem tiles";
+    }
+}
@@ -0,0 +1,65 @@
+package trabalhofinal.difusaocalor.simulator;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Implementação SIMD explícita do estêncil usando a Vector API
+ * (jdk.incubator.vector).
+ * 
+ * - Usa a espécie preferida da plataforma (ex.: 4 doubles com AVX2, 8 com
+ * AVX-512)
+ * - Processa blocos completos sem máscara e o resto da linha com uma única
+ * iteração mascarada
+ * - Mesma ordem de operações do kernel escalar (sem FMA), portanto os
+ * resultados são idênticos bit a bit
+ * 
+ * Requer que a JVM seja iniciada com --add-modules jdk.incubator.vector. Não
+ * deve ser referenciada diretamente: StencilKernels a carrega por reflexão e
+ * recorre ao kernel escalar se o módulo não estiver disponível.
+ */
+final class VectorStencilKernel implements StencilKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    VectorStencilKernel() {
+    }
+
+    @Override
+    public String name() {
+        return StencilKernels.VECTOR;
+    }
+
+    @Override
+    public void computeRow(double[] src, double[] dst, int offset, int count, int stride, double coefX,
+            double coefY) {
+        int lanes = SPECIES.length();
+        int upper = offset + SPECIES.loopBound(count);
+        int idx = offset;
+
+        // Blocos completos de 'lanes' células
+        for (; idx < upper; idx += lanes) {
+            DoubleVector t = DoubleVector.fromArray(SPECIES, src, idx);
+            DoubleVector twoT = t.mul(2.0);
+            DoubleVector tx = DoubleVector.fromArray(SPECIES, src, idx + stride).sub(twoT)
+                    .add(DoubleVector.fromArray(SPECIES, src, idx - stride));
+            DoubleVector ty = DoubleVector.fromArray(SPECIES, src, idx + 1).sub(twoT)
+                    .add(DoubleVector.fromArray(SPECIES, src, idx - 1));
+            t.add(tx.mul(coefX)).add(ty.mul(coefY)).intoArray(dst, idx);
+        }
+
+        // Cauda: células restantes com carga/gravação mascarada
+        int end = offset + count;
+        if (idx < end) {
+            VectorMask<Double> m = SPECIES.indexInRange(idx, end);
+            DoubleVector t = DoubleVector.fromArray(SPECIES, src, idx, m);
+            DoubleVector twoT = t.mul(2.0);
+            DoubleVector tx = DoubleVector.fromArray(SPECIES, src, idx + stride, m).sub(twoT)
+                    .add(DoubleVector.fromArray(SPECIES, src, idx - stride, m));
+            DoubleVector ty = DoubleVector.fromArray(SPECIES, src, idx + 1, m).sub(twoT)
+                    .add(DoubleVector.fromArray(SPECIES, src, idx - 1, m));
+            t.add(tx.mul(coefX)).add(ty.mul(coefY)).intoArray(dst, idx, m);
+        }
+    }
+}
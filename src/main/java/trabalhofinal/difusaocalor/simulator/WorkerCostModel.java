@@ -0,0 +1,539 @@
+package trabalhofinal.difusaocalor.simulator;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+import trabalhofinal.difusaocalor.rmi.CodecCounters;
+
+/**
+ * Modelo de custo das chamadas aos workers do DistributedHeatSimulator:
+ * medidas por participante (workers e, no último índice, o coordenador), a
+ * profundidade automática dos lotes, a decisão de compressão e a divisão das
+ * linhas interiores entre os participantes, rebalanceada pela vazão medida.
+ *
+ * As medidas que dependem da malha ou dos workers (calibração local do
+ * kernel e do codec, sondagem de latência) são feitas pelo simulador e
+ * entregues aqui. Os métodos são sincronizados na instância: as chamadas
+ * remotas registram suas durações de threads do pool.
+ */
+final class WorkerCostModel {
+
+    /**
+     * Profundidade inicial dos lotes (passos por chamada RMI), usada até haver
+     * medidas para a escolha automática.
+     */
+    static final int BATCH_SIZE = 10;
+
+    /**
+     * Maior profundidade de zona fantasma (e de lote) escolhida
+     * automaticamente.
+     */
+    static final int MAX_GHOST_DEPTH = 32;
+
+    /**
+     * Folga da decisão automática: liga a compressão quando o ganho estimado
+     * supera o custo do codec por esse fator, desliga quando fica abaixo do
+     * custo (evita alternar a cada lote).
+     */
+    private static final double COMPRESSION_HYSTERESIS = 1.25;
+
+    /**
+     * Folga do balanceamento: a nova divisão só é aplicada se a duração
+     * prevista do lote cair mais que esta fração e alguma faixa mudar mais
+     * que max(1, interior/100) linhas (evita oscilar com o ruído das medidas).
+     */
+    private static final double REBALANCE_MIN_GAIN = 0.05;
+
+    /**
+     * Chamadas medidas de cada worker, desde a última mudança, antes de mover
+     * as fronteiras de novo.
+     */
+    private static final int REBALANCE_MIN_SAMPLES = 2;
+
+    /**
+     * Medidas de custo por linha guardadas por worker para os prazos.
+     */
+    private static final int ROW_WINDOW = 64;
+
+    private double rowNanos = 0; // Tempo de cálculo de uma linha (calibrado localmente)
+    private double callOverheadNanos = -1; // Média móvel do custo fixo por chamada
+    private double latencyNanos = -1; // Menor tempo de uma chamada sem dados (sondado)
+    private double codecNanosPerByte = -1; // Codificar e decodificar um byte (calibrado localmente)
+    private double sampleRatio = 1; // Razão de compressão de uma amostra de T
+    private double transferNanosPerByte = -1; // Média móvel do tempo de transferência por byte
+    private long codecRaw0; // CodecCounters na última decisão, para a razão observada
+    private long codecEncoded0;
+
+    private boolean loadBalancing = true;
+    private int[] rowAssignment; // Linhas interiores por participante (null = divisão igual)
+    private int rebalanceCount = 0;
+    private double[] workerLatencyNanos; // Latência sondada de cada participante (null = não sondada)
+    private final double[] workerRowNanos; // Média móvel do custo por linha e passo de cada participante
+    private final int[] workerSamples; // Chamadas medidas desde o último rebalanceamento
+    private final int[] workerThreads; // Threads de cálculo de cada participante (peso da divisão inicial)
+    private final LatencyWindow[] workerRowWindows; // Custo por linha recente de cada participante
+
+    /**
+     * @param workers      número de workers; o coordenador fica no índice
+     *                     seguinte
+     * @param localThreads threads de cálculo do coordenador
+     */
+    WorkerCostModel(int workers, int localThreads) {
+        this.workerRowNanos = new double[workers + 1];
+        this.workerSamples = new int[workers + 1];
+        this.workerThreads = new int[workers + 1];
+        Arrays.fill(workerThreads, 1);
+        workerThreads[workers] = localThreads;
+        this.workerRowWindows = new LatencyWindow[workers + 1];
+        for (int i = 0; i < workerRowWindows.length; i++)
+            workerRowWindows[i] = new LatencyWindow(ROW_WINDOW);
+    }
+
+    /**
+     * Profundidade escolhida pelo modelo de custo para o próximo lote.
+     *
+     * Modelo: um lote de k passos numa faixa de R linhas custa O + c·k·(R + k
+     * - 1), onde O é o custo fixo da chamada (latência, serialização,
+     * transferência) e c o tempo de cálculo de uma linha (o termo k - 1 é a
+     * computação redundante da zona fantasma). Por passo, O/k + c·(R + k - 1),
+     * mínimo em k = √(O / c).
+     */
+    synchronized int ghostDepth() {
+        if (rowNanos <= 0 || callOverheadNanos < 0)
+            return BATCH_SIZE;
+        long k = Math.round(Math.sqrt(callOverheadNanos / rowNanos));
+        return (int) Math.max(1, Math.min(MAX_GHOST_DEPTH, k));
+    }
+
+    /**
+     * Registra a duração de uma chamada ao worker de índice 'worker', de
+     * 'depth' passos sobre 'rows' linhas, que trocou 'bytes' bytes de
+     * temperaturas (antes da compressão), e atualiza as estimativas do custo
+     * fixo por chamada, do tempo de transferência por byte e do custo por
+     * linha do worker (médias móveis).
+     *
+     * O custo fixo O é separado na latência L (sondada com chamadas sem dados)
+     * e na transferência. Com compressão, os bytes na rede são bytes / razão e
+     * O inclui o codec nas duas pontas.
+     */
+    synchronized void recordCall(int worker, long callNanos, int depth, int rows, long bytes, boolean compressed) {
+        recordCall(worker, callNanos, (double) depth * (rows + depth - 1), bytes, compressed);
+    }
+
+    /**
+     * Como recordCall por faixa, para um intervalo em que o worker calculou
+     * 'computedRows' linhas × passos (zonas fantasma incluídas), em uma ou
+     * mais chamadas.
+     */
+    synchronized void recordCall(int worker, long callNanos, double computedRows, long bytes, boolean compressed) {
+        workerRowWindows[worker].add(recordWorker(worker, callNanos, computedRows));
+        double compute = rowNanos * computedRows;
+        double overhead = Math.max(0, callNanos - compute);
+        callOverheadNanos = callOverheadNanos < 0 ? overhead : 0.75 * callOverheadNanos + 0.25 * overhead;
+        if (latencyNanos < 0 || bytes <= 0)
+            return;
+        double transfer = overhead - latencyNanos;
+        double wireBytes = bytes;
+        if (compressed) {
+            transfer -= codecNanosPerByte * bytes;
+            wireBytes = bytes / compressionRatio();
+        }
+        double perByte = Math.max(0, transfer) / wireBytes;
+        transferNanosPerByte = transferNanosPerByte < 0 ? perByte
+                : 0.75 * transferNanosPerByte + 0.25 * perByte;
+    }
+
+    /**
+     * Atualiza o custo por linha e passo do worker: a duração da chamada menos
+     * sua latência, dividida pelas linhas calculadas (faixa e zona fantasma).
+     * Inclui a transferência, que também cresce com as linhas da faixa.
+     * Devolve o custo por linha desta medida.
+     */
+    synchronized double recordWorker(int worker, long callNanos, int depth, int rows) {
+        return recordWorker(worker, callNanos, (double) depth * (rows + depth - 1));
+    }
+
+    synchronized double recordWorker(int worker, long callNanos, double computedRows) {
+        double latency = latency(worker);
+        double perRow = Math.max(1.0, callNanos - latency) / computedRows;
+        double prev = workerRowNanos[worker];
+        workerRowNanos[worker] = prev <= 0 ? perRow : 0.75 * prev + 0.25 * perRow;
+        workerSamples[worker]++;
+        return perRow;
+    }
+
+    /**
+     * Esquece as medidas do worker que falhou: ao voltar, ele é medido de
+     * novo.
+     */
+    synchronized void forget(int worker) {
+        workerRowNanos[worker] = 0;
+        workerSamples[worker] = 0;
+        workerRowWindows[worker].clear();
+    }
+
+    /**
+     * Registra um worker reconectado: sua latência e threads, e volta à
+     * divisão igual, rebalanceada com as novas medidas.
+     */
+    synchronized void reconnected(int worker, double latency, int threads) {
+        if (workerLatencyNanos != null)
+            workerLatencyNanos[worker] = latency;
+        workerThreads[worker] = threads;
+        rowAssignment = null;
+        Arrays.fill(workerSamples, 0);
+    }
+
+    synchronized void setThreads(int worker, int threads) {
+        workerThreads[worker] = threads;
+    }
+
+    synchronized int threads(int worker) {
+        return workerThreads[worker];
+    }
+
+    /**
+     * Custo medido por linha e passo do participante (≤ 0 se ainda não
+     * medido).
+     */
+    synchronized double rowNanos(int worker) {
+        return workerRowNanos[worker];
+    }
+
+    /**
+     * Percentil 'p' do custo por linha recente do participante, ou NaN se ele
+     * tem menos de 'minSamples' medidas.
+     */
+    synchronized double recentRowNanos(int worker, double p, int minSamples) {
+        LatencyWindow window = workerRowWindows[worker];
+        return window.size() < minSamples ? Double.NaN : window.percentile(p);
+    }
+
+    /**
+     * Latência sondada do participante, ou 0 se ainda não sondada.
+     */
+    synchronized double latency(int worker) {
+        return workerLatencyNanos != null ? Math.max(0, workerLatencyNanos[worker]) : 0;
+    }
+
+    /**
+     * Latência sondada do participante, ou -1 se ainda não sondada.
+     */
+    synchronized double probedLatency(int worker) {
+        return workerLatencyNanos != null ? workerLatencyNanos[worker] : -1;
+    }
+
+    synchronized boolean hasLatencies() {
+        return workerLatencyNanos != null;
+    }
+
+    /**
+     * Guarda a latência sondada de cada participante e a menor delas.
+     */
+    synchronized void setLatencies(double[] latencies, double min) {
+        workerLatencyNanos = latencies;
+        latencyNanos = min;
+    }
+
+    synchronized boolean hasRowNanos() {
+        return rowNanos > 0;
+    }
+
+    /**
+     * Guarda o tempo de cálculo de uma linha medido localmente.
+     */
+    synchronized void setRowNanos(double nanos) {
+        rowNanos = nanos;
+    }
+
+    synchronized boolean hasCodecCost() {
+        return codecNanosPerByte > 0;
+    }
+
+    /**
+     * Guarda o custo do codec por byte e a razão de compressão de uma amostra
+     * de T, medidos localmente.
+     */
+    synchronized void setCodecCost(double nanosPerByte, double ratio) {
+        codecNanosPerByte = nanosPerByte;
+        sampleRatio = ratio;
+    }
+
+    /**
+     * Recomeça a razão observada a partir dos CodecCounters atuais (a cada
+     * mudança da decisão de compressão).
+     */
+    synchronized void markCodecCounters() {
+        codecRaw0 = CodecCounters.rawBytes();
+        codecEncoded0 = CodecCounters.encodedBytes();
+    }
+
+    /**
+     * Razão de compressão esperada: a observada em CodecCounters desde a
+     * última decisão, se houve blocos comprimidos, ou a da amostra de T.
+     */
+    private double compressionRatio() {
+        long encoded = CodecCounters.encodedBytes() - codecEncoded0;
+        if (encoded > 0)
+            return Math.max(1, (double) (CodecCounters.rawBytes() - codecRaw0) / encoded);
+        return sampleRatio;
+    }
+
+    /**
+     * Se a compressão compensa no próximo lote; 'compressing' (sem mudança)
+     * enquanto não há medidas.
+     *
+     * Por byte de temperaturas, comprimir poupa t·(1 - 1/r) de transferência
+     * (t = tempo de transferência por byte na rede, r = razão de compressão) e
+     * custa c (codificar e decodificar um byte). Liga quando t·(1 - 1/r) > c
+     * com folga: com rede lenta para o volume trocado (banda como gargalo) a
+     * economia domina; se o custo das chamadas é quase todo latência, t fica
+     * perto de zero e a compressão continua desligada.
+     */
+    synchronized boolean compressionPays(boolean compressing) {
+        if (transferNanosPerByte < 0 || codecNanosPerByte <= 0)
+            return compressing;
+        double ratio = compressionRatio();
+        double saved = transferNanosPerByte * (1 - 1 / ratio);
+        boolean on = compressing ? saved >= codecNanosPerByte
+                : saved > COMPRESSION_HYSTERESIS * codecNanosPerByte;
+        if (compressing) {
+            // Só a razão observada desde a última decisão conta na próxima
+            sampleRatio = ratio;
+            markCodecCounters();
+        }
+        return on;
+    }
+
+    /**
+     * Liga ou desliga o balanceamento por vazão medida. Desligado, as linhas
+     * voltam a ser divididas igualmente.
+     */
+    synchronized void setLoadBalancing(boolean enabled) {
+        this.loadBalancing = enabled;
+        if (!enabled)
+            rowAssignment = null;
+    }
+
+    synchronized boolean isLoadBalancing() {
+        return loadBalancing;
+    }
+
+    synchronized int getRebalanceCount() {
+        return rebalanceCount;
+    }
+
+    /**
+     * Volta à divisão igual (os participantes mudaram).
+     */
+    synchronized void resetAssignment() {
+        rowAssignment = null;
+    }
+
+    /**
+     * Linhas interiores de cada participante: a divisão balanceada atual, ou a
+     * divisão igual (os primeiros interior % participantes recebem uma linha a
+     * mais; com mais participantes que linhas, os últimos ficam sem nenhuma).
+     *
+     * As linhas de participantes indisponíveis passam aos disponíveis, em
+     * proporção às que eles já têm (maiores restos primeiro). Sem nenhum
+     * disponível, a divisão fica como está e as faixas são calculadas
+     * localmente.
+     *
+     * @param interior  linhas interiores da malha
+     * @param workers   participantes da divisão
+     * @param available se o participante i pode receber linhas
+     */
+    synchronized int[] assignment(int interior, int workers, IntPredicate available) {
+        int[] rows = new int[workers];
+        if (rowAssignment != null && rowAssignment.length == workers) {
+            rows = rowAssignment.clone();
+        } else {
+            int live = 0;
+            for (int i = 0; i < workers; i++)
+                if (available.test(i))
+                    live++;
+            // Divisão proporcional às threads de cálculo de cada participante
+            // (igual se todos têm as mesmas) entre os disponíveis, ou entre
+            // todos se nenhum; sobras pelo maior resto
+            long total = 0;
+            for (int i = 0; i < workers; i++)
+                if (live == 0 || available.test(i))
+                    total += workerThreads[i];
+            double[] fraction = new double[workers];
+            int given = 0;
+            for (int i = 0; i < workers; i++) {
+                if (live > 0 && !available.test(i)) {
+                    fraction[i] = -1;
+                    continue;
+                }
+                double share = (double) interior * workerThreads[i] / total;
+                rows[i] = (int) share;
+                given += rows[i];
+                fraction[i] = share - rows[i];
+            }
+            while (given < interior) {
+                int best = 0;
+                for (int i = 1; i < workers; i++)
+                    if (fraction[i] > fraction[best])
+                        best = i;
+                rows[best]++;
+                fraction[best] = -1;
+                given++;
+            }
+            return rows;
+        }
+        int orphan = 0;
+        int kept = 0;
+        for (int i = 0; i < workers; i++) {
+            if (!available.test(i)) {
+                orphan += rows[i];
+            } else {
+                kept += rows[i];
+            }
+        }
+        if (orphan == 0 || kept == 0)
+            return rows;
+        double[] fraction = new double[workers];
+        int given = 0;
+        for (int i = 0; i < workers; i++) {
+            if (!available.test(i)) {
+                rows[i] = 0;
+                fraction[i] = -1;
+                continue;
+            }
+            double share = (double) orphan * rows[i] / kept;
+            rows[i] += (int) share;
+            given += (int) share;
+            fraction[i] = share - (int) share;
+        }
+        while (given < orphan) {
+            int best = 0;
+            for (int i = 1; i < workers; i++)
+                if (fraction[i] > fraction[best])
+                    best = i;
+            rows[best]++;
+            fraction[best] = -1;
+            given++;
+        }
+        return rows;
+    }
+
+    /**
+     * Move as fronteiras das faixas para igualar o tempo de término previsto
+     * dos participantes num lote de k passos, se todos têm medidas novas
+     * (REBALANCE_MIN_SAMPLES chamadas) desde a última mudança.
+     *
+     * Modelo: a chamada do worker i sobre R linhas dura L_i + c_i·k·(R + k -
+     * 1), com L_i a latência sondada e c_i o custo medido por linha e passo.
+     * Igualando as durações a τ e somando as linhas, τ = (k·(I + m·(k - 1)) +
+     * Σ L_i/c_i) / Σ 1/c_i para os m workers e I linhas interiores, e R_i =
+     * (τ - L_i)/(k·c_i) - (k - 1). Cada worker mantém ao menos uma linha (para
+     * continuar sendo medido); os que ficariam abaixo disso são fixados em uma
+     * e τ é recalculado para os demais.
+     *
+     * @param interior  linhas interiores da malha
+     * @param workers   participantes da divisão
+     * @param available se o participante i pode receber linhas
+     */
+    synchronized void rebalance(int k, int interior, int workers, IntPredicate available) {
+        int[] current = assignment(interior, workers, available);
+        int participants = 0;
+        for (int i = 0; i < workers; i++) {
+            if (current[i] == 0)
+                continue; // Indisponível, ou sem linhas na divisão igual
+            participants++;
+            if (workerSamples[i] < REBALANCE_MIN_SAMPLES || workerRowNanos[i] <= 0)
+                return; // Sem medidas suficientes; tenta no próximo lote
+        }
+        if (!loadBalancing || participants < 2 || interior < participants)
+            return;
+        double[] latency = new double[workers];
+        for (int i = 0; i < workers; i++)
+            latency[i] = latency(i);
+
+        double[] ideal = new double[workers];
+        boolean[] pinned = new boolean[workers];
+        for (int i = 0; i < workers; i++)
+            pinned[i] = current[i] == 0; // Fora da divisão: fica sem linhas
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            int free = 0;
+            int rowsLeft = interior;
+            double sumInv = 0;
+            double sumLat = 0;
+            for (int i = 0; i < workers; i++) {
+                if (pinned[i]) {
+                    rowsLeft -= (int) ideal[i];
+                    continue;
+                }
+                free++;
+                sumInv += 1 / workerRowNanos[i];
+                sumLat += latency[i] / workerRowNanos[i];
+            }
+            double tau = (k * (rowsLeft + free * (k - 1.0)) + sumLat) / sumInv;
+            for (int i = 0; i < workers; i++) {
+                if (pinned[i])
+                    continue;
+                ideal[i] = (tau - latency[i]) / (k * workerRowNanos[i]) - (k - 1);
+                if (ideal[i] < 1) {
+                    pinned[i] = true;
+                    ideal[i] = 1;
+                    changed = true;
+                }
+            }
+        }
+
+        // Arredonda mantendo a soma: linhas restantes às maiores frações,
+        // excesso retirado das maiores faixas (como em ParallelHeatSimulator)
+        int[] sizes = new int[workers];
+        double[] fraction = new double[workers];
+        int assigned = 0;
+        for (int i = 0; i < workers; i++) {
+            sizes[i] = current[i] == 0 ? 0 : Math.max(1, (int) ideal[i]);
+            fraction[i] = current[i] == 0 ? -1 : ideal[i] - (int) ideal[i];
+            assigned += sizes[i];
+        }
+        while (assigned < interior) {
+            int best = 0;
+            for (int i = 1; i < workers; i++)
+                if (fraction[i] > fraction[best])
+                    best = i;
+            sizes[best]++;
+            fraction[best] = -1;
+            assigned++;
+        }
+        while (assigned > interior) {
+            int largest = 0;
+            for (int i = 1; i < workers; i++)
+                if (sizes[i] > sizes[largest])
+                    largest = i;
+            sizes[largest]--;
+            assigned--;
+        }
+
+        int maxShift = 0;
+        for (int i = 0; i < workers; i++)
+            maxShift = Math.max(maxShift, Math.abs(sizes[i] - current[i]));
+        double before = predictedBatchNanos(current, latency, k);
+        double after = predictedBatchNanos(sizes, latency, k);
+        Arrays.fill(workerSamples, 0);
+        if (maxShift <= Math.max(1, interior / 100) || after > (1 - REBALANCE_MIN_GAIN) * before)
+            return;
+        rowAssignment = sizes;
+        rebalanceCount++;
+    }
+
+    /**
+     * Duração prevista de um lote de k passos: a do worker mais lento.
+     */
+    private double predictedBatchNanos(int[] rows, double[] latency, int k) {
+        double worst = 0;
+        for (int i = 0; i < rows.length; i++) {
+            if (rows[i] > 0)
+                worst = Math.max(worst, latency[i] + workerRowNanos[i] * k * (rows[i] + k - 1));
+        }
+        return worst;
+    }
+}
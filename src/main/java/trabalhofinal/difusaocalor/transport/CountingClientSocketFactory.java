@@ -0,0 +1,91 @@
+package trabalhofinal.difusaocalor.transport;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.net.Socket;
+import java.rmi.server.RMIClientSocketFactory;
+
+/**
+ * Fábrica de sockets RMI do lado cliente que conta os bytes em WireCounters.
+ *
+ * O worker a informa ao se exportar; ela viaja serializada no stub, de modo
+ * que os sockets que o coordenador abre para o worker contam o tráfego RMI
+ * real (serialização incluída) na JVM do coordenador.
+ */
+public final class CountingClientSocketFactory implements RMIClientSocketFactory, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+        return new CountingSocket(host, port);
+    }
+
+    // O RMI reaproveita conexões de stubs com fábricas iguais
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof CountingClientSocketFactory;
+    }
+
+    @Override
+    public int hashCode() {
+        return CountingClientSocketFactory.class.hashCode();
+    }
+
+    private static final class CountingSocket extends Socket {
+        private InputStream countingIn;
+        private OutputStream countingOut;
+
+        CountingSocket(String host, int port) throws IOException {
+            super(host, port);
+        }
+
+        @Override
+        public synchronized InputStream getInputStream() throws IOException {
+            if (countingIn == null) {
+                countingIn = new FilterInputStream(super.getInputStream()) {
+                    @Override
+                    public int read() throws IOException {
+                        int b = super.read();
+                        if (b >= 0)
+                            WireCounters.addReceived(1);
+                        return b;
+                    }
+
+                    @Override
+                    public int read(byte[] b, int off, int len) throws IOException {
+                        int r = super.read(b, off, len);
+                        if (r > 0)
+                            WireCounters.addReceived(r);
+                        return r;
+                    }
+                };
+            }
+            return countingIn;
+        }
+
+        @Override
+        public synchronized OutputStream getOutputStream() throws IOException {
+            if (countingOut == null) {
+                countingOut = new FilterOutputStream(super.getOutputStream()) {
+                    @Override
+                    public void write(int b) throws IOException {
+                        out.write(b);
+                        WireCounters.addSent(1);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        out.write(b, off, len);
+                        WireCounters.addSent(len);
+                    }
+                };
+            }
+            return countingOut;
+        }
+    }
+}
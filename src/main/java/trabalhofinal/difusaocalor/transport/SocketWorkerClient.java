@@ -0,0 +1,373 @@
+package trabalhofinal.difusaocalor.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.rmi.RemoteException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import trabalhofinal.difusaocalor.rmi.GridBlock;
+import trabalhofinal.difusaocalor.rmi.Worker;
+
+/**
+ * Cliente do transporte binário: implementa Worker enviando cada chamada por
+ * uma conexão SocketChannel persistente a um SocketWorkerServer.
+ *
+ * Em relação ao RMI:
+ * - Linhas vão como blocos de doubles escritos direto de um ByteBuffer
+ * direto reutilizado (WireBuffer), sem serialização Java (cabeçalhos por
+ * linha, reflexão, cópias intermediárias)
+ * - Uma única conexão por worker, aberta uma vez
+ * - Pipelining: várias chamadas concorrentes (de threads diferentes) ficam em
+ * andamento na mesma conexão; cada resposta leva o id da requisição e é
+ * entregue por uma thread leitora à chamada correspondente
+ *
+ * Falhas de conexão chegam como RemoteException, como no RMI. Depois de uma
+ * falha o cliente fica inutilizável.
+ */
+public final class SocketWorkerClient implements Worker, Closeable {
+
+    /**
+     * Lê o retorno de uma operação a partir do conteúdo da resposta.
+     */
+    @FunctionalInterface
+    private interface Decoder<T> {
+        T read(WireBuffer in);
+    }
+
+    /**
+     * Escreve os argumentos de uma operação.
+     */
+    @FunctionalInterface
+    private interface Encoder {
+        void write(WireBuffer out);
+    }
+
+    private static final Decoder<Void> NO_RESULT = in -> null;
+
+    private final String address;
+    private final SocketChannel channel;
+    private final WireBuffer writeBuffer = new WireBuffer(); // Protegido por writeLock
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final AtomicLong nextId = new AtomicLong();
+    private final Map<Long, Pending<?>> pending = new ConcurrentHashMap<>();
+    private volatile IOException failure; // Causa do encerramento da conexão
+
+    private static final class Pending<T> {
+        final Decoder<T> decoder;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+
+        Pending(Decoder<T> decoder) {
+            this.decoder = decoder;
+        }
+
+        void complete(WireBuffer in) {
+            result.complete(decoder.read(in));
+        }
+    }
+
+    private SocketWorkerClient(String host, int port) throws IOException {
+        this.address = host + ":" + port;
+        this.channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.socket().setTcpNoDelay(true);
+        Thread reader = new Thread(this::readLoop, "socket-worker-client-" + address);
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Conecta ao worker em host:port.
+     *
+     * @throws RemoteException se a conexão falhar
+     */
+    public static SocketWorkerClient connect(String host, int port) throws RemoteException {
+        try {
+            return new SocketWorkerClient(host, port);
+        } catch (IOException ex) {
+            throw new RemoteException("Falha ao conectar com " + host + ":" + port, ex);
+        }
+    }
+
+    /**
+     * Thread leitora: entrega cada resposta à chamada com o mesmo id.
+     */
+    private void readLoop() {
+        WireBuffer in = new WireBuffer();
+        try {
+            int bytes;
+            while ((bytes = in.readFrame(channel)) >= 0) {
+                WireCounters.addReceived(bytes);
+                long id = in.getLong();
+                byte status = in.getByte();
+                Pending<?> p = pending.remove(id);
+                if (p == null)
+                    continue;
+                if (status == WireProtocol.STATUS_OK) {
+                    try {
+                        p.complete(in);
+                    } catch (RuntimeException ex) {
+                        p.result.completeExceptionally(ex);
+                    }
+                } else {
+                    p.result.completeExceptionally(new RemoteException(in.getString()));
+                }
+            }
+            fail(new IOException("Conexão encerrada pelo worker " + address));
+        } catch (IOException ex) {
+            fail(ex);
+        }
+    }
+
+    private void fail(IOException cause) {
+        failure = cause;
+        for (Long id : pending.keySet()) {
+            Pending<?> p = pending.remove(id);
+            if (p != null)
+                p.result.completeExceptionally(cause);
+        }
+        try {
+            channel.close();
+        } catch (IOException ignore) {
+        }
+    }
+
+    /**
+     * Envia uma requisição e aguarda a resposta correspondente. Outras
+     * threads podem enviar requisições enquanto esta aguarda.
+     */
+    private <T> T call(byte op, Encoder args, Decoder<T> decoder) throws RemoteException {
+        if (failure != null)
+            throw new RemoteException("Conexão com " + address + " encerrada", failure);
+        long id = nextId.incrementAndGet();
+        Pending<T> p = new Pending<>(decoder);
+        pending.put(id, p);
+        writeLock.lock();
+        try {
+            writeBuffer.beginFrame();
+            writeBuffer.putLong(id);
+            writeBuffer.putByte(op);
+            args.write(writeBuffer);
+            WireCounters.addSent(writeBuffer.writeFrame(channel));
+        } catch (IOException ex) {
+            pending.remove(id);
+            fail(ex);
+            throw new RemoteException("Falha ao enviar requisição para " + address, ex);
+        } finally {
+            writeLock.unlock();
+        }
+        // A conexão pode ter caído entre o registro e o envio
+        if (failure != null && pending.remove(id) != null)
+            throw new RemoteException("Conexão com " + address + " encerrada", failure);
+        try {
+            return p.result.get();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RemoteException re)
+                throw re;
+            throw new RemoteException("Falha na chamada ao worker " + address, cause);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RemoteException("Interrompido aguardando o worker " + address, ex);
+        }
+    }
+
+    /**
+     * Indica se a conexão já foi encerrada (por falha ou close).
+     */
+    public boolean isClosed() {
+        return failure != null;
+    }
+
+    @Override
+    public void close() {
+        fail(new IOException("Conexão fechada pelo cliente"));
+    }
+
+    @Override
+    public void initializeMatrix(double[][] T, int n) throws RemoteException {
+        call(WireProtocol.INITIALIZE_MATRIX, out -> {
+            out.putRows(T);
+            out.putInt(n);
+        }, NO_RESULT);
+    }
+
+    @Override
+    public double[][] computeBlock(double[][] block, int startRow, int endRow, double alpha, double dx, double dy,
+            double dt) throws RemoteException {
+        return call(WireProtocol.COMPUTE_BLOCK, out -> {
+            out.putRows(block);
+            out.putInt(startRow);
+            out.putInt(endRow);
+            out.putDouble(alpha);
+            out.putDouble(dx);
+            out.putDouble(dy);
+            out.putDouble(dt);
+        }, WireBuffer::getRows);
+    }
+
+    @Override
+    public double[][] computeMultipleSteps(double[][] initialBlock, int startRow, int endRow, double alpha,
+            double dx, double dy, double dt, int numSteps) throws RemoteException {
+        return call(WireProtocol.COMPUTE_MULTIPLE_STEPS, out -> {
+            out.putRows(initialBlock);
+            out.putInt(startRow);
+            out.putInt(endRow);
+            out.putDouble(alpha);
+            out.putDouble(dx);
+            out.putDouble(dy);
+            out.putDouble(dt);
+            out.putInt(numSteps);
+        }, WireBuffer::getRows);
+    }
+
+    @Override
+    public void updateMatrix(double[][] newT) throws RemoteException {
+        call(WireProtocol.UPDATE_MATRIX, out -> out.putRows(newT), NO_RESULT);
+    }
+
+    @Override
+    public void updateBoundaryRows(int startRow, int endRow, double[] rowBeforeStart, double[] rowAfterEnd)
+            throws RemoteException {
+        call(WireProtocol.UPDATE_BOUNDARY_ROWS, out -> {
+            out.putInt(startRow);
+            out.putInt(endRow);
+            out.putDoubles(rowBeforeStart);
+            out.putDoubles(rowAfterEnd);
+        }, NO_RESULT);
+    }
+
+    @Override
+    public String selectKernel(String kernelName) throws RemoteException {
+        return call(WireProtocol.SELECT_KERNEL, out -> out.putString(kernelName), WireBuffer::getString);
+    }
+
+    @Override
+    public int getThreadCount() throws RemoteException {
+        return call(WireProtocol.GET_THREAD_COUNT, out -> {
+        }, WireBuffer::getInt);
+    }
+
+    @Override
+    public long getBusyNanos() throws RemoteException {
+        return call(WireProtocol.GET_BUSY_NANOS, out -> {
+        }, WireBuffer::getLong);
+    }
+
+    @Override
+    public void connectNeighbors(int startRow, int endRow, String upUrl, int upStartRow, String downUrl)
+            throws RemoteException {
+        call(WireProtocol.CONNECT_NEIGHBORS, out -> {
+            out.putInt(startRow);
+            out.putInt(endRow);
+            out.putString(upUrl);
+            out.putInt(upStartRow);
+            out.putString(downUrl);
+        }, NO_RESULT);
+    }
+
+    @Override
+    public long[] runPeerSteps(int startRow, int endRow, double alpha, double dx, double dy, double dt,
+            int numSteps, int depth, boolean overlap) throws RemoteException {
+        return call(WireProtocol.RUN_PEER_STEPS, out -> {
+            out.putInt(startRow);
+            out.putInt(endRow);
+            out.putDouble(alpha);
+            out.putDouble(dx);
+            out.putDouble(dy);
+            out.putDouble(dt);
+            out.putInt(numSteps);
+            out.putInt(depth);
+            out.putBoolean(overlap);
+        }, WireBuffer::getLongs);
+    }
+
+    @Override
+    public void initializeMatrix(GridBlock T) throws RemoteException {
+        call(WireProtocol.INITIALIZE_MATRIX_BLOCK, out -> out.putBlock(T), NO_RESULT);
+    }
+
+    @Override
+    public GridBlock computeBlock(GridBlock block, int startRow, int endRow, double alpha, double dx, double dy,
+            double dt) throws RemoteException {
+        return call(WireProtocol.COMPUTE_BLOCK_BLOCK, out -> {
+            out.putBlock(block);
+            out.putInt(startRow);
+            out.putInt(endRow);
+            out.putDouble(alpha);
+            out.putDouble(dx);
+            out.putDouble(dy);
+            out.putDouble(dt);
+        }, WireBuffer::getBlock);
+    }
+
+    @Override
+    public GridBlock computeGhostZoneSteps(GridBlock block, int startRow, int endRow, double alpha, double dx,
+            double dy, double dt, int numSteps) throws RemoteException {
+        return call(WireProtocol.COMPUTE_GHOST_ZONE_STEPS, out -> {
+            out.putBlock(block);
+            out.putInt(startRow);
+            out.putInt(endRow);
+            out.putDouble(alpha);
+            out.putDouble(dx);
+            out.putDouble(dy);
+            out.putDouble(dt);
+            out.putInt(numSteps);
+        }, WireBuffer::getBlock);
+    }
+
+    @Override
+    public void loadStrip(int startRow, int endRow, GridBlock rows) throws RemoteException {
+        call(WireProtocol.LOAD_STRIP, out -> {
+            out.putInt(startRow);
+            out.putInt(endRow);
+            out.putBlock(rows);
+        }, NO_RESULT);
+    }
+
+    @Override
+    public GridBlock stepStrip(int startRow, int endRow, GridBlock ghostBefore, GridBlock ghostAfter, double alpha,
+            double dx, double dy, double dt, int numSteps, int returnRows) throws RemoteException {
+        return call(WireProtocol.STEP_STRIP, out -> {
+            out.putInt(startRow);
+            out.putInt(endRow);
+            out.putBlock(ghostBefore);
+            out.putBlock(ghostAfter);
+            out.putDouble(alpha);
+            out.putDouble(dx);
+            out.putDouble(dy);
+            out.putDouble(dt);
+            out.putInt(numSteps);
+            out.putInt(returnRows);
+        }, WireBuffer::getBlock);
+    }
+
+    @Override
+    public GridBlock getStripBlock(int startRow, int endRow) throws RemoteException {
+        return call(WireProtocol.GET_STRIP_BLOCK, out -> {
+            out.putInt(startRow);
+            out.putInt(endRow);
+        }, WireBuffer::getBlock);
+    }
+
+    @Override
+    public void putGhostRows(int startRow, long exchange, boolean fromAbove, GridBlock rows)
+            throws RemoteException {
+        call(WireProtocol.PUT_GHOST_ROWS, out -> {
+            out.putInt(startRow);
+            out.putLong(exchange);
+            out.putBoolean(fromAbove);
+            out.putBlock(rows);
+        }, NO_RESULT);
+    }
+
+    @Override
+    public String toString() {
+        return "SocketWorkerClient[" + address + "]";
+    }
+}
@@ -0,0 +1,330 @@
+package trabalhofinal.difusaocalor.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+import trabalhofinal.difusaocalor.rmi.GridBlock;
+import trabalhofinal.difusaocalor.rmi.Worker;
+
+/**
+ * Servidor do transporte binário: expõe um Worker local numa porta TCP para
+ * clientes SocketWorkerClient (URLs tcp://host:porta).
+ *
+ * Cada conexão tem uma thread leitora que decodifica as requisições e as
+ * executa em um pool de threads; as respostas são escritas assim que prontas
+ * (fora de ordem, identificadas pelo id). Executar em paralelo é necessário:
+ * no modo ponto a ponto runPeerSteps bloqueia à espera de putGhostRows que
+ * podem chegar pela mesma conexão.
+ */
+public final class SocketWorkerServer implements Closeable {
+
+    private final Worker worker;
+    private final ServerSocketChannel server;
+    private final ExecutorService pool;
+
+    /**
+     * Abre a porta e começa a aceitar conexões em uma thread própria.
+     *
+     * @param worker implementação local que atende as chamadas
+     * @param port   porta TCP
+     */
+    public SocketWorkerServer(Worker worker, int port) throws IOException {
+        this.worker = worker;
+        this.server = ServerSocketChannel.open().bind(new InetSocketAddress(port));
+        this.pool = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "socket-worker-call");
+            t.setDaemon(true);
+            return t;
+        });
+        Thread acceptor = new Thread(this::acceptLoop, "socket-worker-accept-" + port);
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    private void acceptLoop() {
+        try {
+            while (true) {
+                SocketChannel channel = server.accept();
+                channel.socket().setTcpNoDelay(true);
+                Thread reader = new Thread(() -> serve(channel), "socket-worker-conn");
+                reader.setDaemon(true);
+                reader.start();
+            }
+        } catch (ClosedChannelException ex) {
+            // Servidor encerrado
+        } catch (IOException ex) {
+            System.err.println("Aviso: falha ao aceitar conexão: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Atende uma conexão até o cliente fechá-la.
+     */
+    private void serve(SocketChannel channel) {
+        WireBuffer in = new WireBuffer();
+        WireBuffer out = new WireBuffer(); // Protegido por writeLock
+        ReentrantLock writeLock = new ReentrantLock();
+        try (channel) {
+            while (in.readFrame(channel) >= 0) {
+                long id = in.getLong();
+                byte op = in.getByte();
+                Call call;
+                try {
+                    call = decode(op, in);
+                } catch (RuntimeException ex) {
+                    call = () -> {
+                        throw ex;
+                    };
+                }
+                Call c = call;
+                pool.execute(() -> respond(channel, out, writeLock, id, c));
+            }
+        } catch (IOException ex) {
+            // Conexão encerrada pelo cliente ou com falha: chamadas pendentes
+            // terminam e suas respostas se perdem
+        }
+    }
+
+    /**
+     * Chamada já decodificada; grava o retorno (sem status) em 'out'.
+     */
+    @FunctionalInterface
+    private interface Call {
+        Reply invoke() throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface Reply {
+        void write(WireBuffer out);
+    }
+
+    private static final Reply NO_REPLY = out -> {
+    };
+
+    private void respond(SocketChannel channel, WireBuffer out, ReentrantLock writeLock, long id, Call call) {
+        Reply reply;
+        String error = null;
+        try {
+            reply = call.invoke();
+        } catch (Exception ex) {
+            reply = null;
+            error = ex.getMessage() != null ? ex.getMessage() : ex.toString();
+        }
+        writeLock.lock();
+        try {
+            out.beginFrame();
+            out.putLong(id);
+            if (error == null) {
+                out.putByte(WireProtocol.STATUS_OK);
+                reply.write(out);
+            } else {
+                out.putByte(WireProtocol.STATUS_ERROR);
+                out.putString(error);
+            }
+            out.writeFrame(channel);
+        } catch (IOException ex) {
+            // Cliente desconectado: a resposta não tem destino
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Lê os argumentos da operação (na thread leitora, antes do próximo
+     * quadro reutilizar o buffer) e devolve a chamada correspondente.
+     */
+    private Call decode(byte op, WireBuffer in) {
+        switch (op) {
+            case WireProtocol.INITIALIZE_MATRIX: {
+                double[][] T = in.getRows();
+                int n = in.getInt();
+                return () -> {
+                    worker.initializeMatrix(T, n);
+                    return NO_REPLY;
+                };
+            }
+            case WireProtocol.COMPUTE_BLOCK: {
+                double[][] block = in.getRows();
+                int startRow = in.getInt();
+                int endRow = in.getInt();
+                double alpha = in.getDouble();
+                double dx = in.getDouble();
+                double dy = in.getDouble();
+                double dt = in.getDouble();
+                return () -> {
+                    double[][] r = worker.computeBlock(block, startRow, endRow, alpha, dx, dy, dt);
+                    return out -> out.putRows(r);
+                };
+            }
+            case WireProtocol.COMPUTE_MULTIPLE_STEPS: {
+                double[][] block = in.getRows();
+                int startRow = in.getInt();
+                int endRow = in.getInt();
+                double alpha = in.getDouble();
+                double dx = in.getDouble();
+                double dy = in.getDouble();
+                double dt = in.getDouble();
+                int numSteps = in.getInt();
+                return () -> {
+                    double[][] r = worker.computeMultipleSteps(block, startRow, endRow, alpha, dx, dy, dt, numSteps);
+                    return out -> out.putRows(r);
+                };
+            }
+            case WireProtocol.UPDATE_MATRIX: {
+                double[][] newT = in.getRows();
+                return () -> {
+                    worker.updateMatrix(newT);
+                    return NO_REPLY;
+                };
+            }
+            case WireProtocol.UPDATE_BOUNDARY_ROWS: {
+                int startRow = in.getInt();
+                int endRow = in.getInt();
+                double[] before = in.getDoubles();
+                double[] after = in.getDoubles();
+                return () -> {
+                    worker.updateBoundaryRows(startRow, endRow, before, after);
+                    return NO_REPLY;
+                };
+            }
+            case WireProtocol.SELECT_KERNEL: {
+                String name = in.getString();
+                return () -> {
+                    String r = worker.selectKernel(name);
+                    return out -> out.putString(r);
+                };
+            }
+            case WireProtocol.GET_THREAD_COUNT: {
+                return () -> {
+                    int r = worker.getThreadCount();
+                    return out -> out.putInt(r);
+                };
+            }
+            case WireProtocol.GET_BUSY_NANOS: {
+                return () -> {
+                    long r = worker.getBusyNanos();
+                    return out -> out.putLong(r);
+                };
+            }
+            case WireProtocol.COMPUTE_GHOST_ZONE_STEPS: {
+                GridBlock block = in.getBlock();
+                int startRow = in.getInt();
+                int endRow = in.getInt();
+                double alpha = in.getDouble();
+                double dx = in.getDouble();
+                double dy = in.getDouble();
+                double dt = in.getDouble();
+                int numSteps = in.getInt();
+                return () -> {
+                    GridBlock r = worker.computeGhostZoneSteps(block, startRow, endRow, alpha, dx, dy, dt, numSteps);
+                    return out -> out.putBlock(r);
+                };
+            }
+            case WireProtocol.LOAD_STRIP: {
+                int startRow = in.getInt();
+                int endRow = in.getInt();
+                GridBlock rows = in.getBlock();
+                return () -> {
+                    worker.loadStrip(startRow, endRow, rows);
+                    return NO_REPLY;
+                };
+            }
+            case WireProtocol.STEP_STRIP: {
+                int startRow = in.getInt();
+                int endRow = in.getInt();
+                GridBlock before = in.getBlock();
+                GridBlock after = in.getBlock();
+                double alpha = in.getDouble();
+                double dx = in.getDouble();
+                double dy = in.getDouble();
+                double dt = in.getDouble();
+                int numSteps = in.getInt();
+                int returnRows = in.getInt();
+                return () -> {
+                    GridBlock r = worker.stepStrip(startRow, endRow, before, after, alpha, dx, dy, dt, numSteps,
+                            returnRows);
+                    return out -> out.putBlock(r);
+                };
+            }
+            case WireProtocol.GET_STRIP_BLOCK: {
+                int startRow = in.getInt();
+                int endRow = in.getInt();
+                return () -> {
+                    GridBlock r = worker.getStripBlock(startRow, endRow);
+                    return out -> out.putBlock(r);
+                };
+            }
+            case WireProtocol.CONNECT_NEIGHBORS: {
+                int startRow = in.getInt();
+                int endRow = in.getInt();
+                String upUrl = in.getString();
+                int upStartRow = in.getInt();
+                String downUrl = in.getString();
+                return () -> {
+                    worker.connectNeighbors(startRow, endRow, upUrl, upStartRow, downUrl);
+                    return NO_REPLY;
+                };
+            }
+            case WireProtocol.RUN_PEER_STEPS: {
+                int startRow = in.getInt();
+                int endRow = in.getInt();
+                double alpha = in.getDouble();
+                double dx = in.getDouble();
+                double dy = in.getDouble();
+                double dt = in.getDouble();
+                int numSteps = in.getInt();
+                int depth = in.getInt();
+                boolean overlap = in.getBoolean();
+                return () -> {
+                    long[] r = worker.runPeerSteps(startRow, endRow, alpha, dx, dy, dt, numSteps, depth, overlap);
+                    return out -> out.putLongs(r);
+                };
+            }
+            case WireProtocol.PUT_GHOST_ROWS: {
+                int startRow = in.getInt();
+                long exchange = in.getLong();
+                boolean fromAbove = in.getBoolean();
+                GridBlock rows = in.getBlock();
+                return () -> {
+                    worker.putGhostRows(startRow, exchange, fromAbove, rows);
+                    return NO_REPLY;
+                };
+            }
+            case WireProtocol.INITIALIZE_MATRIX_BLOCK: {
+                GridBlock T = in.getBlock();
+                return () -> {
+                    worker.initializeMatrix(T);
+                    return NO_REPLY;
+                };
+            }
+            case WireProtocol.COMPUTE_BLOCK_BLOCK: {
+                GridBlock block = in.getBlock();
+                int startRow = in.getInt();
+                int endRow = in.getInt();
+                double alpha = in.getDouble();
+                double dx = in.getDouble();
+                double dy = in.getDouble();
+                double dt = in.getDouble();
+                return () -> {
+                    GridBlock r = worker.computeBlock(block, startRow, endRow, alpha, dx, dy, dt);
+                    return out -> out.putBlock(r);
+                };
+            }
+            default:
+                throw new IllegalArgumentException("Operação desconhecida: " + op);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        pool.shutdownNow();
+    }
+}
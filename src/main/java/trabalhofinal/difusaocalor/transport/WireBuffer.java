@@ -0,0 +1,277 @@
+package trabalhofinal.difusaocalor.transport;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+import trabalhofinal.difusaocalor.rmi.GridBlock;
+
+/**
+ * Buffer direto reutilizável para montar e ler quadros do protocolo binário
+ * (ver SocketWorkerClient).
+ *
+ * Formato de um quadro: comprimento (int, bytes que seguem) e conteúdo. Tipos
+ * codificados em little-endian:
+ * - int, long, double: tamanho fixo
+ * - boolean: um byte
+ * - String: comprimento em bytes (-1 = null) e UTF-8
+ * - double[]: comprimento (-1 = null) e os valores
+ * - double[][]: número de linhas (-1 = null) e cada linha como double[]
+ * - GridBlock: linha inicial, linhas (-1 = null), largura, um byte que indica
+ * compressão e os valores (ou, se comprimido, o número de palavras e as
+ * palavras de GorillaCodec)
+ *
+ * Linhas de temperatura são copiadas em bloco por uma visão DoubleBuffer do
+ * buffer direto, sem cabeçalhos por objeto nem reflexão. O buffer cresce
+ * conforme a necessidade e é mantido entre quadros.
+ */
+final class WireBuffer {
+
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+
+    private ByteBuffer buf = allocate(INITIAL_CAPACITY);
+
+    private static ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Garante espaço para mais 'bytes' bytes, preservando o conteúdo já
+     * escrito.
+     */
+    private void ensureRemaining(int bytes) {
+        if (buf.remaining() >= bytes)
+            return;
+        long needed = (long) buf.position() + bytes;
+        if (needed > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Quadro grande demais: " + needed + " bytes");
+        int capacity = buf.capacity();
+        while (capacity < needed)
+            capacity = (int) Math.min(Integer.MAX_VALUE, 2L * capacity);
+        ByteBuffer bigger = allocate(capacity);
+        buf.flip();
+        bigger.put(buf);
+        buf = bigger;
+    }
+
+    /**
+     * Começa um quadro novo, reservando o campo de comprimento.
+     */
+    void beginFrame() {
+        buf.clear();
+        buf.putInt(0);
+    }
+
+    /**
+     * Preenche o comprimento e envia o quadro inteiro.
+     *
+     * @return bytes enviados
+     */
+    int writeFrame(SocketChannel channel) throws IOException {
+        buf.putInt(0, buf.position() - Integer.BYTES);
+        buf.flip();
+        int total = buf.remaining();
+        while (buf.hasRemaining())
+            channel.write(buf);
+        return total;
+    }
+
+    /**
+     * Lê o próximo quadro do canal, deixando o buffer posicionado no início do
+     * conteúdo.
+     *
+     * @return bytes lidos, ou -1 se o canal foi fechado entre quadros
+     */
+    int readFrame(SocketChannel channel) throws IOException {
+        buf.clear().limit(Integer.BYTES);
+        if (!readFully(channel, true))
+            return -1;
+        int length = buf.getInt(0);
+        if (length < 0)
+            throw new IOException("Comprimento de quadro inválido: " + length);
+        buf.clear();
+        ensureRemaining(length);
+        buf.limit(length);
+        readFully(channel, false);
+        buf.flip();
+        return length + Integer.BYTES;
+    }
+
+    private boolean readFully(SocketChannel channel, boolean eofAllowed) throws IOException {
+        boolean first = true;
+        while (buf.hasRemaining()) {
+            if (channel.read(buf) < 0) {
+                if (eofAllowed && first)
+                    return false;
+                throw new EOFException("Conexão encerrada no meio de um quadro");
+            }
+            first = false;
+        }
+        return true;
+    }
+
+    void putInt(int v) {
+        ensureRemaining(Integer.BYTES);
+        buf.putInt(v);
+    }
+
+    void putLong(long v) {
+        ensureRemaining(Long.BYTES);
+        buf.putLong(v);
+    }
+
+    void putDouble(double v) {
+        ensureRemaining(Double.BYTES);
+        buf.putDouble(v);
+    }
+
+    void putBoolean(boolean v) {
+        ensureRemaining(1);
+        buf.put((byte) (v ? 1 : 0));
+    }
+
+    void putByte(byte v) {
+        ensureRemaining(1);
+        buf.put(v);
+    }
+
+    void putString(String s) {
+        if (s == null) {
+            putInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        ensureRemaining(bytes.length);
+        buf.put(bytes);
+    }
+
+    void putDoubles(double[] row) {
+        if (row == null) {
+            putInt(-1);
+            return;
+        }
+        putInt(row.length);
+        ensureRemaining(row.length * Double.BYTES);
+        buf.asDoubleBuffer().put(row);
+        buf.position(buf.position() + row.length * Double.BYTES);
+    }
+
+    void putLongs(long[] values) {
+        putInt(values.length);
+        ensureRemaining(values.length * Long.BYTES);
+        buf.asLongBuffer().put(values);
+        buf.position(buf.position() + values.length * Long.BYTES);
+    }
+
+    void putRows(double[][] rows) {
+        if (rows == null) {
+            putInt(-1);
+            return;
+        }
+        putInt(rows.length);
+        for (double[] row : rows)
+            putDoubles(row);
+    }
+
+    void putBlock(GridBlock block) {
+        if (block == null) {
+            putInt(0);
+            putInt(-1);
+            return;
+        }
+        double[] data = block.data();
+        putInt(block.firstRow());
+        putInt(block.rows());
+        putInt(block.width());
+        putBoolean(block.compressed());
+        if (block.compressed()) {
+            long[] words = GridBlock.encode(data);
+            putInt(words.length);
+            ensureRemaining(words.length * Long.BYTES);
+            buf.asLongBuffer().put(words);
+            buf.position(buf.position() + words.length * Long.BYTES);
+            return;
+        }
+        ensureRemaining(data.length * Double.BYTES);
+        buf.asDoubleBuffer().put(data);
+        buf.position(buf.position() + data.length * Double.BYTES);
+    }
+
+    int getInt() {
+        return buf.getInt();
+    }
+
+    long getLong() {
+        return buf.getLong();
+    }
+
+    double getDouble() {
+        return buf.getDouble();
+    }
+
+    boolean getBoolean() {
+        return buf.get() != 0;
+    }
+
+    byte getByte() {
+        return buf.get();
+    }
+
+    String getString() {
+        int length = buf.getInt();
+        if (length < 0)
+            return null;
+        byte[] bytes = new byte[length];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    double[] getDoubles() {
+        int length = buf.getInt();
+        if (length < 0)
+            return null;
+        double[] row = new double[length];
+        buf.asDoubleBuffer().get(row);
+        buf.position(buf.position() + length * Double.BYTES);
+        return row;
+    }
+
+    long[] getLongs() {
+        long[] values = new long[buf.getInt()];
+        buf.asLongBuffer().get(values);
+        buf.position(buf.position() + values.length * Long.BYTES);
+        return values;
+    }
+
+    GridBlock getBlock() {
+        int firstRow = buf.getInt();
+        int rows = buf.getInt();
+        if (rows < 0)
+            return null;
+        int width = buf.getInt();
+        if (getBoolean()) {
+            long[] words = new long[buf.getInt()];
+            buf.asLongBuffer().get(words);
+            buf.position(buf.position() + words.length * Long.BYTES);
+            return new GridBlock(firstRow, rows, width, GridBlock.decode(words, rows * width)).withCompression(true);
+        }
+        double[] data = new double[rows * width];
+        buf.asDoubleBuffer().get(data);
+        buf.position(buf.position() + data.length * Double.BYTES);
+        return new GridBlock(firstRow, rows, width, data);
+    }
+
+    double[][] getRows() {
+        int length = buf.getInt();
+        if (length < 0)
+            return null;
+        double[][] rows = new double[length][];
+        for (int i = 0; i < length; i++)
+            rows[i] = getDoubles();
+        return rows;
+    }
+}
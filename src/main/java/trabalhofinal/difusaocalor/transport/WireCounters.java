@@ -0,0 +1,43 @@
+package trabalhofinal.difusaocalor.transport;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bytes trafegados nas conexões abertas por esta JVM com os workers, pelos
+ * dois transportes: o binário (SocketWorkerClient) e o RMI (sockets criados
+ * por CountingClientSocketFactory). Inclui cabeçalhos e serialização, ao
+ * contrário dos bytes de temperaturas contados pelo simulador distribuído.
+ */
+public final class WireCounters {
+
+    private static final AtomicLong sent = new AtomicLong();
+    private static final AtomicLong received = new AtomicLong();
+
+    private WireCounters() {
+    }
+
+    static void addSent(long bytes) {
+        sent.addAndGet(bytes);
+    }
+
+    static void addReceived(long bytes) {
+        received.addAndGet(bytes);
+    }
+
+    public static long sent() {
+        return sent.get();
+    }
+
+    public static long received() {
+        return received.get();
+    }
+
+    public static long total() {
+        return sent.get() + received.get();
+    }
+
+    public static void reset() {
+        sent.set(0);
+        received.set(0);
+    }
+}
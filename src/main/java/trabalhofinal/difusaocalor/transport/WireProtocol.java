@@ -0,0 +1,38 @@
+package trabalhofinal.difusaocalor.transport;
+
+/**
+ * Códigos do protocolo binário entre coordenador e workers (ver
+ * SocketWorkerClient e SocketWorkerServer).
+ *
+ * Requisição: id (long), operação (byte) e os argumentos do método de Worker
+ * na ordem da assinatura. Resposta: id da requisição, status (byte) e o
+ * retorno (ou a mensagem de erro). Respostas podem voltar fora de ordem.
+ */
+final class WireProtocol {
+
+    static final byte INITIALIZE_MATRIX = 1;
+    static final byte COMPUTE_BLOCK = 2;
+    static final byte COMPUTE_MULTIPLE_STEPS = 3;
+    static final byte UPDATE_MATRIX = 4;
+    static final byte UPDATE_BOUNDARY_ROWS = 5;
+    static final byte SELECT_KERNEL = 6;
+    static final byte COMPUTE_GHOST_ZONE_STEPS = 7;
+    static final byte LOAD_STRIP = 8;
+    static final byte STEP_STRIP = 9;
+    static final byte GET_STRIP_BLOCK = 10;
+    static final byte CONNECT_NEIGHBORS = 11;
+    static final byte RUN_PEER_STEPS = 12;
+    static final byte PUT_GHOST_ROWS = 13;
+    // Variantes com GridBlock
+    static final byte INITIALIZE_MATRIX_BLOCK = 14;
+    static final byte COMPUTE_BLOCK_BLOCK = 15;
+
+    static final byte GET_THREAD_COUNT = 16;
+    static final byte GET_BUSY_NANOS = 17;
+
+    static final byte STATUS_OK = 0;
+    static final byte STATUS_ERROR = 1;
+
+    private WireProtocol() {
+    }
+}
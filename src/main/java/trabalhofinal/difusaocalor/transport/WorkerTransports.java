@@ -0,0 +1,69 @@
+package trabalhofinal.difusaocalor.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.rmi.Naming;
+import java.rmi.NotBoundException;
+import java.rmi.RemoteException;
+
+import trabalhofinal.difusaocalor.rmi.Worker;
+
+/**
+ * Obtém um Worker a partir da URL, escolhendo o transporte pelo esquema:
+ * - rmi://host:porta/nome: stub RMI (Naming.lookup)
+ * - tcp://host:porta: protocolo binário sobre SocketChannel
+ * (SocketWorkerClient / SocketWorkerServer)
+ *
+ * O restante do código usa apenas a interface Worker, de modo que os dois
+ * transportes podem ser misturados numa mesma simulação.
+ */
+public final class WorkerTransports {
+
+    /**
+     * Esquema das URLs do transporte binário.
+     */
+    public static final String TCP_SCHEME = "tcp";
+
+    private WorkerTransports() {
+    }
+
+    /**
+     * Conecta ao worker da URL.
+     *
+     * @throws RemoteException se a URL for inválida, o worker não estiver
+     *                         registrado ou a conexão falhar
+     */
+    public static Worker connect(String url) throws RemoteException {
+        if (url.startsWith(TCP_SCHEME + "://")) {
+            try {
+                URI uri = new URI(url);
+                if (uri.getHost() == null || uri.getPort() < 0)
+                    throw new RemoteException("URL sem host ou porta: " + url);
+                return SocketWorkerClient.connect(uri.getHost(), uri.getPort());
+            } catch (URISyntaxException ex) {
+                throw new RemoteException("URL inválida: " + url, ex);
+            }
+        }
+        try {
+            return (Worker) Naming.lookup(url);
+        } catch (NotBoundException | MalformedURLException ex) {
+            throw new RemoteException("Worker não encontrado: " + url, ex);
+        }
+    }
+
+    /**
+     * Libera a conexão de um Worker obtido por connect (sem efeito para stubs
+     * RMI, cujas conexões são geridas pelo próprio RMI).
+     */
+    public static void close(Worker worker) {
+        if (worker instanceof Closeable c) {
+            try {
+                c.close();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+}
@@ -567,7 +567,8 @@ public class FormPrincipal extends javax.swing.JFrame {
                 if (!urls.isEmpty()) {
                     progressBarBenchmark.setValue(70);
                     progressBarBenchmark.setString("Modo distribuído... 70%");
-                    distStats = BenchmarkUtil.runDistributed(fn, falpha, fsteps, frepeats, urls);
+                    distStats = BenchmarkUtil.runDistributed(fn, falpha, fsteps, frepeats, urls, sim -> {
+                    }, "");
                 }
                 progressBarBenchmark.setValue(100);
                 progressBarBenchmark.setString("Concluído! 100%");
@@ -682,8 +683,9 @@ public class FormPrincipal extends javax.swing.JFrame {
                         JOptionPane.WARNING_MESSAGE);
                 return;
             }
-            ProcessBuilder pb = new ProcessBuilder("java", "-cp", "target\\classes",
-                    "trabalhofinal.difusaocalor.rmi.WorkerServer", name, String.valueOf(port));
+            // --add-modules habilita o kernel SIMD (Vector API) no worker
+            ProcessBuilder pb = new ProcessBuilder("java", "--add-modules", "jdk.incubator.vector", "-cp",
+                    "target\\classes", "trabalhofinal.difusaocalor.rmi.WorkerServer", name, String.valueOf(port));
             pb.redirectErrorStream(true);
             Process p = pb.start();
             workerProcesses.put(name, p);
@@ -6,12 +6,12 @@ set PATH=%JAVA_HOME%\bin;%PATH%
 cd /d "%~dp0"
 
 echo Iniciando Worker1 na porta 1099...
-start "Worker1" cmd /k java -cp target\classes trabalhofinal.difusaocalor.rmi.WorkerServer Worker1 1099
+start "Worker1" cmd /k java --add-modules jdk.incubator.vector -cp target\classes trabalhofinal.difusaocalor.rmi.WorkerServer Worker1 1099
 
 timeout /t 2 /nobreak
 
 echo Iniciando Worker2 na porta 1100...
-start "Worker2" cmd /k java -cp target\classes trabalhofinal.difusaocalor.rmi.WorkerServer Worker2 1100
+start "Worker2" cmd /k java --add-modules jdk.incubator.vector -cp target\classes trabalhofinal.difusaocalor.rmi.WorkerServer Worker2 1100
 
 echo.
 echo Workers iniciados! Você pode agora usar o FormPrincipal.